@@ -0,0 +1,234 @@
+package com.example;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Every scalar Calculator method, with inputs typical of the GUIs and examples
+ *
+ * Inputs are non-final fields so the JIT can't fold the calls into constants.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CalculatorBenchmark {
+    private final Calculator calculator = new Calculator();
+
+    private int a = 42;
+    private int b = 17;
+    private double base = 2.5;
+    private double exponent = 3.2;
+    private double value = 1.7;
+    private double voltage = 230;
+    private double current = 12.5;
+    private double resistance = 47;
+    private double apparentPower = 5000;
+    private double realPower = 4200;
+    private double powerFactor = 0.85;
+    private double lineToNeutralVoltage = 230;
+    private double totalPower = 15000;
+    private double lineVoltage = 400;
+    private double reactance = 30;
+    private double wavelength = 500e-9;
+    private double energy = 3.2e-19;
+    private double mass = 9.109e-31;
+    private double velocity = 2.0e7;
+    private double height = 10;
+    private double q1 = 1.6e-19;
+    private double q2 = -1.6e-19;
+    private double distance = 5.3e-11;
+    private double m1 = 5.97e24;
+    private double m2 = 7.35e22;
+    private double radius = 6.371e6;
+    private double centralMass = 1.989e30;
+    private double temperature = 5800;
+    private double area = 6.09e18;
+    private double restMass = 1.673e-27;
+
+    @Benchmark
+    public int add() {
+        return calculator.add(a, b);
+    }
+
+    @Benchmark
+    public int subtract() {
+        return calculator.subtract(a, b);
+    }
+
+    @Benchmark
+    public int multiply() {
+        return calculator.multiply(a, b);
+    }
+
+    @Benchmark
+    public double divide() {
+        return calculator.divide(a, b);
+    }
+
+    @Benchmark
+    public double power() {
+        return calculator.power(base, exponent);
+    }
+
+    @Benchmark
+    public double square() {
+        return calculator.square(value);
+    }
+
+    @Benchmark
+    public double cube() {
+        return calculator.cube(value);
+    }
+
+    @Benchmark
+    public double calculatePower() {
+        return calculator.calculatePower(voltage, current);
+    }
+
+    @Benchmark
+    public double calculatePowerFromResistance() {
+        return calculator.calculatePowerFromResistance(voltage, resistance);
+    }
+
+    @Benchmark
+    public double calculateApparentPower() {
+        return calculator.calculateApparentPower(voltage, current);
+    }
+
+    @Benchmark
+    public double calculateReactivePower() {
+        return calculator.calculateReactivePower(apparentPower, realPower);
+    }
+
+    @Benchmark
+    public double calculatePowerFactor() {
+        return calculator.calculatePowerFactor(realPower, apparentPower);
+    }
+
+    @Benchmark
+    public double calculateThreePhaseRealPower() {
+        return calculator.calculateThreePhaseRealPower(voltage, current, powerFactor);
+    }
+
+    @Benchmark
+    public double calculateThreePhaseApparentPower() {
+        return calculator.calculateThreePhaseApparentPower(voltage, current);
+    }
+
+    @Benchmark
+    public double calculateThreePhaseReactivePower() {
+        return calculator.calculateThreePhaseReactivePower(voltage, current, powerFactor);
+    }
+
+    @Benchmark
+    public double calculateLineToLineVoltage() {
+        return calculator.calculateLineToLineVoltage(lineToNeutralVoltage);
+    }
+
+    @Benchmark
+    public double calculatePhaseCurrentBalanced() {
+        return calculator.calculatePhaseCurrentBalanced(totalPower, lineVoltage, powerFactor);
+    }
+
+    @Benchmark
+    public double calculateImpedanceMagnitude() {
+        return calculator.calculateImpedanceMagnitude(resistance, reactance);
+    }
+
+    @Benchmark
+    public double calculateImpedanceAngle() {
+        return calculator.calculateImpedanceAngle(resistance, reactance);
+    }
+
+    @Benchmark
+    public double calculateElectronRestEnergy() {
+        return calculator.calculateElectronRestEnergy();
+    }
+
+    @Benchmark
+    public double calculatePhotonEnergy() {
+        return calculator.calculatePhotonEnergy(wavelength);
+    }
+
+    @Benchmark
+    public double calculatePhotonWavelength() {
+        return calculator.calculatePhotonWavelength(energy);
+    }
+
+    @Benchmark
+    public double calculateDeBroglieWavelength() {
+        return calculator.calculateDeBroglieWavelength(mass, velocity);
+    }
+
+    @Benchmark
+    public double calculateKineticEnergy() {
+        return calculator.calculateKineticEnergy(mass, velocity);
+    }
+
+    @Benchmark
+    public double calculatePotentialEnergy() {
+        return calculator.calculatePotentialEnergy(mass, height);
+    }
+
+    @Benchmark
+    public double calculateCoulombForce() {
+        return calculator.calculateCoulombForce(q1, q2, distance);
+    }
+
+    @Benchmark
+    public double calculateGravitationalForce() {
+        return calculator.calculateGravitationalForce(m1, m2, distance);
+    }
+
+    @Benchmark
+    public double calculateEscapeVelocity() {
+        return calculator.calculateEscapeVelocity(mass, radius);
+    }
+
+    @Benchmark
+    public double calculateOrbitalVelocity() {
+        return calculator.calculateOrbitalVelocity(centralMass, radius);
+    }
+
+    @Benchmark
+    public double calculateBlackbodyPower() {
+        return calculator.calculateBlackbodyPower(temperature, area);
+    }
+
+    @Benchmark
+    public double calculateWienDisplacement() {
+        return calculator.calculateWienDisplacement(temperature);
+    }
+
+    @Benchmark
+    public double calculateRelativisticMass() {
+        return calculator.calculateRelativisticMass(restMass, velocity);
+    }
+
+    @Benchmark
+    public double calculateRelativisticEnergy() {
+        return calculator.calculateRelativisticEnergy(restMass, velocity);
+    }
+
+    @Benchmark
+    public double calculateTimeDialation() {
+        return calculator.calculateTimeDialation(velocity);
+    }
+
+    @Benchmark
+    public double calculateLengthContraction() {
+        return calculator.calculateLengthContraction(velocity);
+    }
+}
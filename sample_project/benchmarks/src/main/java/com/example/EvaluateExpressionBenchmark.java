@@ -0,0 +1,73 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * End-to-end latency of console formulas, from source text to formatted result
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvaluateExpressionBenchmark {
+    @Param({
+        "2 + 3 * 4",
+        "sqrt(16) + sin(pi / 2)",
+        "m_e * c^2 / eV",
+        "photon_energy(500e-9) / eV",
+        "0.5 * m_p * (0.1 * c)^2",
+        "h * c / (k_B * 5800)"
+    })
+    public String formula;
+
+    private ConsoleCalculator console;
+    private SymbolTable symbols;
+
+    @Setup
+    public void setUp() throws IOException {
+        Path history = Files.createTempFile("benchmark-history", ".log");
+        history.toFile().deleteOnExit();
+        System.setProperty("calculator.history", history.toString());
+        console = new ConsoleCalculator();
+        symbols = new SymbolTable();
+        PhysicsConstants.defineAll(symbols);
+    }
+
+    /**
+     * What the console does for each command: cache lookup, evaluation and storing ans
+     */
+    @Benchmark
+    public double evaluateExpression() {
+        return console.evaluateExpression(formula);
+    }
+
+    @Benchmark
+    public String evaluateAndFormat() {
+        return DoubleFormatter.formatResult(console.evaluateExpression(formula));
+    }
+
+    /**
+     * A formula seen for the first time: lexing, parsing and optimizing before evaluation
+     */
+    @Benchmark
+    public double parseAndEvaluate() {
+        return ExpressionParser.parse(formula, symbols).evaluate();
+    }
+}
@@ -0,0 +1,87 @@
+package com.example;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Result formatting and number parsing, against the JDK methods they replace
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormattingBenchmark {
+    private static final int VALUES = 1024;
+
+    private final double[] values = new double[VALUES];
+    private final String[] literals = new String[VALUES];
+    private final DoubleFormatter formatter = new DoubleFormatter();
+    private final byte[] buffer = new byte[DoubleFormatter.MAX_LENGTH];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        // Magnitudes spanning both the %.6f and %.6e ranges of formatResult
+        Random random = new Random(23);
+        for (int i = 0; i < VALUES; i++) {
+            values[i] = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(30) - 15);
+            literals[i] = Double.toString(values[i]);
+        }
+    }
+
+    private int nextIndex() {
+        next = (next + 1) & (VALUES - 1);
+        return next;
+    }
+
+    @Benchmark
+    public int fixedIntoBuffer() {
+        return formatter.format(values[nextIndex()], DoubleFormatter.Mode.FIXED, buffer, 0);
+    }
+
+    @Benchmark
+    public int shortestIntoBuffer() {
+        return formatter.format(values[nextIndex()], DoubleFormatter.Mode.SHORTEST, buffer, 0);
+    }
+
+    @Benchmark
+    public String formatResult() {
+        return DoubleFormatter.formatResult(values[nextIndex()]);
+    }
+
+    @Benchmark
+    public String stringFormat() {
+        double value = values[nextIndex()];
+        return Math.abs(value) > 1e6 || (Math.abs(value) < 1e-3 && value != 0)
+                ? String.format("%.6e", value) : String.format("%.6f", value);
+    }
+
+    @Benchmark
+    public String doubleToString() {
+        return Double.toString(values[nextIndex()]);
+    }
+
+    @Benchmark
+    public double parseNumber() {
+        String literal = literals[nextIndex()];
+        return NumberParser.parse(literal, 0, literal.length());
+    }
+
+    @Benchmark
+    public double parseDouble() {
+        return Double.parseDouble(literals[nextIndex()]);
+    }
+}
@@ -0,0 +1,82 @@
+package com.example;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Variable access as the symbol table grows, by name and through cached expressions
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VariableLookupBenchmark {
+    private static final int NAMES = 1024;
+
+    @Param({"10", "100", "1000", "10000"})
+    public int variables;
+
+    private SymbolTable symbols;
+    private ExpressionCache cache;
+    private final String[] names = new String[NAMES];
+    private final String[] formulas = new String[NAMES];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        symbols = new SymbolTable();
+        PhysicsConstants.defineAll(symbols);
+        for (int i = 0; i < variables; i++) {
+            symbols.define("v" + i, i);
+        }
+        cache = new ExpressionCache(symbols);
+        // Fresh String instances, as a lexer would produce, in random order
+        Random random = new Random(24);
+        for (int i = 0; i < NAMES; i++) {
+            names[i] = new String("v" + random.nextInt(variables));
+            formulas[i] = "v" + random.nextInt(variables) + " * c + v" + random.nextInt(variables);
+        }
+    }
+
+    private int nextIndex() {
+        next = (next + 1) & (NAMES - 1);
+        return next;
+    }
+
+    @Benchmark
+    public int slotOf() {
+        return symbols.slotOf(names[nextIndex()]);
+    }
+
+    @Benchmark
+    public double getByName() {
+        return symbols.get(names[nextIndex()]);
+    }
+
+    @Benchmark
+    public int defineExisting() {
+        return symbols.define(names[nextIndex()], next);
+    }
+
+    /**
+     * Cached formulas over different variables, as a script referencing many names would run
+     */
+    @Benchmark
+    public double evaluateCached() {
+        return cache.get(formulas[nextIndex()]).evaluate();
+    }
+}
@@ -7,15 +7,28 @@ echo "Building Java project..."
 mkdir -p build/classes
 
 # Compile source files
-javac -d build/classes src/main/java/com/example/*.java
+# (the incubating Vector API module is needed for the columnar batch kernels)
+javac -encoding UTF-8 --add-modules jdk.incubator.vector -d build/classes src/main/java/com/example/*.java \
+    src/main/java/com/example/engine/*.java
 
 # Compile test files
-javac -cp build/classes -d build/classes src/test/java/com/example/*.java
+javac -encoding UTF-8 --add-modules jdk.incubator.vector -cp build/classes -d build/classes src/test/java/com/example/*.java \
+    src/test/java/com/example/engine/*.java
+
+# Package the classes and record what a console session loads into a class-data sharing
+# archive, which calc.sh starts from
+jar cf build/calculator.jar -C build/classes .
+java -XX:ArchiveClassesAtExit=build/console.jsa -Dcalculator.history=build/cds-training.history \
+    -cp build/calculator.jar com.example.ConsoleCalculator < cds-training.txt > /dev/null
+rm -f build/cds-training.history
 
 echo "Build complete!"
 echo ""
 echo "To run the application:"
 echo "java -cp build/classes com.example.App"
 echo ""
+echo "To run the fast-start headless console:"
+echo "./calc.sh [--simple] [--startup-profile]"
+echo ""
 echo "To run tests:"
 echo "java -cp build/classes -ea com.example.CalculatorTest"
\ No newline at end of file
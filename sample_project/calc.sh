@@ -0,0 +1,22 @@
+#!/bin/bash
+
+# Headless launcher for the console calculators, started from the class-data sharing
+# archive that build.sh writes. Never loads AWT or Swing.
+#   ./calc.sh                     command-line calculator
+#   ./calc.sh --simple            simple physics calculator
+#   ./calc.sh --script file.txt   run a script
+#   --startup-profile             print startup phase timings to stderr
+
+dir="$(cd "$(dirname "$0")" && pwd)"
+if [ ! -f "$dir/build/console.jsa" ]; then
+    (cd "$dir" && ./build.sh > /dev/null)
+fi
+
+main=com.example.ConsoleCalculator
+if [ "$1" = "--simple" ]; then
+    main=com.example.SimpleConsoleCalc
+    shift
+fi
+
+exec java -XX:SharedArchiveFile="$dir/build/console.jsa" -XX:+UseSerialGC -Djava.awt.headless=true \
+    -cp "$dir/build/calculator.jar" "$main" "$@"
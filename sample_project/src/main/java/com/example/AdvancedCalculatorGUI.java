@@ -7,20 +7,30 @@ import java.awt.event.ActionListener;
 import java.io.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 
 public class AdvancedCalculatorGUI extends JFrame {
+    private static final int HISTORY_LOAD_CHUNK = 10_000;
+
     private JTextField displayField;
-    private JTextArea historyArea;
+    private JList<String> historyList;
     private Calculator calculator;
-    private List<String> history;
+    private DefaultListModel<String> history;
+    private HistoryLog historyLog;
     private double result = 0;
     private String operator = "";
     private boolean operatorPressed = false;
 
     public AdvancedCalculatorGUI() {
         calculator = new Calculator();
-        history = new ArrayList<>();
+        history = new DefaultListModel<>();
         initializeGUI();
+        try {
+            historyLog = HistoryLog.openDefault();
+            restoreHistory();
+        } catch (IOException e) {
+            System.err.println("History is not saved: " + e.getMessage());
+        }
     }
 
     private void initializeGUI() {
@@ -185,11 +195,13 @@ public class AdvancedCalculatorGUI extends JFrame {
         panel.setBorder(BorderFactory.createTitledBorder("History"));
         panel.setPreferredSize(new Dimension(200, 0));
 
-        historyArea = new JTextArea();
-        historyArea.setEditable(false);
-        historyArea.setFont(new Font("Monospaced", Font.PLAIN, 12));
+        // Only visible rows are rendered; the prototype fixes cell height and width so the
+        // list never measures every entry
+        historyList = new JList<>(history);
+        historyList.setFont(new Font("Monospaced", Font.PLAIN, 12));
+        historyList.setPrototypeCellValue("12345.678 * 12345.678 = 152415765.279");
         
-        JScrollPane scrollPane = new JScrollPane(historyArea);
+        JScrollPane scrollPane = new JScrollPane(historyList);
         panel.add(scrollPane, BorderLayout.CENTER);
 
         JButton clearHistoryBtn = new JButton("Clear History");
@@ -340,22 +352,61 @@ public class AdvancedCalculatorGUI extends JFrame {
     }
 
     private void addToHistory(String calculation) {
-        history.add(calculation);
-        updateHistoryDisplay();
+        history.addElement(calculation);
+        scrollHistoryToEnd();
+        if (historyLog != null) {
+            historyLog.append(HistoryLog.GUI, calculation);
+        }
+    }
+
+    /**
+     * Show earlier sessions' calculations from the shared log. They are read in one snapshot
+     * off the EDT, since a compaction can renumber entries, then added in chunks.
+     */
+    private void restoreHistory() {
+        new SwingWorker<Void, List<String>>() {
+            private int restored;
+
+            @Override
+            protected Void doInBackground() {
+                List<String> entries = historyLog.recent(HistoryLog.GUI, Integer.MAX_VALUE);
+                for (int start = 0; start < entries.size(); start += HISTORY_LOAD_CHUNK) {
+                    publish(new ArrayList<>(entries.subList(start, Math.min(start + HISTORY_LOAD_CHUNK, entries.size()))));
+                }
+                return null;
+            }
+
+            @Override
+            protected void process(List<List<String>> chunks) {
+                // Calculations made while loading stay after the restored ones
+                for (List<String> chunk : chunks) {
+                    int insertAt = Math.min(restored, history.size());
+                    history.addAll(insertAt, chunk);
+                    restored = insertAt + chunk.size();
+                }
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    get();
+                    scrollHistoryToEnd();
+                } catch (InterruptedException | ExecutionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    JOptionPane.showMessageDialog(AdvancedCalculatorGUI.this, "Error restoring history: " + cause.getMessage());
+                }
+            }
+        }.execute();
     }
 
-    private void updateHistoryDisplay() {
-        StringBuilder sb = new StringBuilder();
-        for (String entry : history) {
-            sb.append(entry).append("\n");
+    private void scrollHistoryToEnd() {
+        if (!history.isEmpty()) {
+            historyList.ensureIndexIsVisible(history.size() - 1);
         }
-        historyArea.setText(sb.toString());
-        historyArea.setCaretPosition(historyArea.getDocument().getLength());
     }
 
     private void clearHistory() {
         history.clear();
-        historyArea.setText("");
     }
 
     private void toggleHistory() {
@@ -368,9 +419,9 @@ public class AdvancedCalculatorGUI extends JFrame {
     private void saveHistory() {
         JFileChooser fileChooser = new JFileChooser();
         if (fileChooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
-            try (PrintWriter writer = new PrintWriter(fileChooser.getSelectedFile())) {
-                for (String entry : history) {
-                    writer.println(entry);
+            try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(fileChooser.getSelectedFile())))) {
+                for (int i = 0; i < history.size(); i++) {
+                    writer.println(history.get(i));
                 }
                 JOptionPane.showMessageDialog(this, "History saved successfully!");
             } catch (IOException e) {
@@ -382,17 +433,49 @@ public class AdvancedCalculatorGUI extends JFrame {
     private void loadHistory() {
         JFileChooser fileChooser = new JFileChooser();
         if (fileChooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
-            try (BufferedReader reader = new BufferedReader(new FileReader(fileChooser.getSelectedFile()))) {
-                history.clear();
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    history.add(line);
+            File file = fileChooser.getSelectedFile();
+            history.clear();
+
+            // Read on a worker thread and add entries in chunks, one list event per chunk
+            new SwingWorker<Integer, List<String>>() {
+                @Override
+                protected Integer doInBackground() throws IOException {
+                    int count = 0;
+                    try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+                        List<String> chunk = new ArrayList<>(HISTORY_LOAD_CHUNK);
+                        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                            chunk.add(line);
+                            count++;
+                            if (chunk.size() == HISTORY_LOAD_CHUNK) {
+                                publish(chunk);
+                                chunk = new ArrayList<>(HISTORY_LOAD_CHUNK);
+                            }
+                        }
+                        publish(chunk);
+                    }
+                    return count;
                 }
-                updateHistoryDisplay();
-                JOptionPane.showMessageDialog(this, "History loaded successfully!");
-            } catch (IOException e) {
-                JOptionPane.showMessageDialog(this, "Error loading history: " + e.getMessage());
-            }
+
+                @Override
+                protected void process(List<List<String>> chunks) {
+                    for (List<String> chunk : chunks) {
+                        history.addAll(chunk);
+                    }
+                }
+
+                @Override
+                protected void done() {
+                    try {
+                        int count = get();
+                        scrollHistoryToEnd();
+                        JOptionPane.showMessageDialog(AdvancedCalculatorGUI.this,
+                                "History loaded successfully! (" + count + " entries)");
+                    } catch (InterruptedException | ExecutionException e) {
+                        Throwable cause = e.getCause() != null ? e.getCause() : e;
+                        JOptionPane.showMessageDialog(AdvancedCalculatorGUI.this, "Error loading history: " + cause.getMessage());
+                    }
+                }
+            }.execute();
         }
     }
 
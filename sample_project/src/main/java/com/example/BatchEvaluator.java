@@ -0,0 +1,135 @@
+package com.example;
+
+import java.util.Arrays;
+
+/**
+ * Evaluates one expression over columns of input values
+ *
+ * The named input variables change per row; every other variable keeps its value at
+ * the time the evaluator is created. Subtrees that depend only on those invariant
+ * values are hoisted out of the row loop.
+ *
+ * Two modes are available:
+ * - COMPILED compiles the remaining tree once and calls it for every row. Results are
+ *   bit-identical to Expression.evaluate().
+ * - COLUMNAR runs each node over a whole chunk of rows at a time (see ColumnProgram),
+ *   on DoubleVector lanes when jdk.incubator.vector is available. Arithmetic, sqrt and
+ *   abs are vectorized and a*b+c is fused into fma; other functions run scalar loops.
+ */
+public class BatchEvaluator {
+    private static final ColumnKernels KERNELS = ColumnKernels.best();
+
+    public enum Mode { COMPILED, COLUMNAR }
+
+    private final Expression expression;
+    private final Mode mode;
+    private final int[] inputSlots;
+    private final ExpressionNode root;
+    private final CompiledExpression evaluator;
+    private final ColumnProgram program;
+    private final double[] invariantValues;
+
+    /**
+     * Create a COMPILED mode evaluator
+     * @param inputs names of the variables supplied as columns, in column order
+     * @throws IllegalArgumentException if an input is not a variable of the expression's symbol table
+     */
+    public BatchEvaluator(Expression expression, String... inputs) {
+        this(expression, Mode.COMPILED, inputs);
+    }
+
+    /**
+     * @param inputs names of the variables supplied as columns, in column order
+     * @throws IllegalArgumentException if an input is not a variable of the expression's symbol table
+     */
+    public BatchEvaluator(Expression expression, Mode mode, String... inputs) {
+        SymbolTable symbols = expression.getSymbols();
+        this.expression = expression;
+        this.mode = mode;
+        this.inputSlots = new int[inputs.length];
+
+        boolean[] varying = new boolean[symbols.size()];
+        for (int i = 0; i < inputs.length; i++) {
+            int slot = symbols.slotOf(inputs[i]);
+            if (slot < 0) {
+                throw new IllegalArgumentException("Unknown variable: " + inputs[i]);
+            }
+            inputSlots[i] = slot;
+            varying[slot] = true;
+        }
+
+        // Hoist from the parsed tree: the optimized one may have folded an input that is a constant
+        this.root = ExpressionOptimizer.hoistInvariants(expression.getParsedRoot(), symbols, varying);
+        this.evaluator = mode == Mode.COMPILED ? compile(root) : null;
+        this.program = mode == Mode.COLUMNAR ? new ColumnProgram(root, inputSlots) : null;
+        this.invariantValues = Arrays.copyOf(symbols.values(), symbols.size());
+    }
+
+    public Expression getExpression() {
+        return expression;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Whether COLUMNAR mode runs on vector lanes in this JVM
+     */
+    public static boolean isVectorAvailable() {
+        return KERNELS.isVectorized();
+    }
+
+    /**
+     * The tree evaluated per row, after invariant hoisting
+     */
+    public ExpressionNode getRoot() {
+        return root;
+    }
+
+    /**
+     * Evaluate every row
+     * @param columns input values, one array per input in constructor order
+     * @param out receives one result per row; its length is the row count
+     */
+    public void evaluate(double[][] columns, double[] out) {
+        evaluate(columns, out, 0, out.length);
+    }
+
+    /**
+     * Evaluate rows [from, to)
+     */
+    public void evaluate(double[][] columns, double[] out, int from, int to) {
+        checkColumns(columns, out.length);
+        if (program != null) {
+            program.evaluate(columns, out, from, to, KERNELS);
+            return;
+        }
+        double[] slots = invariantValues.clone();
+        for (int row = from; row < to; row++) {
+            for (int i = 0; i < inputSlots.length; i++) {
+                slots[inputSlots[i]] = columns[i][row];
+            }
+            out[row] = evaluator.eval(slots);
+        }
+    }
+
+    private void checkColumns(double[][] columns, int rows) {
+        if (columns.length != inputSlots.length) {
+            throw new IllegalArgumentException("Expected " + inputSlots.length + " input columns but got " + columns.length);
+        }
+        for (double[] column : columns) {
+            if (column.length < rows) {
+                throw new IllegalArgumentException("Input column shorter than output (" + column.length + " < " + rows + ")");
+            }
+        }
+    }
+
+    private static CompiledExpression compile(ExpressionNode root) {
+        try {
+            return ExpressionCompiler.compile(root);
+        } catch (IllegalStateException e) {
+            return SharedNodeWalker.of(root);
+        }
+    }
+}
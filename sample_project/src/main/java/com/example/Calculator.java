@@ -1,6 +1,9 @@
 package com.example;
 
+import java.util.Objects;
+
 public class Calculator {
+    private static final double SQRT_3 = Math.sqrt(3);
     
     public int add(int a, int b) {
         return a + b;
@@ -27,7 +30,7 @@ public class Calculator {
     }
     
     public double square(double value) {
-        return Math.pow(value, 2);
+        return value * value;
     }
     
     public double cube(double value) {
@@ -43,7 +46,7 @@ public class Calculator {
         if (resistance == 0) {
             throw new IllegalArgumentException("Resistance cannot be zero");
         }
-        return Math.pow(voltage, 2) / resistance; // P = V² / R
+        return voltage * voltage / resistance; // P = V² / R
     }
     
     public double calculateApparentPower(double voltage, double current) {
@@ -51,7 +54,7 @@ public class Calculator {
     }
     
     public double calculateReactivePower(double apparentPower, double realPower) {
-        return Math.sqrt(Math.pow(apparentPower, 2) - Math.pow(realPower, 2)); // Q = √(S² - P²)
+        return Math.sqrt(apparentPower * apparentPower - realPower * realPower); // Q = √(S² - P²)
     }
     
     public double calculatePowerFactor(double realPower, double apparentPower) {
@@ -63,21 +66,21 @@ public class Calculator {
     
     // 3-phase power calculations
     public double calculateThreePhaseRealPower(double voltage, double current, double powerFactor) {
-        return Math.sqrt(3) * voltage * current * powerFactor; // P = √3 * V * I * cos(φ)
+        return SQRT_3 * voltage * current * powerFactor; // P = √3 * V * I * cos(φ)
     }
     
     public double calculateThreePhaseApparentPower(double voltage, double current) {
-        return Math.sqrt(3) * voltage * current; // S = √3 * V * I
+        return SQRT_3 * voltage * current; // S = √3 * V * I
     }
     
     public double calculateThreePhaseReactivePower(double voltage, double current, double powerFactor) {
-        double sinPhi = Math.sqrt(1 - Math.pow(powerFactor, 2));
-        return Math.sqrt(3) * voltage * current * sinPhi; // Q = √3 * V * I * sin(φ)
+        double sinPhi = Math.sqrt(1 - powerFactor * powerFactor);
+        return SQRT_3 * voltage * current * sinPhi; // Q = √3 * V * I * sin(φ)
     }
     
     // Line to line voltage calculation
     public double calculateLineToLineVoltage(double lineToNeutralVoltage) {
-        return lineToNeutralVoltage * Math.sqrt(3); // VLL = √3 * VLN
+        return lineToNeutralVoltage * SQRT_3; // VLL = √3 * VLN
     }
     
     // Phase current calculation (balanced load)
@@ -85,12 +88,12 @@ public class Calculator {
         if (lineVoltage == 0 || powerFactor == 0) {
             throw new IllegalArgumentException("Voltage and power factor cannot be zero");
         }
-        return totalPower / (Math.sqrt(3) * lineVoltage * powerFactor); // I = P / (√3 * V * cos(φ))
+        return totalPower / (SQRT_3 * lineVoltage * powerFactor); // I = P / (√3 * V * cos(φ))
     }
     
     // Electrical impedance calculations
     public double calculateImpedanceMagnitude(double resistance, double reactance) {
-        return Math.sqrt(Math.pow(resistance, 2) + Math.pow(reactance, 2)); // Z = √(R² + X²)
+        return Math.sqrt(resistance * resistance + reactance * reactance); // Z = √(R² + X²)
     }
     
     public double calculateImpedanceAngle(double resistance, double reactance) {
@@ -163,4 +166,401 @@ public class Calculator {
     public double calculateLengthContraction(double velocity) {
         return Math.sqrt(1 - (velocity * velocity) / (PhysicsConstants.c * PhysicsConstants.c)); // 1/γ
     }
+    
+    // Bulk array calculations
+    // Each overload applies the scalar formula above to out[offset .. offset + length) with the
+    // same operation order, so results are bit-identical. Loops are allocation-free and
+    // branch-free apart from up-front validation, which lets the JIT vectorize them.
+    public void power(double[] base, double[] exponent, double[] out) {
+        power(base, exponent, out, 0, out.length);
+    }
+    
+    public void power(double[] base, double[] exponent, double[] out, int offset, int length) {
+        checkRange(offset, length, out, base, exponent);
+        int end = offset + length;
+        for (int k = offset; k < end; k++) {
+            out[k] = Math.pow(base[k], exponent[k]);
+        }
+    }
+    
+    public void square(double[] value, double[] out) {
+        square(value, out, 0, out.length);
+    }
+    
+    public void square(double[] value, double[] out, int offset, int length) {
+        checkRange(offset, length, out, value);
+        int end = offset + length;
+        for (int k = offset; k < end; k++) {
+            out[k] = value[k] * value[k];
+        }
+    }
+    
+    public void cube(double[] value, double[] out) {
+        cube(value, out, 0, out.length);
+    }
+    
+    public void cube(double[] value, double[] out, int offset, int length) {
+        checkRange(offset, length, out, value);
+        int end = offset + length;
+        for (int k = offset; k < end; k++) {
+            out[k] = Math.pow(value[k], 3);
+        }
+    }
+    
+    public void calculatePower(double[] voltage, double[] current, double[] out) {
+        calculatePower(voltage, current, out, 0, out.length);
+    }
+    
+    public void calculatePower(double[] voltage, double[] current, double[] out, int offset, int length) {
+        checkRange(offset, length, out, voltage, current);
+        int end = offset + length;
+        for (int k = offset; k < end; k++) {
+            out[k] = voltage[k] * current[k];
+        }
+    }
+    
+    public void calculatePowerFromResistance(double[] voltage, double[] resistance, double[] out) {
+        calculatePowerFromResistance(voltage, resistance, out, 0, out.length);
+    }
+    
+    public void calculatePowerFromResistance(double[] voltage, double[] resistance, double[] out, int offset, int length) {
+        checkRange(offset, length, out, voltage, resistance);
+        int end = offset + length;
+        for (int k = offset; k < end; k++) {
+            if (resistance[k] == 0) {
+                throw new IllegalArgumentException("Resistance cannot be zero");
+            }
+        }
+        for (int k = offset; k < end; k++) {
+            out[k] = voltage[k] * voltage[k] / resistance[k];
+        }
+    }
+    
+    public void calculateApparentPower(double[] voltage, double[] current, double[] out) {
+        calculateApparentPower(voltage, current, out, 0, out.length);
+    }
+    
+    public void calculateApparentPower(double[] voltage, double[] current, double[] out, int offset, int length) {
+        checkRange(offset, length, out, voltage, current);
+        int end = offset + length;
+        for (int k = offset; k < end; k++) {
+            out[k] = voltage[k] * current[k];
+        }
+    }
+    
+    public void calculateReactivePower(double[] apparentPower, double[] realPower, double[] out) {
+        calculateReactivePower(apparentPower, realPower, out, 0, out.length);
+    }
+    
+    public void calculateReactivePower(double[] apparentPower, double[] realPower, double[] out, int offset, int length) {
+        checkRange(offset, length, out, apparentPower, realPower);
+        int end = offset + length;
+        for (int k = offset; k < end; k++) {
+            out[k] = Math.sqrt(apparentPower[k] * apparentPower[k] - realPower[k] * realPower[k]);
+        }
+    }
+    
+    public void calculatePowerFactor(double[] realPower, double[] apparentPower, double[] out) {
+        calculatePowerFactor(realPower, apparentPower, out, 0, out.length);
+    }
+    
+    public void calculatePowerFactor(double[] realPower, double[] apparentPower, double[] out, int offset, int length) {
+        checkRange(offset, length, out, realPower, apparentPower);
+        int end = offset + length;
+        for (int k = offset; k < end; k++) {
+            if (apparentPower[k] == 0) {
+                throw new IllegalArgumentException("Apparent power cannot be zero");
+            }
+        }
+        for (int k = offset; k < end; k++) {
+            out[k] = realPower[k] / apparentPower[k];
+        }
+    }
+    
+    public void calculateThreePhaseRealPower(double[] voltage, double[] current, double[] powerFactor, double[] out) {
+        calculateThreePhaseRealPower(voltage, current, powerFactor, out, 0, out.length);
+    }
+    
+    public void calculateThreePhaseRealPower(double[] voltage, double[] current, double[] powerFactor, double[] out, int offset, int length) {
+        checkRange(offset, length, out, voltage, current, powerFactor);
+        int end = offset + length;
+        for (int k = offset; k < end; k++) {
+            out[k] = SQRT_3 * voltage[k] * current[k] * powerFactor[k];
+        }
+    }
+    
+    public void calculateThreePhaseApparentPower(double[] voltage, double[] current, double[] out) {
+        calculateThreePhaseApparentPower(voltage, current, out, 0, out.length);
+    }
+    
+    public void calculateThreePhaseApparentPower(double[] voltage, double[] current, double[] out, int offset, int length) {
+        checkRange(offset, length, out, voltage, current);
+        int end = offset + length;
+        for (int k = offset; k < end; k++) {
+            out[k] = SQRT_3 * voltage[k] * current[k];
+        }
+    }
+    
+    public void calculateThreePhaseReactivePower(double[] voltage, double[] current, double[] powerFactor, double[] out) {
+        calculateThreePhaseReactivePower(voltage, current, powerFactor, out, 0, out.length);
+    }
+    
+    public void calculateThreePhaseReactivePower(double[] voltage, double[] current, double[] powerFactor, double[] out, int offset, int length) {
+        checkRange(offset, length, out, voltage, current, powerFactor);
+        int end = offset + length;
+        for (int k = offset; k < end; k++) {
+            out[k] = SQRT_3 * voltage[k] * current[k] * Math.sqrt(1 - powerFactor[k] * powerFactor[k]);
+        }
+    }
+    
+    public void calculateLineToLineVoltage(double[] lineToNeutralVoltage, double[] out) {
+        calculateLineToLineVoltage(lineToNeutralVoltage, out, 0, out.length);
+    }
+    
+    public void calculateLineToLineVoltage(double[] lineToNeutralVoltage, double[] out, int offset, int length) {
+        checkRange(offset, length, out, lineToNeutralVoltage);
+        int end = offset + length;
+        for (int k = offset; k < end; k++) {
+            out[k] = lineToNeutralVoltage[k] * SQRT_3;
+        }
+    }
+    
+    public void calculatePhaseCurrentBalanced(double[] totalPower, double[] lineVoltage, double[] powerFactor, double[] out) {
+        calculatePhaseCurrentBalanced(totalPower, lineVoltage, powerFactor, out, 0, out.length);
+    }
+    
+    public void calculatePhaseCurrentBalanced(double[] totalPower, double[] lineVoltage, double[] powerFactor, double[] out, int offset, int length) {
+        checkRange(offset, length, out, totalPower, lineVoltage, powerFactor);
+        int end = offset + length;
+        for (int k = offset; k < end; k++) {
+            if (lineVoltage[k] == 0 || powerFactor[k] == 0) {
+                throw new IllegalArgumentException("Voltage and power factor cannot be zero");
+            }
+        }
+        for (int k = offset; k < end; k++) {
+            out[k] = totalPower[k] / (SQRT_3 * lineVoltage[k] * powerFactor[k]);
+        }
+    }
+    
+    public void calculateImpedanceMagnitude(double[] resistance, double[] reactance, double[] out) {
+        calculateImpedanceMagnitude(resistance, reactance, out, 0, out.length);
+    }
+    
+    public void calculateImpedanceMagnitude(double[] resistance, double[] reactance, double[] out, int offset, int length) {
+        checkRange(offset, length, out, resistance, reactance);
+        int end = offset + length;
+        for (int k = offset; k < end; k++) {
+            out[k] = Math.sqrt(resistance[k] * resistance[k] + reactance[k] * reactance[k]);
+        }
+    }
+    
+    public void calculateImpedanceAngle(double[] resistance, double[] reactance, double[] out) {
+        calculateImpedanceAngle(resistance, reactance, out, 0, out.length);
+    }
+    
+    public void calculateImpedanceAngle(double[] resistance, double[] reactance, double[] out, int offset, int length) {
+        checkRange(offset, length, out, resistance, reactance);
+        int end = offset + length;
+        for (int k = offset; k < end; k++) {
+            out[k] = Math.toDegrees(Math.atan(reactance[k] / resistance[k]));
+        }
+    }
+    
+    public void calculatePhotonEnergy(double[] wavelength, double[] out) {
+        calculatePhotonEnergy(wavelength, out, 0, out.length);
+    }
+    
+    public void calculatePhotonEnergy(double[] wavelength, double[] out, int offset, int length) {
+        checkRange(offset, length, out, wavelength);
+        int end = offset + length;
+        for (int k = offset; k < end; k++) {
+            out[k] = PhysicsConstants.photonEnergy(wavelength[k]);
+        }
+    }
+    
+    public void calculatePhotonWavelength(double[] energy, double[] out) {
+        calculatePhotonWavelength(energy, out, 0, out.length);
+    }
+    
+    public void calculatePhotonWavelength(double[] energy, double[] out, int offset, int length) {
+        checkRange(offset, length, out, energy);
+        int end = offset + length;
+        for (int k = offset; k < end; k++) {
+            out[k] = PhysicsConstants.photonWavelength(energy[k]);
+        }
+    }
+    
+    public void calculateDeBroglieWavelength(double[] mass, double[] velocity, double[] out) {
+        calculateDeBroglieWavelength(mass, velocity, out, 0, out.length);
+    }
+    
+    public void calculateDeBroglieWavelength(double[] mass, double[] velocity, double[] out, int offset, int length) {
+        checkRange(offset, length, out, mass, velocity);
+        int end = offset + length;
+        for (int k = offset; k < end; k++) {
+            out[k] = PhysicsConstants.deBroglieWavelength(mass[k], velocity[k]);
+        }
+    }
+    
+    public void calculateKineticEnergy(double[] mass, double[] velocity, double[] out) {
+        calculateKineticEnergy(mass, velocity, out, 0, out.length);
+    }
+    
+    public void calculateKineticEnergy(double[] mass, double[] velocity, double[] out, int offset, int length) {
+        checkRange(offset, length, out, mass, velocity);
+        int end = offset + length;
+        for (int k = offset; k < end; k++) {
+            out[k] = 0.5 * mass[k] * velocity[k] * velocity[k];
+        }
+    }
+    
+    public void calculatePotentialEnergy(double[] mass, double[] height, double[] out) {
+        calculatePotentialEnergy(mass, height, out, 0, out.length);
+    }
+    
+    public void calculatePotentialEnergy(double[] mass, double[] height, double[] out, int offset, int length) {
+        checkRange(offset, length, out, mass, height);
+        int end = offset + length;
+        for (int k = offset; k < end; k++) {
+            out[k] = mass[k] * PhysicsConstants.g * height[k];
+        }
+    }
+    
+    public void calculateCoulombForce(double[] q1, double[] q2, double[] distance, double[] out) {
+        calculateCoulombForce(q1, q2, distance, out, 0, out.length);
+    }
+    
+    public void calculateCoulombForce(double[] q1, double[] q2, double[] distance, double[] out, int offset, int length) {
+        checkRange(offset, length, out, q1, q2, distance);
+        int end = offset + length;
+        for (int k = offset; k < end; k++) {
+            out[k] = PhysicsConstants.k_e * q1[k] * q2[k] / (distance[k] * distance[k]);
+        }
+    }
+    
+    public void calculateGravitationalForce(double[] m1, double[] m2, double[] distance, double[] out) {
+        calculateGravitationalForce(m1, m2, distance, out, 0, out.length);
+    }
+    
+    public void calculateGravitationalForce(double[] m1, double[] m2, double[] distance, double[] out, int offset, int length) {
+        checkRange(offset, length, out, m1, m2, distance);
+        int end = offset + length;
+        for (int k = offset; k < end; k++) {
+            out[k] = PhysicsConstants.G * m1[k] * m2[k] / (distance[k] * distance[k]);
+        }
+    }
+    
+    public void calculateEscapeVelocity(double[] mass, double[] radius, double[] out) {
+        calculateEscapeVelocity(mass, radius, out, 0, out.length);
+    }
+    
+    public void calculateEscapeVelocity(double[] mass, double[] radius, double[] out, int offset, int length) {
+        checkRange(offset, length, out, mass, radius);
+        int end = offset + length;
+        for (int k = offset; k < end; k++) {
+            out[k] = PhysicsConstants.escapeVelocity(mass[k], radius[k]);
+        }
+    }
+    
+    public void calculateOrbitalVelocity(double[] centralMass, double[] radius, double[] out) {
+        calculateOrbitalVelocity(centralMass, radius, out, 0, out.length);
+    }
+    
+    public void calculateOrbitalVelocity(double[] centralMass, double[] radius, double[] out, int offset, int length) {
+        checkRange(offset, length, out, centralMass, radius);
+        int end = offset + length;
+        for (int k = offset; k < end; k++) {
+            out[k] = Math.sqrt(PhysicsConstants.G * centralMass[k] / radius[k]);
+        }
+    }
+    
+    public void calculateBlackbodyPower(double[] temperature, double[] area, double[] out) {
+        calculateBlackbodyPower(temperature, area, out, 0, out.length);
+    }
+    
+    public void calculateBlackbodyPower(double[] temperature, double[] area, double[] out, int offset, int length) {
+        checkRange(offset, length, out, temperature, area);
+        int end = offset + length;
+        for (int k = offset; k < end; k++) {
+            out[k] = PhysicsConstants.sigma * area[k] * Math.pow(temperature[k], 4);
+        }
+    }
+    
+    public void calculateWienDisplacement(double[] temperature, double[] out) {
+        calculateWienDisplacement(temperature, out, 0, out.length);
+    }
+    
+    public void calculateWienDisplacement(double[] temperature, double[] out, int offset, int length) {
+        checkRange(offset, length, out, temperature);
+        int end = offset + length;
+        for (int k = offset; k < end; k++) {
+            out[k] = PhysicsConstants.b / temperature[k];
+        }
+    }
+    
+    public void calculateRelativisticMass(double[] restMass, double[] velocity, double[] out) {
+        calculateRelativisticMass(restMass, velocity, out, 0, out.length);
+    }
+    
+    public void calculateRelativisticMass(double[] restMass, double[] velocity, double[] out, int offset, int length) {
+        checkRange(offset, length, out, restMass, velocity);
+        int end = offset + length;
+        for (int k = offset; k < end; k++) {
+            out[k] = 1.0 / Math.sqrt(1 - (velocity[k] * velocity[k]) / (PhysicsConstants.c * PhysicsConstants.c)) * restMass[k];
+        }
+    }
+    
+    public void calculateRelativisticEnergy(double[] restMass, double[] velocity, double[] out) {
+        calculateRelativisticEnergy(restMass, velocity, out, 0, out.length);
+    }
+    
+    public void calculateRelativisticEnergy(double[] restMass, double[] velocity, double[] out, int offset, int length) {
+        checkRange(offset, length, out, restMass, velocity);
+        int end = offset + length;
+        for (int k = offset; k < end; k++) {
+            out[k] = 1.0 / Math.sqrt(1 - (velocity[k] * velocity[k]) / (PhysicsConstants.c * PhysicsConstants.c)) * restMass[k] * PhysicsConstants.c * PhysicsConstants.c;
+        }
+    }
+    
+    public void calculateTimeDialation(double[] velocity, double[] out) {
+        calculateTimeDialation(velocity, out, 0, out.length);
+    }
+    
+    public void calculateTimeDialation(double[] velocity, double[] out, int offset, int length) {
+        checkRange(offset, length, out, velocity);
+        int end = offset + length;
+        for (int k = offset; k < end; k++) {
+            out[k] = 1.0 / Math.sqrt(1 - (velocity[k] * velocity[k]) / (PhysicsConstants.c * PhysicsConstants.c));
+        }
+    }
+    
+    public void calculateLengthContraction(double[] velocity, double[] out) {
+        calculateLengthContraction(velocity, out, 0, out.length);
+    }
+    
+    public void calculateLengthContraction(double[] velocity, double[] out, int offset, int length) {
+        checkRange(offset, length, out, velocity);
+        int end = offset + length;
+        for (int k = offset; k < end; k++) {
+            out[k] = Math.sqrt(1 - (velocity[k] * velocity[k]) / (PhysicsConstants.c * PhysicsConstants.c));
+        }
+    }
+    
+    private static void checkRange(int offset, int length, double[] out, double[] a) {
+        Objects.checkFromIndexSize(offset, length, out.length);
+        Objects.checkFromIndexSize(offset, length, a.length);
+    }
+    
+    private static void checkRange(int offset, int length, double[] out, double[] a, double[] b) {
+        Objects.checkFromIndexSize(offset, length, out.length);
+        Objects.checkFromIndexSize(offset, length, a.length);
+        Objects.checkFromIndexSize(offset, length, b.length);
+    }
+    
+    private static void checkRange(int offset, int length, double[] out, double[] a, double[] b, double[] c) {
+        Objects.checkFromIndexSize(offset, length, out.length);
+        Objects.checkFromIndexSize(offset, length, a.length);
+        Objects.checkFromIndexSize(offset, length, b.length);
+        Objects.checkFromIndexSize(offset, length, c.length);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,135 @@
+package com.example;
+
+/**
+ * Element-wise loops over column chunks used by ColumnProgram
+ *
+ * This class holds the scalar versions. VectorColumnKernels overrides them with
+ * jdk.incubator.vector code when that module is available (run with
+ * --add-modules jdk.incubator.vector); best() picks the implementation.
+ */
+class ColumnKernels {
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final String VECTOR_KERNELS = "com.example.VectorColumnKernels";
+
+    /**
+     * Vector kernels if the incubator module is in the boot layer, scalar kernels otherwise
+     */
+    static ColumnKernels best() {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+            try {
+                // Loaded reflectively so this class never links against the incubator module
+                return (ColumnKernels) Class.forName(VECTOR_KERNELS).getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // Fall back to scalar loops
+            }
+        }
+        return new ColumnKernels();
+    }
+
+    boolean isVectorized() {
+        return false;
+    }
+
+    String describe() {
+        return "scalar";
+    }
+
+    void add(double[] a, int ao, double[] b, int bo, double[] out, int oo, int n) {
+        for (int i = 0; i < n; i++) {
+            out[oo + i] = a[ao + i] + b[bo + i];
+        }
+    }
+
+    void sub(double[] a, int ao, double[] b, int bo, double[] out, int oo, int n) {
+        for (int i = 0; i < n; i++) {
+            out[oo + i] = a[ao + i] - b[bo + i];
+        }
+    }
+
+    void mul(double[] a, int ao, double[] b, int bo, double[] out, int oo, int n) {
+        for (int i = 0; i < n; i++) {
+            out[oo + i] = a[ao + i] * b[bo + i];
+        }
+    }
+
+    void div(double[] a, int ao, double[] b, int bo, double[] out, int oo, int n) {
+        for (int i = 0; i < n; i++) {
+            out[oo + i] = a[ao + i] / b[bo + i];
+        }
+    }
+
+    /**
+     * out = a * b + c with a single rounding
+     */
+    void fma(double[] a, int ao, double[] b, int bo, double[] c, int co, double[] out, int oo, int n) {
+        for (int i = 0; i < n; i++) {
+            out[oo + i] = Math.fma(a[ao + i], b[bo + i], c[co + i]);
+        }
+    }
+
+    void neg(double[] a, int ao, double[] out, int oo, int n) {
+        for (int i = 0; i < n; i++) {
+            out[oo + i] = -a[ao + i];
+        }
+    }
+
+    void sqrt(double[] a, int ao, double[] out, int oo, int n) {
+        for (int i = 0; i < n; i++) {
+            out[oo + i] = Math.sqrt(a[ao + i]);
+        }
+    }
+
+    void abs(double[] a, int ao, double[] out, int oo, int n) {
+        for (int i = 0; i < n; i++) {
+            out[oo + i] = Math.abs(a[ao + i]);
+        }
+    }
+
+    /**
+     * Scalar fallback for functions without a vector kernel
+     */
+    void unary(ExpressionNode.Op op, double[] a, int ao, double[] out, int oo, int n) {
+        switch (op) {
+            case SIN:
+                for (int i = 0; i < n; i++) out[oo + i] = Math.sin(a[ao + i]);
+                break;
+            case COS:
+                for (int i = 0; i < n; i++) out[oo + i] = Math.cos(a[ao + i]);
+                break;
+            case TAN:
+                for (int i = 0; i < n; i++) out[oo + i] = Math.tan(a[ao + i]);
+                break;
+            case LOG:
+                for (int i = 0; i < n; i++) out[oo + i] = Math.log10(a[ao + i]);
+                break;
+            case LN:
+                for (int i = 0; i < n; i++) out[oo + i] = Math.log(a[ao + i]);
+                break;
+            case EXP:
+                for (int i = 0; i < n; i++) out[oo + i] = Math.exp(a[ao + i]);
+                break;
+            case PHOTON_ENERGY:
+                for (int i = 0; i < n; i++) out[oo + i] = PhysicsConstants.photonEnergy(a[ao + i]);
+                break;
+            default:
+                throw new IllegalStateException("No column kernel for " + op);
+        }
+    }
+
+    /**
+     * Scalar fallback for two-argument functions
+     */
+    void binary(ExpressionNode.Op op, double[] a, int ao, double[] b, int bo, double[] out, int oo, int n) {
+        switch (op) {
+            case POW:
+            case POW_FN:
+                for (int i = 0; i < n; i++) out[oo + i] = Math.pow(a[ao + i], b[bo + i]);
+                break;
+            case DE_BROGLIE:
+                for (int i = 0; i < n; i++) out[oo + i] = PhysicsConstants.deBroglieWavelength(a[ao + i], b[bo + i]);
+                break;
+            default:
+                throw new IllegalStateException("No column kernel for " + op);
+        }
+    }
+}
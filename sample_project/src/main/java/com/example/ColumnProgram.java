@@ -0,0 +1,193 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An expression DAG flattened into column instructions
+ *
+ * Rows are processed CHUNK at a time. Every operation node owns a register holding one
+ * chunk of results, so each node runs a single tight loop per chunk instead of being
+ * visited once per row. Input variables read straight from their column, constants are
+ * broadcast once, and the root writes directly into the output array.
+ *
+ * A multiply whose only use is an addition is fused into one fma instruction, which
+ * rounds once; results can therefore differ from scalar evaluation in the last bit.
+ */
+final class ColumnProgram {
+    static final int CHUNK = 1024;
+
+    // Register kinds
+    private static final int INPUT = 0;
+    private static final int CONSTANT = 1;
+    private static final int TEMP = 2;
+
+    private final int[] registerKind;
+    private final int[] registerInput;
+    private final double[] registerConstant;
+    private final List<int[]> instructions = new ArrayList<>();
+    private final List<ExpressionNode.Op> instructionOps = new ArrayList<>();
+    private final int resultRegister;
+
+    private final List<Integer> kinds = new ArrayList<>();
+    private final List<Integer> inputs = new ArrayList<>();
+    private final List<Double> constants = new ArrayList<>();
+
+    /**
+     * @param root optimized DAG whose only variables are inputs
+     * @param inputSlots symbol table slot of each input column, in column order
+     */
+    ColumnProgram(ExpressionNode root, int[] inputSlots) {
+        Set<ExpressionNode> shared = ExpressionOptimizer.sharedNodes(root);
+        resultRegister = flatten(root, inputSlots, shared, new IdentityHashMap<>());
+
+        int count = kinds.size();
+        registerKind = new int[count];
+        registerInput = new int[count];
+        registerConstant = new double[count];
+        for (int r = 0; r < count; r++) {
+            registerKind[r] = kinds.get(r);
+            registerInput[r] = inputs.get(r);
+            registerConstant[r] = constants.get(r);
+        }
+    }
+
+    /**
+     * Evaluate rows [from, to) into out
+     */
+    void evaluate(double[][] columns, double[] out, int from, int to, ColumnKernels kernels) {
+        int count = registerKind.length;
+        double[][] arrays = new double[count][];
+        int[] offsets = new int[count];
+        for (int r = 0; r < count; r++) {
+            if (registerKind[r] == CONSTANT) {
+                arrays[r] = new double[CHUNK];
+                Arrays.fill(arrays[r], registerConstant[r]);
+            } else if (registerKind[r] == TEMP) {
+                arrays[r] = new double[CHUNK];
+            } else {
+                arrays[r] = columns[registerInput[r]];
+            }
+        }
+
+        for (int start = from; start < to; start += CHUNK) {
+            int n = Math.min(CHUNK, to - start);
+            for (int r = 0; r < count; r++) {
+                if (registerKind[r] == INPUT) {
+                    offsets[r] = start;
+                }
+            }
+
+            // The root's register is redirected to the output for this chunk
+            double[] rootArray = arrays[resultRegister];
+            int rootOffset = offsets[resultRegister];
+            boolean rootIsTemp = registerKind[resultRegister] == TEMP;
+            if (rootIsTemp) {
+                arrays[resultRegister] = out;
+                offsets[resultRegister] = start;
+            }
+
+            for (int i = 0; i < instructions.size(); i++) {
+                execute(instructionOps.get(i), instructions.get(i), arrays, offsets, n, kernels);
+            }
+
+            if (rootIsTemp) {
+                arrays[resultRegister] = rootArray;
+                offsets[resultRegister] = rootOffset;
+            } else {
+                System.arraycopy(arrays[resultRegister], offsets[resultRegister], out, start, n);
+            }
+        }
+    }
+
+    private static void execute(ExpressionNode.Op op, int[] r, double[][] a, int[] o, int n, ColumnKernels k) {
+        int target = r[0];
+        if (op == null) { // fused multiply-add
+            k.fma(a[r[1]], o[r[1]], a[r[2]], o[r[2]], a[r[3]], o[r[3]], a[target], o[target], n);
+            return;
+        }
+        switch (op) {
+            case ADD: k.add(a[r[1]], o[r[1]], a[r[2]], o[r[2]], a[target], o[target], n); break;
+            case SUB: k.sub(a[r[1]], o[r[1]], a[r[2]], o[r[2]], a[target], o[target], n); break;
+            case MUL: k.mul(a[r[1]], o[r[1]], a[r[2]], o[r[2]], a[target], o[target], n); break;
+            case DIV: k.div(a[r[1]], o[r[1]], a[r[2]], o[r[2]], a[target], o[target], n); break;
+            case NEG: k.neg(a[r[1]], o[r[1]], a[target], o[target], n); break;
+            case SQRT: k.sqrt(a[r[1]], o[r[1]], a[target], o[target], n); break;
+            case ABS: k.abs(a[r[1]], o[r[1]], a[target], o[target], n); break;
+            default:
+                if (op.arity == 1) {
+                    k.unary(op, a[r[1]], o[r[1]], a[target], o[target], n);
+                } else {
+                    k.binary(op, a[r[1]], o[r[1]], a[r[2]], o[r[2]], a[target], o[target], n);
+                }
+        }
+    }
+
+    private int flatten(ExpressionNode node, int[] inputSlots, Set<ExpressionNode> shared,
+                        Map<ExpressionNode, Integer> registers) {
+        Integer existing = registers.get(node);
+        if (existing != null) {
+            return existing;
+        }
+
+        int register;
+        if (node.op == ExpressionNode.Op.NUMBER) {
+            register = newRegister(CONSTANT, -1, node.value);
+        } else if (node.op == ExpressionNode.Op.VARIABLE) {
+            register = newRegister(INPUT, columnOf(node.slot, inputSlots), 0);
+        } else if (node.op == ExpressionNode.Op.ADD && fusable(node.args[0], shared)) {
+            register = emitFma(node.args[0], node.args[1], inputSlots, shared, registers);
+        } else if (node.op == ExpressionNode.Op.ADD && fusable(node.args[1], shared)) {
+            register = emitFma(node.args[1], node.args[0], inputSlots, shared, registers);
+        } else {
+            int[] operands = new int[node.args.length + 1];
+            for (int i = 0; i < node.args.length; i++) {
+                operands[i + 1] = flatten(node.args[i], inputSlots, shared, registers);
+            }
+            register = newRegister(TEMP, -1, 0);
+            operands[0] = register;
+            instructions.add(operands);
+            instructionOps.add(node.op);
+        }
+        registers.put(node, register);
+        return register;
+    }
+
+    private int emitFma(ExpressionNode product, ExpressionNode addend, int[] inputSlots,
+                        Set<ExpressionNode> shared, Map<ExpressionNode, Integer> registers) {
+        int a = flatten(product.args[0], inputSlots, shared, registers);
+        int b = flatten(product.args[1], inputSlots, shared, registers);
+        int c = flatten(addend, inputSlots, shared, registers);
+        int register = newRegister(TEMP, -1, 0);
+        instructions.add(new int[] {register, a, b, c});
+        instructionOps.add(null); // FMA has no ExpressionNode.Op
+        return register;
+    }
+
+    /**
+     * A product can be fused only if nothing else needs its separately rounded value
+     */
+    private static boolean fusable(ExpressionNode node, Set<ExpressionNode> shared) {
+        return node.op == ExpressionNode.Op.MUL && !shared.contains(node);
+    }
+
+    private int newRegister(int kind, int input, double constant) {
+        kinds.add(kind);
+        inputs.add(input);
+        constants.add(constant);
+        return kinds.size() - 1;
+    }
+
+    private static int columnOf(int slot, int[] inputSlots) {
+        for (int i = 0; i < inputSlots.length; i++) {
+            if (inputSlots[i] == slot) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("Variable in slot " + slot + " is not an input column");
+    }
+}
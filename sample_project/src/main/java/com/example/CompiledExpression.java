@@ -0,0 +1,14 @@
+package com.example;
+
+/**
+ * Primitive evaluation entry point shared by the tree-walking and bytecode evaluators
+ */
+@FunctionalInterface
+public interface CompiledExpression {
+
+    /**
+     * Evaluate the expression
+     * @param slots variable values indexed by slot
+     */
+    double eval(double[] slots);
+}
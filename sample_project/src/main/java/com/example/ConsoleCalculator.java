@@ -1,70 +1,111 @@
 package com.example;
 
+import com.example.engine.Engine;
+import com.example.engine.EvaluationContext;
+import com.example.engine.Formula;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Command-line Scientific Calculator
- * Works in terminal without GUI
+ * A terminal front end for the expression Engine; each console is one EvaluationContext.
+ * Works in terminal without GUI and never loads AWT or Swing. The history log and name
+ * completion are opened on first use, after the first result is printed, so a cold
+ * start only pays for the symbol table and the expression engine.
  */
 public class ConsoleCalculator {
-    private Scanner scanner;
+    private BufferedReader input;
     private Calculator calculator;
-    private Map<String, Double> variables;
+    private Engine engine;
+    private EvaluationContext session;
     private List<String> commandHistory;
+    private HistoryLog historyLog;
+    private boolean historyOpened;
+    private NameCompleter completer;
 
     public ConsoleCalculator() {
-        scanner = new Scanner(System.in);
+        // Not a Scanner, which loads the regex engine just to read lines
+        input = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
         calculator = new Calculator();
-        variables = new HashMap<>();
+        engine = new Engine();
+        session = engine.newContext();
         commandHistory = new ArrayList<>();
-        setupPhysicsConstants();
     }
 
-    private void setupPhysicsConstants() {
-        variables.put("c", PhysicsConstants.c);
-        variables.put("h", PhysicsConstants.h);
-        variables.put("e", PhysicsConstants.e);
-        variables.put("m_e", PhysicsConstants.m_e);
-        variables.put("m_p", PhysicsConstants.m_p);
-        variables.put("k_B", PhysicsConstants.k_B);
-        variables.put("G", PhysicsConstants.G);
-        variables.put("g", PhysicsConstants.g);
-        variables.put("alpha", PhysicsConstants.alpha);
-        variables.put("epsilon_0", PhysicsConstants.epsilon_0);
-        variables.put("mu_0", PhysicsConstants.mu_0);
-        variables.put("eV", PhysicsConstants.eV);
-        variables.put("AU", PhysicsConstants.AU);
-        variables.put("ly", PhysicsConstants.ly);
-        variables.put("pi", Math.PI);
-        variables.put("E", Math.E);
+    /**
+     * The shared history log, opened on first use; null if it can't be opened
+     */
+    private HistoryLog historyLog() {
+        if (!historyOpened) {
+            historyOpened = true;
+            try {
+                historyLog = HistoryLog.openDefault();
+            } catch (IOException e) {
+                System.out.println("History is not saved: " + e.getMessage());
+            }
+        }
+        return historyLog;
+    }
+
+    private NameCompleter completer() {
+        if (completer == null) {
+            completer = new NameCompleter(session.getSymbols());
+        }
+        return completer;
     }
 
-    public void run() {
+    public void run() throws IOException {
         printWelcome();
+        StartupProfile.mark("welcome banner");
         
         while (true) {
             System.out.print(">>> ");
-            String input = scanner.nextLine().trim();
+            String line = input.readLine();
+            if (line == null) {
+                line = "exit"; // End of input
+            }
+            line = line.trim();
+            StartupProfile.mark("read command");
             
-            if (input.isEmpty()) continue;
+            if (line.isEmpty()) continue;
             
-            commandHistory.add(input);
+            commandHistory.add(line);
             
-            if (input.equals("exit") || input.equals("quit")) {
+            if (line.equals("exit") || line.equals("quit")) {
                 System.out.println("Goodbye!");
+                StartupProfile.report(System.err);
+                if (historyLog() != null) {
+                    historyLog.append(HistoryLog.CONSOLE, line);
+                    historyLog.close();
+                }
                 break;
             }
             
             try {
-                String result = processCommand(input);
+                String result = processCommand(line);
                 if (!result.isEmpty()) {
                     System.out.println(result);
                 }
             } catch (Exception e) {
                 System.out.println("ERROR: " + e.getMessage());
             }
+            StartupProfile.mark("print result");
+            StartupProfile.report(System.err);
+            
+            // Recorded after the result so the first command doesn't wait for the log to open
+            if (historyLog() != null) {
+                historyLog.append(HistoryLog.CONSOLE, line);
+            }
+            completer().recordUses(line);
             
             System.out.println();
         }
@@ -81,7 +122,7 @@ public class ConsoleCalculator {
         System.out.println(">>> m_e * c^2 / eV        (electron rest energy in eV)");
         System.out.println(">>> photon_energy(500e-9) (green photon energy)");
         System.out.println();
-        System.out.println("Commands: help, constants, variables, examples, exit");
+        System.out.println("Commands: help, constants, variables, examples, cache, exit");
         System.out.println();
     }
 
@@ -97,143 +138,91 @@ public class ConsoleCalculator {
                 return getVariables();
             case "examples":
                 return getExamples();
+            case "cache":
+                return engine.getStatistics();
             case "demo":
                 runDemo();
                 return "";
         }
 
-        // Handle variable assignments
-        if (command.contains("=") && !command.contains("==")) {
-            return handleAssignment(command);
+        if (command.equals("history") || command.startsWith("history ")) {
+            return showHistory(command.substring(7).trim());
         }
 
-        // Evaluate expression
-        double result = evaluateExpression(command);
-        return formatResult(result);
-    }
+        if (command.equals("complete") || command.startsWith("complete ")) {
+            return complete(command.substring(8).trim());
+        }
 
-    private String handleAssignment(String expression) {
-        String[] parts = expression.split("=", 2);
-        if (parts.length != 2) {
-            throw new RuntimeException("Invalid assignment syntax");
+        if (command.startsWith("csv ")) {
+            return runCsv(command.substring(4).trim());
         }
 
-        String varName = parts[0].trim();
-        String valueExpr = parts[1].trim();
+        if (command.startsWith("explain ")) {
+            return session.explain(session.compile(command.substring(8)));
+        }
 
-        double value = evaluateExpression(valueExpr);
-        variables.put(varName, value);
+        // Handle variable assignments
+        String target = EvaluationContext.targetOf(command);
+        if (target != null) {
+            return target + " = " + DoubleFormatter.formatResult(session.execute(command));
+        }
 
-        return varName + " = " + formatResult(value);
+        // Evaluate expression
+        double result = evaluateExpression(command);
+        return DoubleFormatter.formatResult(result);
     }
 
-    private double evaluateExpression(String expression) {
-        // Replace variables
-        String processedExpression = replaceVariables(expression);
-        
-        // Replace mathematical functions
-        processedExpression = replaceMathFunctions(processedExpression);
-        
-        // Replace physics functions
-        processedExpression = replacePhysicsFunctions(processedExpression);
-
-        // Handle power operator
-        processedExpression = processedExpression.replaceAll("\\^", "**");
-        
-        // Evaluate using JavaScript engine
-        try {
-            javax.script.ScriptEngineManager manager = new javax.script.ScriptEngineManager();
-            javax.script.ScriptEngine engine = manager.getEngineByName("JavaScript");
-            
-            // Convert ** back to Math.pow for JavaScript
-            processedExpression = convertPowerOperator(processedExpression);
-            
-            Object result = engine.eval(processedExpression);
-            double value = ((Number) result).doubleValue();
-            
-            variables.put("ans", value);
-            return value;
-            
-        } catch (Exception e) {
-            throw new RuntimeException("Cannot evaluate expression: " + expression);
+    /**
+     * A terminal line reader has no Tab key, so completions are listed on request
+     */
+    private String complete(String prefix) {
+        NameCompleter completer = completer();
+        completer.sync();
+        List<String> names = completer.complete(prefix, NameCompleter.MAX_COMPLETIONS);
+        if (names.isEmpty()) {
+            return "No names start with '" + prefix + "'";
         }
+        int count = completer.count(prefix);
+        return String.join("  ", names) + (count > names.size() ? "  ... (" + count + " names)" : "");
     }
 
-    private String convertPowerOperator(String expression) {
-        // Convert a**b to Math.pow(a,b)
-        Pattern pattern = Pattern.compile("([\\d\\.\\w\\(\\)]+)\\*\\*([\\d\\.\\w\\(\\)]+)");
-        Matcher matcher = pattern.matcher(expression);
-        
-        StringBuffer sb = new StringBuffer();
-        while (matcher.find()) {
-            String base = matcher.group(1);
-            String exponent = matcher.group(2);
-            matcher.appendReplacement(sb, "Math.pow(" + base + "," + exponent + ")");
+    private String showHistory(String count) throws IOException {
+        if (!count.matches("\\d{0,9}")) {
+            throw new RuntimeException("Usage: history [n], where n is a count of commands");
         }
-        matcher.appendTail(sb);
-        return sb.toString();
-    }
-
-    private String replaceVariables(String expression) {
-        for (Map.Entry<String, Double> entry : variables.entrySet()) {
-            String varName = entry.getKey();
-            String value = entry.getValue().toString();
-            expression = expression.replaceAll("\\b" + Pattern.quote(varName) + "\\b", value);
+        int limit = count.isEmpty() ? 20 : Integer.parseInt(count);
+        List<String> recent;
+        if (historyLog() != null) {
+            historyLog.flush(); // This command is recorded once it has run
+            recent = historyLog.recent(HistoryLog.CONSOLE, limit);
+        } else {
+            recent = commandHistory.subList(Math.max(0, commandHistory.size() - 1 - limit), commandHistory.size() - 1);
         }
-        return expression;
-    }
-
-    private String replaceMathFunctions(String expression) {
-        expression = expression.replaceAll("\\bsin\\(", "Math.sin(");
-        expression = expression.replaceAll("\\bcos\\(", "Math.cos(");
-        expression = expression.replaceAll("\\btan\\(", "Math.tan(");
-        expression = expression.replaceAll("\\bsqrt\\(", "Math.sqrt(");
-        expression = expression.replaceAll("\\blog\\(", "Math.log10(");
-        expression = expression.replaceAll("\\bln\\(", "Math.log(");
-        expression = expression.replaceAll("\\bexp\\(", "Math.exp(");
-        expression = expression.replaceAll("\\babs\\(", "Math.abs(");
-        return expression;
-    }
-
-    private String replacePhysicsFunctions(String expression) {
-        // Handle photon_energy function
-        if (expression.contains("photon_energy(")) {
-            Pattern pattern = Pattern.compile("photon_energy\\(([^)]+)\\)");
-            Matcher matcher = pattern.matcher(expression);
-            StringBuffer sb = new StringBuffer();
-            while (matcher.find()) {
-                double wavelength = Double.parseDouble(matcher.group(1));
-                double energy = PhysicsConstants.photonEnergy(wavelength);
-                matcher.appendReplacement(sb, String.valueOf(energy));
-            }
-            matcher.appendTail(sb);
-            expression = sb.toString();
+        StringBuilder sb = new StringBuilder();
+        for (String entry : recent) {
+            sb.append("  ").append(entry).append('\n');
         }
+        return sb.length() == 0 ? "No history yet" : sb.substring(0, sb.length() - 1);
+    }
 
-        // Handle de_broglie function
-        if (expression.contains("de_broglie(")) {
-            Pattern pattern = Pattern.compile("de_broglie\\(([^,]+),([^)]+)\\)");
-            Matcher matcher = pattern.matcher(expression);
-            StringBuffer sb = new StringBuffer();
-            while (matcher.find()) {
-                double mass = Double.parseDouble(matcher.group(1));
-                double velocity = Double.parseDouble(matcher.group(2));
-                double wavelength = PhysicsConstants.deBroglieWavelength(mass, velocity);
-                matcher.appendReplacement(sb, String.valueOf(wavelength));
-            }
-            matcher.appendTail(sb);
-            expression = sb.toString();
+    private String runCsv(String arguments) throws Exception {
+        String[] parts = arguments.split("\\s+", 3);
+        if (parts.length != 3) {
+            throw new RuntimeException("Usage: csv <input> <output> <expression>");
         }
-
-        return expression;
+        long start = System.nanoTime();
+        long rows = new CsvPipeline(session.getSymbols(), parts[2]).run(Paths.get(parts[0]), Paths.get(parts[1]));
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        return "Evaluated " + rows + " rows into " + parts[1] + " in " + millis + " ms";
     }
 
-    private String formatResult(double result) {
-        if (Math.abs(result) > 1e6 || (Math.abs(result) < 1e-3 && result != 0)) {
-            return String.format("%.6e", result);
-        } else {
-            return String.format("%.6f", result);
-        }
+    double evaluateExpression(String expression) {
+        Formula formula = session.compile(expression);
+        StartupProfile.mark("parse");
+        double value = session.evaluate(formula);
+        StartupProfile.mark("evaluate");
+        session.set("ans", value);
+        return value;
     }
 
     private String getVariables() {
@@ -243,12 +232,12 @@ public class ConsoleCalculator {
         // Show important physics constants first
         String[] important = {"c", "h", "e", "m_e", "k_B", "G", "eV", "pi", "ans"};
         for (String var : important) {
-            if (variables.containsKey(var)) {
-                sb.append(String.format("  %-8s = %s\n", var, formatResult(variables.get(var))));
+            if (session.contains(var)) {
+                sb.append(String.format("  %-8s = %s\n", var, DoubleFormatter.formatResult(session.get(var))));
             }
         }
         
-        sb.append("\nAll variables: " + variables.keySet().size() + " total");
+        sb.append("\nAll variables: " + session.getSymbols().size() + " total");
         return sb.toString();
     }
 
@@ -258,6 +247,11 @@ public class ConsoleCalculator {
                "  constants     - Show physics constants\n" +
                "  variables     - Show current variables\n" +
                "  examples      - Show example calculations\n" +
+               "  cache         - Show expression cache statistics\n" +
+               "  history [n]   - Show the last n commands (default 20), kept across sessions\n" +
+               "  complete <prefix> - List variable, constant and function names starting with prefix\n" +
+               "  explain <expr> - Show the optimized expression tree\n" +
+               "  csv <in> <out> <expr> - Evaluate expr for every row of a CSV file\n" +
                "  demo          - Run demonstration\n" +
                "  exit/quit     - Exit calculator\n\n" +
                "EXPRESSIONS:\n" +
@@ -320,7 +314,7 @@ public class ConsoleCalculator {
             System.out.println(">>> " + calculations[i] + "    // " + descriptions[i]);
             try {
                 double result = evaluateExpression(calculations[i]);
-                System.out.println(formatResult(result));
+                System.out.println(DoubleFormatter.formatResult(result));
             } catch (Exception e) {
                 System.out.println("ERROR: " + e.getMessage());
             }
@@ -333,10 +327,35 @@ public class ConsoleCalculator {
         System.out.println("=== DEMONSTRATION COMPLETE ===");
     }
 
-    public static void main(String[] args) {
+    /**
+     * Run statements from a file, or from stdin if the path is "-"
+     * @return the number of statements that failed
+     */
+    static int runScript(String path) throws IOException, InterruptedException {
+        SymbolTable symbols = new SymbolTable();
+        PhysicsConstants.defineAll(symbols);
+        BufferedReader script = path.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8), 1 << 16)
+                : Files.newBufferedReader(Paths.get(path));
+        Writer output = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+        try (BufferedReader in = script) {
+            return new ScriptRunner(symbols).run(in, output);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        args = StartupProfile.start(args);
+        if (args.length > 0 && args[0].equals("--script")) {
+            int errors = runScript(args.length > 1 ? args[1] : "-");
+            StartupProfile.mark("run script");
+            StartupProfile.report(System.err);
+            System.exit(errors == 0 ? 0 : 1);
+        }
+
         System.out.println("Starting console calculator...\n");
         
         ConsoleCalculator calc = new ConsoleCalculator();
+        StartupProfile.mark("console setup");
         calc.run();
     }
 }
\ No newline at end of file
@@ -0,0 +1,146 @@
+package com.example;
+
+import javax.swing.JTextArea;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+
+/**
+ * Batches console output into at most one text area update per frame
+ *
+ * Any thread may append. Text collects in a fixed-size ring buffer; the first append
+ * after a flush starts a one-shot Swing timer, and when it fires everything pending is
+ * appended in one call. If producers outrun the screen, the oldest pending text is
+ * dropped and a marker says how much was lost. After each flush the area is trimmed to
+ * the scrollback limit, so its document never grows without bound.
+ */
+public class ConsoleOutput {
+    public static final int FRAME_MILLIS = 16;
+    public static final int DEFAULT_SCROLLBACK_LINES = Integer.getInteger("calculator.scrollback", 10_000);
+    public static final int DEFAULT_PENDING_CHARS = 1 << 20;
+
+    private final JTextArea area;
+    private final int scrollbackLines;
+    private final char[] ring;
+    private final Timer timer;
+
+    // Guarded by this
+    private int head;
+    private int size;
+    private long dropped;
+    private boolean clearRequested;
+    private boolean scheduled;
+
+    public ConsoleOutput(JTextArea area) {
+        this(area, DEFAULT_SCROLLBACK_LINES, DEFAULT_PENDING_CHARS);
+    }
+
+    public ConsoleOutput(JTextArea area, int scrollbackLines, int pendingChars) {
+        if (scrollbackLines <= 0 || pendingChars <= 0) {
+            throw new IllegalArgumentException("Limits must be positive");
+        }
+        this.area = area;
+        this.scrollbackLines = scrollbackLines;
+        this.ring = new char[pendingChars];
+        this.timer = new Timer(FRAME_MILLIS, e -> flush());
+        this.timer.setRepeats(false);
+    }
+
+    /**
+     * Queue text for the next frame; safe to call from any thread
+     */
+    public void append(String text) {
+        synchronized (this) {
+            int length = text.length();
+            int skip = Math.max(0, length - ring.length);
+            if (skip > 0) {
+                dropped += skip + size; // Only the tail of a huge append fits
+                head = 0;
+                size = 0;
+            } else if (size + length > ring.length) {
+                int overflow = size + length - ring.length;
+                dropped += overflow;
+                head = (head + overflow) % ring.length;
+                size -= overflow;
+            }
+            for (int i = skip; i < length; i++) {
+                ring[(head + size) % ring.length] = text.charAt(i);
+                size++;
+            }
+            scheduleFlush();
+        }
+    }
+
+    /**
+     * Empty the text area, discarding output that has not been shown yet
+     */
+    public void clear() {
+        synchronized (this) {
+            head = 0;
+            size = 0;
+            dropped = 0;
+            clearRequested = true;
+            scheduleFlush();
+        }
+    }
+
+    public int getScrollbackLines() {
+        return scrollbackLines;
+    }
+
+    /**
+     * Move pending text into the area; runs on the EDT when the frame timer fires
+     */
+    void flush() {
+        String text;
+        long lost;
+        boolean clear;
+        synchronized (this) {
+            int firstPart = Math.min(size, ring.length - head);
+            StringBuilder pending = new StringBuilder(size);
+            pending.append(ring, head, firstPart).append(ring, 0, size - firstPart);
+            text = pending.toString();
+            lost = dropped;
+            clear = clearRequested;
+            head = 0;
+            size = 0;
+            dropped = 0;
+            clearRequested = false;
+            scheduled = false;
+        }
+
+        if (clear) {
+            area.setText("");
+        }
+        if (lost > 0) {
+            area.append("[... " + lost + " characters of output dropped ...]\n");
+        }
+        if (!text.isEmpty()) {
+            area.append(text);
+        }
+        trimScrollback();
+        area.setCaretPosition(area.getDocument().getLength());
+    }
+
+    private void trimScrollback() {
+        Document document = area.getDocument();
+        Element root = document.getDefaultRootElement();
+        int excess = root.getElementCount() - scrollbackLines;
+        if (excess > 0) {
+            try {
+                document.remove(0, root.getElement(excess - 1).getEndOffset());
+            } catch (BadLocationException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private void scheduleFlush() {
+        if (!scheduled) {
+            scheduled = true;
+            SwingUtilities.invokeLater(timer::restart);
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.example;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Evaluates an expression for every row of a numeric CSV file
+ *
+ * The first non-blank line is a header; each column becomes a variable named after it.
+ * The output repeats every input line with one extra column holding the result.
+ *
+ * The input is memory-mapped window by window and fields are parsed straight from the
+ * mapped bytes, so no String is created per field. Results go through one reusable direct
+ * buffer. Memory use therefore does not grow with the file size. Quoted fields are not
+ * supported, and empty fields evaluate as NaN.
+ */
+public class CsvPipeline {
+    public static final String RESULT_COLUMN = "result";
+
+    static final long MAP_WINDOW = 64L << 20;
+    private static final int OUTPUT_BUFFER = 1 << 20;
+    private static final int MAX_RESULT_LENGTH = 32;
+    private static final int INTERRUPT_CHECK_MASK = 1023; // Lines between interrupt checks, minus one
+
+    private final SymbolTable symbols;
+    private final String source;
+    private final long window;
+    private final ByteBuffer output = ByteBuffer.allocateDirect(OUTPUT_BUFFER);
+    private final DoubleFormatter formatter = new DoubleFormatter();
+
+    // Per-run state, set up from the header
+    private int[] columnSlots;
+    private int lastNeededColumn;
+    private double[] slots;
+    private CompiledExpression evaluator;
+    private long line;
+
+    /**
+     * @param symbols variables and constants available to the expression. Header columns
+     *                are bound in a private copy, so the table itself is never written.
+     */
+    public CsvPipeline(SymbolTable symbols, String expression) {
+        this(symbols, expression, MAP_WINDOW);
+    }
+
+    CsvPipeline(SymbolTable symbols, String expression, long window) {
+        this.symbols = symbols;
+        this.source = expression;
+        this.window = window;
+    }
+
+    /**
+     * @return the number of data rows evaluated
+     * @throws IllegalArgumentException if the header is missing or names a column that is not a
+     *         valid variable name, the expression does not parse against it, or a row has a
+     *         malformed or missing field
+     * @throws InterruptedIOException if the thread is interrupted; the result file is left incomplete
+     */
+    public long run(Path input, Path result) throws IOException {
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(result, StandardOpenOption.WRITE,
+                     StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            output.clear();
+            line = 0;
+            evaluator = null;
+
+            long size = in.size();
+            long position = 0;
+            long rows = 0;
+            while (position < size) {
+                int length = (int) Math.min(window, size - position);
+                MappedByteBuffer buffer = in.map(FileChannel.MapMode.READ_ONLY, position, length);
+                boolean lastWindow = position + length == size;
+
+                int consumed = 0;
+                while (consumed < length) {
+                    int end = indexOfNewline(buffer, consumed, length);
+                    if (end < 0) {
+                        if (!lastWindow) {
+                            break; // The line continues in the next window
+                        }
+                        end = length;
+                    }
+                    if ((++line & INTERRUPT_CHECK_MASK) == 0 && Thread.interrupted()) {
+                        throw new InterruptedIOException("CSV run interrupted on line " + line);
+                    }
+                    int contentEnd = end;
+                    if (contentEnd > consumed && buffer.get(contentEnd - 1) == '\r') {
+                        contentEnd--;
+                    }
+                    if (contentEnd > consumed) {
+                        if (evaluator == null) {
+                            readHeader(buffer, consumed, contentEnd);
+                            copy(out, buffer, consumed, contentEnd);
+                            putAscii(out, "," + RESULT_COLUMN + "\n");
+                        } else {
+                            double value = evaluateRow(buffer, consumed, contentEnd);
+                            copy(out, buffer, consumed, contentEnd);
+                            putResult(out, value);
+                            rows++;
+                        }
+                    }
+                    consumed = Math.min(end + 1, length);
+                }
+                if (consumed == 0) {
+                    throw new IllegalArgumentException("Line " + (line + 1) + " is longer than the mapping window");
+                }
+                position += consumed;
+            }
+
+            if (evaluator == null) {
+                throw new IllegalArgumentException("Input has no header row");
+            }
+            flush(out);
+            return rows;
+        }
+    }
+
+    private void readHeader(ByteBuffer buffer, int from, int to) {
+        byte[] bytes = new byte[to - from];
+        buffer.get(from, bytes);
+        String[] names = new String(bytes, StandardCharsets.UTF_8).split(",", -1);
+
+        // Columns may shadow constants such as c; that must not outlive the run
+        SymbolTable columns = new SymbolTable(symbols);
+        columnSlots = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            String name = names[i].trim();
+            if (!SymbolTable.isValidName(name)) {
+                throw new IllegalArgumentException("Column " + (i + 1) + " has an invalid name: '" + name + "'");
+            }
+            columnSlots[i] = columns.define(name, Double.NaN);
+        }
+
+        Expression expression = ExpressionParser.parse(source, columns);
+        evaluator = expression.compile();
+        slots = Arrays.copyOf(columns.values(), columns.size());
+
+        // Only columns the expression reads are parsed
+        lastNeededColumn = -1;
+        for (int i = 0; i < columnSlots.length; i++) {
+            boolean needed = false;
+            for (int slot : expression.getVariableSlots()) {
+                needed |= slot == columnSlots[i];
+            }
+            if (needed) {
+                lastNeededColumn = i;
+            } else {
+                columnSlots[i] = -1;
+            }
+        }
+    }
+
+    private double evaluateRow(ByteBuffer buffer, int from, int to) {
+        int column = 0;
+        int start = from;
+        for (int i = from; i <= to && column <= lastNeededColumn; i++) {
+            if (i == to || buffer.get(i) == ',') {
+                if (column < columnSlots.length && columnSlots[column] >= 0) {
+                    try {
+                        slots[columnSlots[column]] = parseNumber(buffer, start, i);
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Invalid number in column " + (column + 1) + " on line " + line);
+                    }
+                }
+                column++;
+                start = i + 1;
+            }
+        }
+        if (column <= lastNeededColumn) {
+            throw new IllegalArgumentException("Missing column " + (column + 1) + " on line " + line);
+        }
+        return evaluator.eval(slots);
+    }
+
+    /**
+     * Parse a decimal number from bytes [from, to), ignoring surrounding spaces, without allocating
+     * @return the value, or NaN if the range is blank
+     * @throws NumberFormatException if the range is not a number
+     */
+    static double parseNumber(ByteBuffer buffer, int from, int to) {
+        while (from < to && buffer.get(from) == ' ') {
+            from++;
+        }
+        while (to > from && buffer.get(to - 1) == ' ') {
+            to--;
+        }
+        return from == to ? Double.NaN : NumberParser.parse(buffer, from, to);
+    }
+
+    private static int indexOfNewline(ByteBuffer buffer, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buffer.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void copy(FileChannel out, ByteBuffer buffer, int from, int to) throws IOException {
+        if (output.remaining() < to - from + MAX_RESULT_LENGTH) {
+            flush(out);
+        }
+        if (to - from > output.remaining()) {
+            ByteBuffer range = buffer.duplicate();
+            range.limit(to).position(from);
+            while (range.hasRemaining()) {
+                out.write(range);
+            }
+            return;
+        }
+        int limit = buffer.limit();
+        buffer.limit(to).position(from);
+        output.put(buffer);
+        buffer.limit(limit);
+    }
+
+    private void putAscii(FileChannel out, String text) throws IOException {
+        if (output.remaining() < text.length()) {
+            flush(out);
+        }
+        for (int i = 0; i < text.length(); i++) {
+            output.put((byte) text.charAt(i));
+        }
+    }
+
+    /**
+     * Append ",value\n" with the shortest digits that read back as the same double
+     */
+    private void putResult(FileChannel out, double value) throws IOException {
+        if (output.remaining() < DoubleFormatter.MAX_LENGTH + 2) {
+            flush(out);
+        }
+        output.put((byte) ',');
+        formatter.format(value, DoubleFormatter.Mode.SHORTEST, output);
+        output.put((byte) '\n');
+    }
+
+    private void flush(FileChannel out) throws IOException {
+        output.flip();
+        while (output.hasRemaining()) {
+            out.write(output);
+        }
+        output.clear();
+    }
+
+    /**
+     * Usage: CsvPipeline input.csv output.csv "expression"
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            System.err.println("Usage: java com.example.CsvPipeline <input.csv> <output.csv> <expression>");
+            System.exit(2);
+        }
+        SymbolTable symbols = new SymbolTable();
+        PhysicsConstants.defineAll(symbols);
+
+        long start = System.nanoTime();
+        long rows = new CsvPipeline(symbols, args[2]).run(Paths.get(args[0]), Paths.get(args[1]));
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("Evaluated " + rows + " rows in " + millis + " ms");
+    }
+}
@@ -0,0 +1,146 @@
+package com.example;
+
+import java.util.Map;
+
+/**
+ * A parsed expression ready for repeated evaluation.
+ * Variables are bound to slots of a SymbolTable when the expression is parsed;
+ * their values are read from the table on each call. Evaluation uses the tree
+ * produced by ExpressionOptimizer; the tree as parsed is kept for explain().
+ *
+ * Evaluation starts on the tree walker and switches to a compiled hidden class
+ * once the expression has been evaluated COMPILE_THRESHOLD times. Either way, a
+ * subexpression shared by the optimizer is evaluated once per call.
+ */
+public final class Expression {
+    public static final int COMPILE_THRESHOLD = 64;
+
+    private final String source;
+    private final ExpressionNode parsedRoot;
+    private final ExpressionNode root;
+    private final SymbolTable symbols;
+    private final int[] variableSlots;
+    private volatile CompiledExpression evaluator;
+    private volatile boolean compiled;
+    private int evaluations;
+
+    Expression(String source, ExpressionNode parsedRoot, ExpressionNode root, SymbolTable symbols, int[] variableSlots) {
+        this.source = source;
+        this.parsedRoot = parsedRoot;
+        this.root = root;
+        this.symbols = symbols;
+        this.variableSlots = variableSlots;
+        // Not root::eval, so the first evaluation doesn't bootstrap a lambda
+        this.evaluator = SharedNodeWalker.of(root);
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * The optimized tree used for evaluation
+     */
+    public ExpressionNode getRoot() {
+        return root;
+    }
+
+    /**
+     * The tree exactly as parsed, before optimization
+     */
+    public ExpressionNode getParsedRoot() {
+        return parsedRoot;
+    }
+
+    public SymbolTable getSymbols() {
+        return symbols;
+    }
+
+    /**
+     * Names of the variables referenced by this expression
+     */
+    public String[] getVariableNames() {
+        String[] names = new String[variableSlots.length];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = symbols.nameOf(variableSlots[i]);
+        }
+        return names;
+    }
+
+    /**
+     * Slots of the variables referenced by this expression, parallel to getVariableNames()
+     */
+    public int[] getVariableSlots() {
+        return variableSlots.clone();
+    }
+
+    public boolean isCompiled() {
+        return compiled;
+    }
+
+    /**
+     * Compile to bytecode now instead of waiting for the expression to become hot
+     * @return the evaluator in use afterwards; the tree walker if compilation failed
+     */
+    public CompiledExpression compile() {
+        if (!compiled) {
+            compiled = true;
+            try {
+                evaluator = ExpressionCompiler.compile(root);
+            } catch (IllegalStateException e) {
+                // Keep tree-walking; compiled stays set so we don't retry on every call
+            }
+        }
+        return evaluator;
+    }
+
+    /**
+     * Evaluate with the current values of the symbol table the expression was parsed against
+     */
+    public double evaluate() {
+        return evaluate(symbols.values());
+    }
+
+    /**
+     * Evaluate with variable values looked up by name
+     */
+    public double evaluate(Map<String, Double> variables) {
+        double[] slots = new double[symbols.size()];
+        for (int slot : variableSlots) {
+            String name = symbols.nameOf(slot);
+            Double value = variables.get(name);
+            if (value == null) {
+                throw new IllegalArgumentException("Unknown variable: " + name);
+            }
+            slots[slot] = value;
+        }
+        return evaluate(slots);
+    }
+
+    /**
+     * Evaluate with variable values laid out by symbol table slot
+     */
+    public double evaluate(double[] slots) {
+        // The counter is racy by design: a lost update only delays compilation
+        if (!compiled && ++evaluations >= COMPILE_THRESHOLD) {
+            compile();
+        }
+        return evaluator.eval(slots);
+    }
+
+    /**
+     * Describe the parsed and optimized trees, for checking what the optimizer folded
+     */
+    public String explain() {
+        return "Parsed:    " + parsedRoot + "\n" +
+               "Optimized: " + root + "\n" +
+               "Nodes:     " + ExpressionOptimizer.size(parsedRoot) + " -> " + ExpressionOptimizer.size(root) +
+               (compiled ? " (compiled)" : "") + "\n" +
+               "Shared:    " + ExpressionOptimizer.sharedNodes(root).size() + " subexpression(s) evaluated once";
+    }
+
+    @Override
+    public String toString() {
+        return root.toString();
+    }
+}
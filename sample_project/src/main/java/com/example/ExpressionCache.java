@@ -0,0 +1,178 @@
+package com.example;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded, thread-safe LRU cache of parsed expressions
+ * Keyed on the normalized source text so repeated formulas skip lexing and parsing
+ */
+public class ExpressionCache {
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final int capacity;
+    private final SymbolTable symbols;
+    private final boolean privateTables;
+    private final LinkedHashMap<String, Expression> entries;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private int constantVersion;
+
+    public ExpressionCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ExpressionCache(int capacity) {
+        this(null, capacity);
+    }
+
+    /**
+     * Cache expressions bound to the given symbol table
+     */
+    public ExpressionCache(SymbolTable symbols) {
+        this(symbols, DEFAULT_CAPACITY);
+    }
+
+    public ExpressionCache(SymbolTable symbols, int capacity) {
+        this(symbols, capacity, false);
+    }
+
+    /**
+     * @param privateTables parse each expression against its own copy of symbols, binding names
+     *                      the table lacks to new slots of the copy. Entries then share no mutable
+     *                      state and can be evaluated from any thread, as long as symbols itself
+     *                      is no longer written.
+     */
+    public ExpressionCache(SymbolTable symbols, int capacity, boolean privateTables) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Cache capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.symbols = symbols;
+        this.privateTables = privateTables && symbols != null;
+        this.constantVersion = symbols == null ? 0 : symbols.getConstantVersion();
+        this.entries = new LinkedHashMap<String, Expression>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Expression> eldest) {
+                if (size() > ExpressionCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Return the parsed form of an expression, parsing it on a miss
+     * @throws IllegalArgumentException if the expression is malformed (failures are not cached)
+     */
+    public Expression get(String source) {
+        String key = normalize(source);
+        synchronized (this) {
+            // Entries may have folded a constant that has since been reassigned
+            if (symbols != null && symbols.getConstantVersion() != constantVersion) {
+                constantVersion = symbols.getConstantVersion();
+                entries.clear();
+            }
+            Expression cached = entries.get(key);
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+            misses++;
+        }
+
+        // Parse outside the lock; a concurrent miss on the same key just parses twice
+        Expression parsed = symbols == null ? ExpressionParser.parse(key)
+                : privateTables ? ExpressionParser.parse(key, new SymbolTable(symbols), true)
+                : ExpressionParser.parse(key, symbols);
+        synchronized (this) {
+            entries.put(key, parsed);
+        }
+        return parsed;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Get cache statistics as a formatted string
+     */
+    public synchronized String getStatistics() {
+        long lookups = hits + misses;
+        double hitRate = lookups == 0 ? 0 : 100.0 * hits / lookups;
+        return "Expression Cache:\n" +
+               String.format("  entries   = %d / %d\n", entries.size(), capacity) +
+               String.format("  hits      = %d\n", hits) +
+               String.format("  misses    = %d\n", misses) +
+               String.format("  evictions = %d\n", evictions) +
+               String.format("  hit rate  = %.1f%%", hitRate);
+    }
+
+    /**
+     * Collapse whitespace so "x+1" and " x + 1 " share an entry.
+     * A single space is kept wherever removing it could join two tokens: between word
+     * characters, between the stars of "* *", and around the sign in "5e - 3", which
+     * would otherwise read as the number 5e-3.
+     */
+    static String normalize(String source) {
+        StringBuilder sb = new StringBuilder(source.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < source.length(); i++) {
+            char ch = source.charAt(i);
+            if (Character.isWhitespace(ch)) {
+                pendingSpace = sb.length() > 0;
+                continue;
+            }
+            if (pendingSpace && joinsToken(sb, ch)) {
+                sb.append(' ');
+            }
+            pendingSpace = false;
+            sb.append(ch);
+        }
+        return sb.toString();
+    }
+
+    private static boolean joinsToken(StringBuilder sb, char next) {
+        char last = sb.charAt(sb.length() - 1);
+        if (isWordChar(last) && isWordChar(next)) {
+            return true;
+        }
+        if (last == '*' && next == '*') {
+            return true;
+        }
+        if ((last == 'e' || last == 'E') && (next == '+' || next == '-')) {
+            return true;
+        }
+        // "5e- 3" or "5e+ 3"
+        return (last == '+' || last == '-') && Character.isDigit(next) && sb.length() > 1
+                && (sb.charAt(sb.length() - 2) == 'e' || sb.charAt(sb.length() - 2) == 'E');
+    }
+
+    private static boolean isWordChar(char ch) {
+        return Character.isLetterOrDigit(ch) || ch == '_' || ch == '.';
+    }
+}
@@ -0,0 +1,338 @@
+package com.example;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compiles expression trees to JVM bytecode
+ *
+ * Each expression becomes a hidden class implementing CompiledExpression, so the JIT sees
+ * straight-line code with Math and PhysicsConstants calls it can inline. The classes are
+ * defined without ClassOption.STRONG: once the owning Expression is dropped (e.g. evicted
+ * from the ExpressionCache) the class becomes unreachable and can be unloaded.
+ *
+ * Nodes shared by common subexpression elimination are computed on first use and kept
+ * in a local variable, so each is evaluated once per call.
+ */
+public class ExpressionCompiler {
+    private static final int CLASS_VERSION = 52;
+    private static final int MAX_CODE_LENGTH = 65535;
+    private static final int MAX_LOCALS = 65535;
+    private static final int FIRST_TEMP_LOCAL = 2; // 0 = this, 1 = slots
+
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SUPER = 0x0020;
+
+    private static final String CLASS_NAME = "com/example/CompiledExpression$$Formula";
+    private static final String INTERFACE_NAME = "com/example/CompiledExpression";
+
+    private ExpressionCompiler() {
+    }
+
+    /**
+     * Compile an expression tree into a hidden class instance
+     * @throws IllegalStateException if the class cannot be generated or defined
+     */
+    public static CompiledExpression compile(ExpressionNode root) {
+        byte[] bytes = generate(root);
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(bytes, true);
+            return (CompiledExpression) lookup.findConstructor(lookup.lookupClass(),
+                    MethodType.methodType(void.class)).invoke();
+        } catch (Throwable t) {
+            throw new IllegalStateException("Cannot compile expression: " + t.getMessage(), t);
+        }
+    }
+
+    static byte[] generate(ExpressionNode root) {
+        ConstantPool pool = new ConstantPool();
+        int thisClass = pool.classRef(CLASS_NAME);
+        int superClass = pool.classRef("java/lang/Object");
+        int iface = pool.classRef(INTERFACE_NAME);
+        int objectInit = pool.methodRef("java/lang/Object", "<init>", "()V");
+        int initName = pool.utf8("<init>");
+        int initDesc = pool.utf8("()V");
+        int evalName = pool.utf8("eval");
+        int evalDesc = pool.utf8("([D)D");
+        int codeAttr = pool.utf8("Code");
+
+        ByteArrayOutputStream evalCode = new ByteArrayOutputStream();
+        Temps temps = new Temps(ExpressionOptimizer.sharedNodes(root));
+        emit(root, evalCode, pool, temps);
+        evalCode.write(0xAF); // dreturn
+        if (evalCode.size() > MAX_CODE_LENGTH) {
+            throw new IllegalStateException("Expression too large to compile");
+        }
+
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            DataOutputStream data = new DataOutputStream(out);
+            data.writeInt(0xCAFEBABE);
+            data.writeShort(0);
+            data.writeShort(CLASS_VERSION);
+            pool.write(data);
+            data.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+            data.writeShort(thisClass);
+            data.writeShort(superClass);
+            data.writeShort(1);
+            data.writeShort(iface);
+            data.writeShort(0); // fields
+
+            data.writeShort(2); // methods
+            byte[] initCode = {
+                    0x2A,                                              // aload_0
+                    (byte) 0xB7, (byte) (objectInit >> 8), (byte) objectInit, // invokespecial Object.<init>
+                    (byte) 0xB1                                        // return
+            };
+            writeMethod(data, initName, initDesc, codeAttr, 1, 1, initCode);
+            // dup2 before storing a shared value needs two extra words
+            int maxStack = maxStack(root, new IdentityHashMap<>()) + (temps.next > FIRST_TEMP_LOCAL ? 2 : 0);
+            writeMethod(data, evalName, evalDesc, codeAttr, maxStack, temps.next, evalCode.toByteArray());
+
+            data.writeShort(0); // class attributes
+            data.flush();
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void writeMethod(DataOutputStream data, int name, int descriptor, int codeAttr,
+                                    int maxStack, int maxLocals, byte[] code) throws IOException {
+        data.writeShort(ACC_PUBLIC);
+        data.writeShort(name);
+        data.writeShort(descriptor);
+        data.writeShort(1);
+        data.writeShort(codeAttr);
+        data.writeInt(12 + code.length);
+        data.writeShort(maxStack);
+        data.writeShort(maxLocals);
+        data.writeInt(code.length);
+        data.write(code);
+        data.writeShort(0); // exception table
+        data.writeShort(0); // code attributes
+    }
+
+    private static void emit(ExpressionNode node, ByteArrayOutputStream code, ConstantPool pool, Temps temps) {
+        Integer local = temps.locals.get(node);
+        if (local != null) {
+            writeLocal(code, 0x18, local); // dload
+            return;
+        }
+
+        switch (node.op) {
+            case NUMBER:
+                if (Double.doubleToRawLongBits(node.value) == 0L) {
+                    code.write(0x0E); // dconst_0
+                } else if (node.value == 1.0) {
+                    code.write(0x0F); // dconst_1
+                } else {
+                    writeIndexed(code, 0x14, pool.doubleConstant(node.value)); // ldc2_w
+                }
+                return;
+            case VARIABLE:
+                code.write(0x2B); // aload_1
+                pushInt(code, node.slot, pool);
+                code.write(0x31); // daload
+                return;
+            default:
+                break;
+        }
+
+        for (ExpressionNode arg : node.args) {
+            emit(arg, code, pool, temps);
+        }
+        if (code.size() > MAX_CODE_LENGTH) {
+            // Shared nodes are re-emitted once locals run out; stop before that blows up
+            throw new IllegalStateException("Expression too large to compile");
+        }
+        switch (node.op) {
+            case NEG: code.write(0x77); break; // dneg
+            case ADD: code.write(0x63); break; // dadd
+            case SUB: code.write(0x67); break; // dsub
+            case MUL: code.write(0x6B); break; // dmul
+            case DIV: code.write(0x6F); break; // ddiv
+            case POW:
+            case POW_FN: invokeStatic(code, pool, "java/lang/Math", "pow", "(DD)D"); break;
+            case SIN: invokeStatic(code, pool, "java/lang/Math", "sin", "(D)D"); break;
+            case COS: invokeStatic(code, pool, "java/lang/Math", "cos", "(D)D"); break;
+            case TAN: invokeStatic(code, pool, "java/lang/Math", "tan", "(D)D"); break;
+            case SQRT: invokeStatic(code, pool, "java/lang/Math", "sqrt", "(D)D"); break;
+            case LOG: invokeStatic(code, pool, "java/lang/Math", "log10", "(D)D"); break;
+            case LN: invokeStatic(code, pool, "java/lang/Math", "log", "(D)D"); break;
+            case EXP: invokeStatic(code, pool, "java/lang/Math", "exp", "(D)D"); break;
+            case ABS: invokeStatic(code, pool, "java/lang/Math", "abs", "(D)D"); break;
+            case PHOTON_ENERGY:
+                invokeStatic(code, pool, "com/example/PhysicsConstants", "photonEnergy", "(D)D");
+                break;
+            case DE_BROGLIE:
+                invokeStatic(code, pool, "com/example/PhysicsConstants", "deBroglieWavelength", "(DD)D");
+                break;
+            default:
+                throw new IllegalStateException("Cannot compile operation: " + node.op);
+        }
+
+        if (temps.shared.contains(node) && temps.next + 2 <= MAX_LOCALS) {
+            code.write(0x5C); // dup2
+            writeLocal(code, 0x39, temps.next); // dstore
+            temps.locals.put(node, temps.next);
+            temps.next += 2;
+        }
+    }
+
+    private static void writeLocal(ByteArrayOutputStream code, int opcode, int index) {
+        if (index <= 0xFF) {
+            code.write(opcode);
+            code.write(index);
+        } else {
+            code.write(0xC4); // wide
+            writeIndexed(code, opcode, index);
+        }
+    }
+
+    /**
+     * Operand stack depth in words; every double takes two. Computed once per node, as
+     * shared nodes are reached once per reference.
+     */
+    private static int maxStack(ExpressionNode node, Map<ExpressionNode, Integer> depths) {
+        if (node.op == ExpressionNode.Op.NUMBER || node.op == ExpressionNode.Op.VARIABLE) {
+            return 2;
+        }
+        Integer known = depths.get(node);
+        if (known != null) {
+            return known;
+        }
+        int depth = 2;
+        for (int i = 0; i < node.args.length; i++) {
+            depth = Math.max(depth, 2 * i + maxStack(node.args[i], depths));
+        }
+        depths.put(node, depth);
+        return depth;
+    }
+
+    private static void pushInt(ByteArrayOutputStream code, int value, ConstantPool pool) {
+        if (value <= 5) {
+            code.write(0x03 + value); // iconst_n
+        } else if (value <= Byte.MAX_VALUE) {
+            code.write(0x10); // bipush
+            code.write(value);
+        } else if (value <= Short.MAX_VALUE) {
+            code.write(0x11); // sipush
+            code.write(value >> 8);
+            code.write(value);
+        } else {
+            writeIndexed(code, 0x13, pool.intConstant(value)); // ldc_w
+        }
+    }
+
+    private static void invokeStatic(ByteArrayOutputStream code, ConstantPool pool,
+                                     String owner, String name, String descriptor) {
+        writeIndexed(code, 0xB8, pool.methodRef(owner, name, descriptor));
+    }
+
+    private static void writeIndexed(ByteArrayOutputStream code, int opcode, int index) {
+        code.write(opcode);
+        code.write(index >> 8);
+        code.write(index);
+    }
+
+    /**
+     * Local variable assignment for shared nodes; each double takes two locals
+     */
+    private static class Temps {
+        private final Set<ExpressionNode> shared;
+        private final Map<ExpressionNode, Integer> locals = new IdentityHashMap<>();
+        private int next = FIRST_TEMP_LOCAL;
+
+        Temps(Set<ExpressionNode> shared) {
+            this.shared = shared;
+        }
+    }
+
+    /**
+     * Minimal class-file constant pool with de-duplication
+     */
+    private static class ConstantPool {
+        private final List<byte[]> entries = new ArrayList<>();
+        private final Map<String, Integer> indices = new HashMap<>();
+        private int nextIndex = 1;
+
+        int utf8(String value) {
+            return intern("U" + value, 1, data -> data.writeUTF(value), 1);
+        }
+
+        int classRef(String internalName) {
+            int name = utf8(internalName);
+            return intern("C" + internalName, 7, data -> data.writeShort(name), 1);
+        }
+
+        int methodRef(String owner, String name, String descriptor) {
+            int ownerIndex = classRef(owner);
+            int nameIndex = utf8(name);
+            int descIndex = utf8(descriptor);
+            int nameAndType = intern("N" + name + ":" + descriptor, 12, data -> {
+                data.writeShort(nameIndex);
+                data.writeShort(descIndex);
+            }, 1);
+            return intern("M" + owner + "." + name + descriptor, 10, data -> {
+                data.writeShort(ownerIndex);
+                data.writeShort(nameAndType);
+            }, 1);
+        }
+
+        int intConstant(int value) {
+            return intern("I" + value, 3, data -> data.writeInt(value), 1);
+        }
+
+        int doubleConstant(double value) {
+            long bits = Double.doubleToRawLongBits(value);
+            // Doubles occupy two constant pool slots
+            return intern("D" + bits, 6, data -> data.writeLong(bits), 2);
+        }
+
+        void write(DataOutputStream data) throws IOException {
+            data.writeShort(nextIndex);
+            for (byte[] entry : entries) {
+                data.write(entry);
+            }
+        }
+
+        private int intern(String key, int tag, EntryWriter writer, int width) {
+            Integer existing = indices.get(key);
+            if (existing != null) {
+                return existing;
+            }
+            try {
+                ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+                DataOutputStream data = new DataOutputStream(buffer);
+                data.writeByte(tag);
+                writer.write(data);
+                data.flush();
+                entries.add(buffer.toByteArray());
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            int index = nextIndex;
+            nextIndex += width;
+            if (nextIndex > 0xFFFF) {
+                throw new IllegalStateException("Expression too large to compile");
+            }
+            indices.put(key, index);
+            return index;
+        }
+    }
+
+    private interface EntryWriter {
+        void write(DataOutputStream data) throws IOException;
+    }
+}
@@ -0,0 +1,192 @@
+package com.example;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Node of a parsed expression tree.
+ * Every node is immutable; variables refer to a slot index assigned by the parser.
+ */
+public final class ExpressionNode implements CompiledExpression {
+
+    /**
+     * Node operations. Operators carry their symbol, functions the name used in expressions.
+     */
+    public enum Op {
+        NUMBER(0, null, false),
+        VARIABLE(0, null, false),
+        NEG(1, "-", false),
+        ADD(2, "+", false),
+        SUB(2, "-", false),
+        MUL(2, "*", false),
+        DIV(2, "/", false),
+        POW(2, "^", false),
+        SIN(1, "sin", true),
+        COS(1, "cos", true),
+        TAN(1, "tan", true),
+        SQRT(1, "sqrt", true),
+        LOG(1, "log", true),
+        LN(1, "ln", true),
+        EXP(1, "exp", true),
+        ABS(1, "abs", true),
+        POW_FN(2, "pow", true),
+        PHOTON_ENERGY(1, "photon_energy", true),
+        DE_BROGLIE(2, "de_broglie", true);
+
+        public final int arity;
+        public final String symbol;
+        public final boolean function;
+
+        Op(int arity, String symbol, boolean function) {
+            this.arity = arity;
+            this.symbol = symbol;
+            this.function = function;
+        }
+
+        /**
+         * Look up a built-in function by name
+         * @return the matching operation, or null if there is no such function
+         */
+        public static Op function(String name) {
+            for (Op op : values()) {
+                if (op.function && op.symbol.equals(name)) {
+                    return op;
+                }
+            }
+            return null;
+        }
+    }
+
+    public final Op op;
+    public final double value;
+    public final String name;
+    public final int slot;
+    public final ExpressionNode[] args;
+
+    private ExpressionNode(Op op, double value, String name, int slot, ExpressionNode... args) {
+        this.op = op;
+        this.value = value;
+        this.name = name;
+        this.slot = slot;
+        this.args = args;
+    }
+
+    public static ExpressionNode number(double value) {
+        return new ExpressionNode(Op.NUMBER, value, null, -1);
+    }
+
+    public static ExpressionNode variable(String name, int slot) {
+        return new ExpressionNode(Op.VARIABLE, 0, name, slot);
+    }
+
+    public static ExpressionNode apply(Op op, ExpressionNode... args) {
+        if (args.length != op.arity) {
+            throw new IllegalArgumentException(op.symbol + " expects " + op.arity + " argument(s)");
+        }
+        return new ExpressionNode(op, 0, null, -1, args);
+    }
+
+    /**
+     * Evaluate this subtree
+     * @param slots variable values indexed by slot
+     */
+    @Override
+    public double eval(double[] slots) {
+        switch (op) {
+            case NUMBER: return value;
+            case VARIABLE: return slots[slot];
+            case NEG: return -args[0].eval(slots);
+            case ADD: return args[0].eval(slots) + args[1].eval(slots);
+            case SUB: return args[0].eval(slots) - args[1].eval(slots);
+            case MUL: return args[0].eval(slots) * args[1].eval(slots);
+            case DIV: return args[0].eval(slots) / args[1].eval(slots);
+            case POW:
+            case POW_FN: return Math.pow(args[0].eval(slots), args[1].eval(slots));
+            case SIN: return Math.sin(args[0].eval(slots));
+            case COS: return Math.cos(args[0].eval(slots));
+            case TAN: return Math.tan(args[0].eval(slots));
+            case SQRT: return Math.sqrt(args[0].eval(slots));
+            case LOG: return Math.log10(args[0].eval(slots));
+            case LN: return Math.log(args[0].eval(slots));
+            case EXP: return Math.exp(args[0].eval(slots));
+            case ABS: return Math.abs(args[0].eval(slots));
+            case PHOTON_ENERGY: return PhysicsConstants.photonEnergy(args[0].eval(slots));
+            case DE_BROGLIE: return PhysicsConstants.deBroglieWavelength(args[0].eval(slots), args[1].eval(slots));
+            default: throw new IllegalStateException("Unknown operation: " + op);
+        }
+    }
+
+    /**
+     * Apply this operation to already evaluated arguments; the second is ignored by unary operations
+     */
+    double apply(double a, double b) {
+        switch (op) {
+            case NEG: return -a;
+            case ADD: return a + b;
+            case SUB: return a - b;
+            case MUL: return a * b;
+            case DIV: return a / b;
+            case POW:
+            case POW_FN: return Math.pow(a, b);
+            case SIN: return Math.sin(a);
+            case COS: return Math.cos(a);
+            case TAN: return Math.tan(a);
+            case SQRT: return Math.sqrt(a);
+            case LOG: return Math.log10(a);
+            case LN: return Math.log(a);
+            case EXP: return Math.exp(a);
+            case ABS: return Math.abs(a);
+            case PHOTON_ENERGY: return PhysicsConstants.photonEnergy(a);
+            case DE_BROGLIE: return PhysicsConstants.deBroglieWavelength(a, b);
+            default: throw new IllegalStateException("Not an operation: " + op);
+        }
+    }
+
+    /**
+     * Infix form. Subexpressions shared by the optimizer are printed once, as bindings
+     * ahead of the expression, e.g. "t1 = (x * x); (t1 * t1)".
+     */
+    @Override
+    public String toString() {
+        Set<ExpressionNode> shared = ExpressionOptimizer.sharedNodes(this);
+        StringBuilder bindings = new StringBuilder();
+        String body = format(this, shared, new IdentityHashMap<>(), bindings);
+        return bindings.length() == 0 ? body : bindings + body;
+    }
+
+    private static String format(ExpressionNode node, Set<ExpressionNode> shared, Map<ExpressionNode, String> names,
+                                 StringBuilder bindings) {
+        String name = names.get(node);
+        if (name != null) {
+            return name;
+        }
+        String text;
+        switch (node.op) {
+            case NUMBER: return String.valueOf(node.value);
+            case VARIABLE: return node.name;
+            case NEG:
+                text = "(-" + format(node.args[0], shared, names, bindings) + ")";
+                break;
+            default:
+                if (node.op.function) {
+                    StringBuilder sb = new StringBuilder(node.op.symbol).append('(');
+                    for (int i = 0; i < node.args.length; i++) {
+                        if (i > 0) sb.append(", ");
+                        sb.append(format(node.args[i], shared, names, bindings));
+                    }
+                    text = sb.append(')').toString();
+                } else {
+                    text = "(" + format(node.args[0], shared, names, bindings) + " " + node.op.symbol + " "
+                            + format(node.args[1], shared, names, bindings) + ")";
+                }
+        }
+        if (!shared.contains(node)) {
+            return text;
+        }
+        name = "t" + (names.size() + 1);
+        names.put(node, name);
+        bindings.append(name).append(" = ").append(text).append("; ");
+        return name;
+    }
+}
@@ -0,0 +1,223 @@
+package com.example;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Rewrites expression trees before evaluation
+ *
+ * - Constant folding: subtrees built only from literals and constant variables
+ *   (physics constants, pi, E) are replaced by their value.
+ * - Strength reduction: x^2 becomes x * x, and x^1 and x^0 are dropped; results stay
+ *   bit-identical to Math.pow.
+ * - Invariant hoisting: in batch mode everything that does not depend on a per-row
+ *   input is folded once using the current variable values.
+ * - Common subexpression elimination: identical subtrees are hash-consed into a single
+ *   node, turning the tree into a DAG. Both ExpressionCompiler and the tree walker in
+ *   Expression evaluate a shared node once per call and reuse the value.
+ */
+public class ExpressionOptimizer {
+    private ExpressionOptimizer() {
+    }
+
+    /**
+     * Fold literals and constant variables of the given table, then reduce powers
+     */
+    public static ExpressionNode optimize(ExpressionNode root, SymbolTable symbols) {
+        return eliminateCommonSubexpressions(rewrite(root, symbols, null));
+    }
+
+    /**
+     * Specialize a tree for batch evaluation: every variable except the varying ones is
+     * treated as invariant and folded with its current value
+     * @param varying flags indexed by slot; true for variables that change per row
+     */
+    public static ExpressionNode hoistInvariants(ExpressionNode root, SymbolTable symbols, boolean[] varying) {
+        return eliminateCommonSubexpressions(rewrite(root, symbols, varying));
+    }
+
+    /**
+     * Merge structurally identical subtrees so each distinct subexpression is a single node
+     */
+    public static ExpressionNode eliminateCommonSubexpressions(ExpressionNode root) {
+        return hashCons(root, new HashMap<>(), new IdentityHashMap<>());
+    }
+
+    /**
+     * Operation nodes referenced more than once in a DAG; leaves are never reported
+     */
+    public static Set<ExpressionNode> sharedNodes(ExpressionNode root) {
+        Map<ExpressionNode, Integer> references = new IdentityHashMap<>();
+        countReferences(root, references);
+        Set<ExpressionNode> shared = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Map.Entry<ExpressionNode, Integer> entry : references.entrySet()) {
+            ExpressionNode node = entry.getKey();
+            if (entry.getValue() > 1 && node.op != ExpressionNode.Op.NUMBER && node.op != ExpressionNode.Op.VARIABLE) {
+                shared.add(node);
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * Count the distinct nodes of a tree or DAG; a shared node counts once
+     */
+    public static int size(ExpressionNode root) {
+        Map<ExpressionNode, Integer> references = new IdentityHashMap<>();
+        countReferences(root, references);
+        return references.size();
+    }
+
+    private static ExpressionNode rewrite(ExpressionNode node, SymbolTable symbols, boolean[] varying) {
+        switch (node.op) {
+            case NUMBER:
+                return node;
+            case VARIABLE:
+                if (isInvariant(node.slot, symbols, varying)) {
+                    return ExpressionNode.number(symbols.get(node.slot));
+                }
+                return node;
+            default:
+                break;
+        }
+
+        ExpressionNode[] args = new ExpressionNode[node.args.length];
+        boolean allConstant = true;
+        for (int i = 0; i < args.length; i++) {
+            args[i] = rewrite(node.args[i], symbols, varying);
+            allConstant &= args[i].op == ExpressionNode.Op.NUMBER;
+        }
+
+        ExpressionNode rewritten = ExpressionNode.apply(node.op, args);
+        if (allConstant) {
+            return ExpressionNode.number(rewritten.eval(null));
+        }
+        if (node.op == ExpressionNode.Op.POW || node.op == ExpressionNode.Op.POW_FN) {
+            return reducePower(rewritten);
+        }
+        return rewritten;
+    }
+
+    private static boolean isInvariant(int slot, SymbolTable symbols, boolean[] varying) {
+        if (varying == null) {
+            return symbols.isConstant(slot);
+        }
+        return slot >= varying.length || !varying[slot];
+    }
+
+    /**
+     * x^2 becomes x * x, x^1 becomes x and x^0 becomes 1; all three are exactly what
+     * Math.pow returns. Longer chains and reciprocals round at every step and can differ
+     * from Math.pow by an ulp or more, so other powers stay calls, as in Calculator.
+     */
+    private static ExpressionNode reducePower(ExpressionNode pow) {
+        ExpressionNode base = pow.args[0];
+        ExpressionNode exponent = pow.args[1];
+        if (exponent.op != ExpressionNode.Op.NUMBER) {
+            return pow;
+        }
+        if (exponent.value == 0) {
+            return ExpressionNode.number(1.0);
+        }
+        if (exponent.value == 1) {
+            return base;
+        }
+        if (exponent.value == 2) {
+            return ExpressionNode.apply(ExpressionNode.Op.MUL, base, base);
+        }
+        return pow;
+    }
+
+    private static ExpressionNode hashCons(ExpressionNode node, Map<NodeKey, ExpressionNode> canonical,
+                                           Map<ExpressionNode, ExpressionNode> visited) {
+        ExpressionNode done = visited.get(node);
+        if (done != null) {
+            return done;
+        }
+
+        ExpressionNode candidate = node;
+        if (node.args != null && node.args.length > 0) {
+            ExpressionNode[] args = new ExpressionNode[node.args.length];
+            boolean changed = false;
+            for (int i = 0; i < args.length; i++) {
+                args[i] = hashCons(node.args[i], canonical, visited);
+                changed |= args[i] != node.args[i];
+            }
+            if (changed) {
+                candidate = ExpressionNode.apply(node.op, args);
+            }
+        }
+
+        // Children are canonical already, so comparing them by identity is enough
+        NodeKey key = new NodeKey(candidate);
+        ExpressionNode result = canonical.get(key);
+        if (result == null) {
+            canonical.put(key, candidate);
+            result = candidate;
+        }
+        visited.put(node, result);
+        return result;
+    }
+
+    private static void countReferences(ExpressionNode node, Map<ExpressionNode, Integer> references) {
+        Integer count = references.get(node);
+        references.put(node, count == null ? 1 : count + 1);
+        if (count == null && node.args != null) {
+            for (ExpressionNode arg : node.args) {
+                countReferences(arg, references);
+            }
+        }
+    }
+
+    /**
+     * Structural identity of a node whose children are already canonical
+     */
+    private static final class NodeKey {
+        private final ExpressionNode node;
+        private final int hash;
+
+        NodeKey(ExpressionNode node) {
+            this.node = node;
+            int h = node.op.hashCode();
+            h = 31 * h + Double.hashCode(node.value);
+            h = 31 * h + node.slot;
+            if (node.args != null) {
+                for (ExpressionNode arg : node.args) {
+                    h = 31 * h + System.identityHashCode(arg);
+                }
+            }
+            this.hash = h;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof NodeKey)) {
+                return false;
+            }
+            ExpressionNode that = ((NodeKey) other).node;
+            if (node.op != that.op || node.slot != that.slot
+                    || Double.doubleToRawLongBits(node.value) != Double.doubleToRawLongBits(that.value)) {
+                return false;
+            }
+            int arity = node.args == null ? 0 : node.args.length;
+            int thatArity = that.args == null ? 0 : that.args.length;
+            if (arity != thatArity) {
+                return false;
+            }
+            for (int i = 0; i < arity; i++) {
+                if (node.args[i] != that.args[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
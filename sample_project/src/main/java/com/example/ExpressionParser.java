@@ -0,0 +1,237 @@
+package com.example;
+
+import java.util.Arrays;
+
+/**
+ * Recursive-descent parser for calculator expressions
+ *
+ * Grammar:
+ *   expression = term (('+' | '-') term)*
+ *   term       = unary (('*' | '/') unary)*
+ *   unary      = ('-' | '+') unary | power
+ *   power      = primary (('^' | '**') unary)?
+ *   primary    = number | name | name '(' arguments ')' | '(' expression ')'
+ */
+public class ExpressionParser {
+    private final String source;
+    private final SymbolTable symbols;
+    private final boolean declareNames;
+    private int[] variableSlots = new int[4];
+    private int variableCount;
+    private int pos;
+
+    private ExpressionParser(String source, SymbolTable symbols, boolean declareNames) {
+        this.source = source;
+        this.symbols = symbols;
+        this.declareNames = declareNames;
+    }
+
+    /**
+     * Parse an expression such as "m_e * c^2 / eV" or "photon_energy(500e-9)".
+     * Variables are bound to slots of a private symbol table, in order of appearance.
+     * @throws IllegalArgumentException if the expression is malformed
+     */
+    public static Expression parse(String source) {
+        return parse(source, new SymbolTable(), true);
+    }
+
+    /**
+     * Parse an expression, binding its variables to slots of the given table
+     * @throws IllegalArgumentException if the expression is malformed or uses an undefined variable
+     */
+    public static Expression parse(String source, SymbolTable symbols) {
+        return parse(source, symbols, false);
+    }
+
+    static Expression parse(String source, SymbolTable symbols, boolean declareNames) {
+        ExpressionParser parser = new ExpressionParser(source, symbols, declareNames);
+        ExpressionNode root = parser.parseExpression();
+        parser.skipWhitespace();
+        if (parser.pos < source.length()) {
+            throw parser.error("Unexpected '" + source.charAt(parser.pos) + "'");
+        }
+        int[] slots = Arrays.copyOf(parser.variableSlots, parser.variableCount);
+        return new Expression(source, root, ExpressionOptimizer.optimize(root, symbols), symbols, slots);
+    }
+
+    private ExpressionNode parseExpression() {
+        ExpressionNode left = parseTerm();
+        while (true) {
+            if (accept('+')) {
+                left = ExpressionNode.apply(ExpressionNode.Op.ADD, left, parseTerm());
+            } else if (accept('-')) {
+                left = ExpressionNode.apply(ExpressionNode.Op.SUB, left, parseTerm());
+            } else {
+                return left;
+            }
+        }
+    }
+
+    private ExpressionNode parseTerm() {
+        ExpressionNode left = parseUnary();
+        while (true) {
+            if (peek('*') && !peekPowerStar()) {
+                pos++;
+                left = ExpressionNode.apply(ExpressionNode.Op.MUL, left, parseUnary());
+            } else if (accept('/')) {
+                left = ExpressionNode.apply(ExpressionNode.Op.DIV, left, parseUnary());
+            } else {
+                return left;
+            }
+        }
+    }
+
+    private ExpressionNode parseUnary() {
+        if (accept('-')) {
+            return ExpressionNode.apply(ExpressionNode.Op.NEG, parseUnary());
+        }
+        if (accept('+')) {
+            return parseUnary();
+        }
+        return parsePower();
+    }
+
+    private ExpressionNode parsePower() {
+        ExpressionNode base = parsePrimary();
+        if (accept('^')) {
+            return ExpressionNode.apply(ExpressionNode.Op.POW, base, parseUnary());
+        }
+        if (peekPowerStar()) {
+            pos += 2;
+            return ExpressionNode.apply(ExpressionNode.Op.POW, base, parseUnary());
+        }
+        return base;
+    }
+
+    private ExpressionNode parsePrimary() {
+        skipWhitespace();
+        if (pos >= source.length()) {
+            throw error("Unexpected end of expression");
+        }
+
+        char ch = source.charAt(pos);
+        if (accept('(')) {
+            ExpressionNode inner = parseExpression();
+            expect(')');
+            return inner;
+        }
+        if (Character.isDigit(ch) || ch == '.') {
+            return ExpressionNode.number(parseNumber());
+        }
+        if (Character.isLetter(ch) || ch == '_') {
+            String name = parseName();
+            if (accept('(')) {
+                return parseCall(name);
+            }
+            return ExpressionNode.variable(name, bindVariable(name));
+        }
+        throw error("Unexpected '" + ch + "'");
+    }
+
+    private int bindVariable(String name) {
+        int slot = symbols.slotOf(name);
+        if (slot < 0) {
+            if (!declareNames) {
+                throw error("Unknown variable: " + name);
+            }
+            slot = symbols.define(name, 0.0);
+        }
+        for (int i = 0; i < variableCount; i++) {
+            if (variableSlots[i] == slot) {
+                return slot;
+            }
+        }
+        if (variableCount == variableSlots.length) {
+            variableSlots = Arrays.copyOf(variableSlots, variableCount * 2);
+        }
+        variableSlots[variableCount++] = slot;
+        return slot;
+    }
+
+    private ExpressionNode parseCall(String name) {
+        ExpressionNode.Op op = ExpressionNode.Op.function(name);
+        if (op == null) {
+            throw error("Unknown function: " + name);
+        }
+
+        ExpressionNode[] args = new ExpressionNode[op.arity];
+        for (int i = 0; i < args.length; i++) {
+            if (i > 0) {
+                expect(',');
+            }
+            args[i] = parseExpression();
+        }
+        expect(')');
+        return ExpressionNode.apply(op, args);
+    }
+
+    private double parseNumber() {
+        int start = pos;
+        while (pos < source.length() && (Character.isDigit(source.charAt(pos)) || source.charAt(pos) == '.')) {
+            pos++;
+        }
+        // Exponent part, e.g. 500e-9; a bare "e" after a number is not consumed
+        if (pos < source.length() && (source.charAt(pos) == 'e' || source.charAt(pos) == 'E')) {
+            int mark = pos + 1;
+            if (mark < source.length() && (source.charAt(mark) == '+' || source.charAt(mark) == '-')) {
+                mark++;
+            }
+            if (mark < source.length() && Character.isDigit(source.charAt(mark))) {
+                pos = mark;
+                while (pos < source.length() && Character.isDigit(source.charAt(pos))) {
+                    pos++;
+                }
+            }
+        }
+
+        try {
+            return NumberParser.parse(source, start, pos);
+        } catch (NumberFormatException e) {
+            throw error("Invalid number '" + source.substring(start, pos) + "'");
+        }
+    }
+
+    private String parseName() {
+        int start = pos;
+        while (pos < source.length() && (Character.isLetterOrDigit(source.charAt(pos)) || source.charAt(pos) == '_')) {
+            pos++;
+        }
+        return source.substring(start, pos);
+    }
+
+    private void skipWhitespace() {
+        while (pos < source.length() && Character.isWhitespace(source.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private boolean peek(char expected) {
+        skipWhitespace();
+        return pos < source.length() && source.charAt(pos) == expected;
+    }
+
+    private boolean peekPowerStar() {
+        skipWhitespace();
+        return pos + 1 < source.length() && source.charAt(pos) == '*' && source.charAt(pos + 1) == '*';
+    }
+
+    private boolean accept(char expected) {
+        if (peek(expected)) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(char expected) {
+        if (!accept(expected)) {
+            throw error(pos < source.length()
+                    ? "Expected '" + expected + "' but found '" + source.charAt(pos) + "'"
+                    : "Expected '" + expected + "'");
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at position " + (pos + 1));
+    }
+}
@@ -0,0 +1,200 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Command history with a trigram index for reverse search and prefix lookup
+ *
+ * Every entry is numbered in the order it was added. Each distinct run of three
+ * characters maps to the ascending list of entries containing it; adding an entry only
+ * appends its number to the lists of its trigrams. A search walks the shortest list of
+ * the query's trigrams from the starting point and checks the other lists by binary
+ * search, so it touches only entries that can match. Queries shorter than three
+ * characters fall back to scanning.
+ */
+public class HistoryIndex {
+    private static final long EMPTY = -1;
+
+    private final List<String> entries = new ArrayList<>();
+
+    // Open-addressing table from packed trigram to posting list
+    private long[] keys = filled(1024);
+    private int[][] postings = new int[1024][];
+    private int[] postingSizes = new int[1024];
+    private int trigramCount;
+
+    public void add(String entry) {
+        int id = entries.size();
+        entries.add(entry);
+        for (int i = 0; i + 3 <= entry.length(); i++) {
+            int slot = slotFor(trigram(entry, i), true);
+            int size = postingSizes[slot];
+            if (size > 0 && postings[slot][size - 1] == id) {
+                continue; // Trigram repeats within this entry
+            }
+            if (size == postings[slot].length) {
+                postings[slot] = Arrays.copyOf(postings[slot], size * 2);
+            }
+            postings[slot][size] = id;
+            postingSizes[slot] = size + 1;
+        }
+    }
+
+    public void addAll(List<String> commands) {
+        for (String command : commands) {
+            add(command);
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public String get(int index) {
+        return entries.get(index);
+    }
+
+    /**
+     * @return the newest entry before the given index containing text, or -1
+     */
+    public int findOlder(String text, int before) {
+        return find(text, false, before - 1, -1);
+    }
+
+    /**
+     * @return the newest entry before the given index starting with prefix, or -1
+     */
+    public int findOlderWithPrefix(String prefix, int before) {
+        return find(prefix, true, before - 1, -1);
+    }
+
+    /**
+     * @return the oldest entry after the given index starting with prefix, or -1
+     */
+    public int findNewerWithPrefix(String prefix, int after) {
+        return find(prefix, true, after + 1, 1);
+    }
+
+    private int find(String text, boolean prefix, int from, int step) {
+        if (step < 0) {
+            from = Math.min(from, entries.size() - 1);
+        }
+        if (from < 0 || from >= entries.size()) {
+            return -1;
+        }
+        if (text.length() < 3) {
+            for (int i = from; i >= 0 && i < entries.size(); i += step) {
+                if (matches(entries.get(i), text, prefix)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        // Walk the rarest trigram's entries; each must also appear in every other list
+        int trigrams = text.length() - 2;
+        int[][] lists = new int[trigrams][];
+        int[] sizes = new int[trigrams];
+        int rarest = 0;
+        for (int t = 0; t < trigrams; t++) {
+            int slot = slotFor(trigram(text, t), false);
+            if (slot < 0) {
+                return -1; // Some trigram never occurs
+            }
+            lists[t] = postings[slot];
+            sizes[t] = postingSizes[slot];
+            if (sizes[t] < sizes[rarest]) {
+                rarest = t;
+            }
+        }
+
+        int[] candidates = lists[rarest];
+        int position = Arrays.binarySearch(candidates, 0, sizes[rarest], from);
+        if (position < 0) {
+            int insertion = -position - 1;
+            position = step < 0 ? insertion - 1 : insertion;
+        }
+        for (; position >= 0 && position < sizes[rarest]; position += step) {
+            int id = candidates[position];
+            if (inAll(lists, sizes, id) && matches(entries.get(id), text, prefix)) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean inAll(int[][] lists, int[] sizes, int id) {
+        for (int t = 0; t < lists.length; t++) {
+            if (Arrays.binarySearch(lists[t], 0, sizes[t], id) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matches(String entry, String text, boolean prefix) {
+        return prefix ? entry.startsWith(text) : entry.contains(text);
+    }
+
+    private static long trigram(String text, int at) {
+        return ((long) text.charAt(at) << 32) | ((long) text.charAt(at + 1) << 16) | text.charAt(at + 2);
+    }
+
+    /**
+     * Slot holding a trigram; with create, a new empty list is made if missing, otherwise -1
+     */
+    private int slotFor(long key, boolean create) {
+        int mask = keys.length - 1;
+        int slot = home(key, mask);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (!create) {
+            return -1;
+        }
+        if ((trigramCount + 1) * 2 > keys.length) {
+            grow();
+            return slotFor(key, true);
+        }
+        keys[slot] = key;
+        postings[slot] = new int[4];
+        trigramCount++;
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[][] oldPostings = postings;
+        int[] oldSizes = postingSizes;
+        keys = filled(oldKeys.length * 2);
+        postings = new int[keys.length][];
+        postingSizes = new int[keys.length];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = home(oldKeys[i], mask);
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                postings[slot] = oldPostings[i];
+                postingSizes[slot] = oldSizes[i];
+            }
+        }
+    }
+
+    private static int home(long key, int mask) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+
+    private static long[] filled(int size) {
+        long[] table = new long[size];
+        Arrays.fill(table, EMPTY);
+        return table;
+    }
+}
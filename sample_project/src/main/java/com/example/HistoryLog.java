@@ -0,0 +1,575 @@
+package com.example;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Append-only binary log of commands and calculations, shared by the GUI and consoles
+ *
+ * File layout: the magic "CHLG" and a version int, then entries of
+ * [int payload length][long timestamp millis][byte source][UTF-8 payload].
+ *
+ * Appends return immediately; a writer thread batches them into the file. Reading maps
+ * the file and indexes entry offsets without decoding them, so reopening a log with
+ * millions of entries takes milliseconds. A torn entry at the end (e.g. after a crash)
+ * is cut off on open.
+ *
+ * Compaction rewrites the file. It runs whenever the file exceeds the optional size cap,
+ * and drops the oldest entries until the file is at three quarters of the cap; the rest
+ * keep their order, repeats included. A log opened with deduplicate set also keeps only
+ * the newest copy of each entry, so a repeated command moves to its latest position. That
+ * compaction also runs once the appends since the last one reach COMPACTION_INTERVAL or
+ * half the entry count, whichever is larger, so its cost stays proportional to the appends.
+ * Whichever process compacts a shared log applies its own setting, so they should agree.
+ *
+ * Several processes may share one log. Appends and compaction hold an exclusive lock on a
+ * sibling ".lock" file, which survives compaction replacing the log itself. Under the lock
+ * a log first indexes what other processes appended, or reopens the file if one of them
+ * compacted it, and only then writes at the real end of the file. Entries from other
+ * processes become visible after the next append or flush().
+ */
+public class HistoryLog implements AutoCloseable {
+    public static final byte CONSOLE = 'C';
+    public static final byte GUI = 'G';
+    public static final int COMPACTION_INTERVAL = 100_000;
+    public static final long DEFAULT_MAX_BYTES = Long.getLong("calculator.historyMaxBytes", 64L << 20);
+
+    private static final int MAGIC = 0x43484C47; // "CHLG"
+    private static final int VERSION = 1;
+    private static final int FILE_HEADER = 8;
+    private static final int ENTRY_HEADER = Integer.BYTES + Long.BYTES + 1;
+    private static final int WRITE_BUFFER = 1 << 16;
+
+    // A JVM may hold a file lock only once, so logs on the same path in one JVM take turns
+    private static final Map<Path, Object> LOCAL_LOCKS = new ConcurrentHashMap<>();
+
+    private final Path path;
+    private final long maxBytes;
+    private final boolean deduplicate;
+    private final BlockingQueue<Object> pending = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private final Thread shutdownHook;
+    private final Object localLock;
+    private final FileChannel lockChannel;
+
+    // Guarded by this
+    private FileChannel channel;
+    private Object fileKey;
+    private MappedByteBuffer mapped;
+    private long[] offsets = new long[1024];
+    private int count;
+    private long fileSize;
+    private int appendsSinceCompaction;
+    private boolean closed;
+
+    public HistoryLog(Path path) throws IOException {
+        this(path, 0);
+    }
+
+    /**
+     * @param maxBytes size cap of the file, or 0 for no cap
+     */
+    public HistoryLog(Path path, long maxBytes) throws IOException {
+        this(path, maxBytes, false);
+    }
+
+    /**
+     * @param maxBytes size cap of the file, or 0 for no cap
+     * @param deduplicate whether compaction drops all but the newest copy of each entry
+     */
+    public HistoryLog(Path path, long maxBytes, boolean deduplicate) throws IOException {
+        if (maxBytes < 0 || maxBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Size cap must be between 0 and 2 GB");
+        }
+        this.path = path;
+        this.maxBytes = maxBytes;
+        this.deduplicate = deduplicate;
+        localLock = LOCAL_LOCKS.computeIfAbsent(path.toAbsolutePath().normalize(), key -> new Object());
+        lockChannel = FileChannel.open(path.resolveSibling(path.getFileName() + ".lock"),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            refresh(); // Opens and indexes the file
+        } catch (IOException | RuntimeException e) {
+            lockChannel.close();
+            throw e;
+        }
+
+        writer = new Thread(this::writeLoop, "history-writer");
+        writer.setDaemon(true);
+        writer.start();
+
+        // Entries still queued when the JVM exits are written by the hook
+        shutdownHook = new Thread(this::close, "history-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /**
+     * The log shared by all calculator front ends: -Dcalculator.history, or
+     * .calculator_history in the user's home directory
+     */
+    public static Path defaultPath() {
+        String configured = System.getProperty("calculator.history");
+        return configured != null ? Paths.get(configured)
+                : Paths.get(System.getProperty("user.home"), ".calculator_history");
+    }
+
+    /**
+     * Open the shared log at defaultPath() with the DEFAULT_MAX_BYTES cap
+     */
+    public static HistoryLog openDefault() throws IOException {
+        return new HistoryLog(defaultPath(), DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Queue an entry; it is written in the background
+     */
+    public void append(byte source, String text) {
+        pending.add(new Entry(System.currentTimeMillis(), source, text));
+    }
+
+    /**
+     * Block until every entry queued so far is on disk, and index what other processes wrote
+     */
+    public void flush() throws IOException {
+        await(new CompletableFuture<Void>());
+    }
+
+    /**
+     * Rewrite the file now, applying the size cap and, if enabled, deduplication
+     */
+    public void compact() throws IOException {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        pending.add(new Compaction(done));
+        waitFor(done);
+    }
+
+    /**
+     * Number of entries written so far; queued entries are not counted until written
+     */
+    public synchronized int size() {
+        return count;
+    }
+
+    public synchronized String get(int index) {
+        ByteBuffer entry = entry(index);
+        int length = entry.getInt(0);
+        byte[] text = new byte[length];
+        entry.get(ENTRY_HEADER, text);
+        return new String(text, StandardCharsets.UTF_8);
+    }
+
+    public synchronized long getTimestamp(int index) {
+        return entry(index).getLong(Integer.BYTES);
+    }
+
+    public synchronized byte getSource(int index) {
+        return entry(index).get(Integer.BYTES + Long.BYTES);
+    }
+
+    /**
+     * The newest entries from one source, oldest first. Read in one go, so unlike looping
+     * over get() the result is consistent even if a compaction renumbers the entries.
+     */
+    public synchronized List<String> recent(byte source, int limit) {
+        List<String> entries = new ArrayList<>();
+        for (int i = count - 1; i >= 0 && entries.size() < limit; i--) {
+            if (getSource(i) == source) {
+                entries.add(get(i));
+            }
+        }
+        Collections.reverse(entries);
+        return entries;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public synchronized long getFileSize() {
+        return fileSize;
+    }
+
+    /**
+     * Write everything still queued and release the file
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+        }
+        try {
+            flush();
+        } catch (IOException e) {
+            // Nothing more we can do while closing
+        }
+        writer.interrupt();
+        synchronized (this) {
+            closed = true;
+            try {
+                channel.close();
+                lockChannel.close();
+            } catch (IOException e) {
+                // Already closing
+            }
+            mapped = null;
+        }
+        if (Thread.currentThread() != shutdownHook) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException e) {
+                // The JVM is already shutting down
+            }
+        }
+    }
+
+    /**
+     * Run an action holding the lock shared with other processes, after catching up with
+     * their changes; the action may be null just to catch up
+     */
+    private void withFileLock(LockedAction action) throws IOException {
+        synchronized (localLock) {
+            FileLock lock = lockChannel.lock();
+            try {
+                synchronized (this) {
+                    if (closed) {
+                        throw new IOException("History log is closed");
+                    }
+                    catchUp();
+                    if (action != null) {
+                        action.run();
+                    }
+                }
+            } finally {
+                lock.release();
+            }
+        }
+    }
+
+    private void refresh() throws IOException {
+        withFileLock(null);
+    }
+
+    /**
+     * Index entries other processes appended, or reopen the file if another process replaced it
+     */
+    private void catchUp() throws IOException {
+        if (channel != null && !replaced()) {
+            long size = channel.size();
+            if (size == fileSize) {
+                return;
+            }
+            if (size > fileSize) {
+                long position = fileSize;
+                fileSize = size;
+                remap();
+                indexFrom(position);
+                return;
+            }
+        }
+        if (channel != null) {
+            channel.close();
+        }
+        openFile();
+    }
+
+    private boolean replaced() throws IOException {
+        try {
+            Object key = Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+            return key != null && !key.equals(fileKey);
+        } catch (NoSuchFileException e) {
+            return true;
+        }
+    }
+
+    private void openFile() throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        fileKey = Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+        fileSize = channel.size();
+        if (fileSize < FILE_HEADER) {
+            ByteBuffer header = ByteBuffer.allocate(FILE_HEADER).putInt(MAGIC).putInt(VERSION).flip();
+            channel.truncate(0);
+            channel.write(header, 0);
+            fileSize = FILE_HEADER;
+        }
+
+        remap();
+        if (mapped.getInt(0) != MAGIC || mapped.getInt(4) != VERSION) {
+            channel.close();
+            throw new IOException("Not a calculator history log: " + path);
+        }
+
+        count = 0;
+        indexFrom(FILE_HEADER);
+    }
+
+    /**
+     * Index entries by walking the length prefixes; payloads are decoded only on demand.
+     * Only called under the file lock, so a partial entry at the end is a torn write.
+     */
+    private void indexFrom(long position) throws IOException {
+        while (position + ENTRY_HEADER <= fileSize) {
+            int length = mapped.getInt((int) position);
+            if (length < 0 || position + ENTRY_HEADER + length > fileSize) {
+                break;
+            }
+            addOffset(position);
+            position += ENTRY_HEADER + length;
+        }
+        if (position != fileSize) {
+            channel.truncate(position); // Torn entry at the end
+            fileSize = position; // Mapped on the next read
+        }
+    }
+
+    private void remap() throws IOException {
+        if (fileSize > Integer.MAX_VALUE) {
+            throw new IOException("History log is larger than 2 GB; set a size cap");
+        }
+        mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+    }
+
+    private ByteBuffer entry(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("History entry " + index + " of " + count);
+        }
+        if (mapped.capacity() < fileSize) {
+            try {
+                remap();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return mapped.slice((int) offsets[index], (int) (fileSize - offsets[index]));
+    }
+
+    private void addOffset(long offset) {
+        if (count == offsets.length) {
+            offsets = Arrays.copyOf(offsets, count * 2);
+        }
+        offsets[count++] = offset;
+    }
+
+    private void writeLoop() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER);
+        List<Object> batch = new ArrayList<>();
+        while (true) {
+            try {
+                batch.add(pending.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            pending.drainTo(batch);
+            try {
+                for (Object item : batch) {
+                    if (item instanceof Entry) {
+                        write(buffer, (Entry) item);
+                    } else {
+                        flushBuffer(buffer);
+                        if (item instanceof Compaction) {
+                            withFileLock(this::rewrite);
+                            ((Compaction) item).done.complete(null);
+                        } else {
+                            refresh();
+                            compactIfDue();
+                            ((CompletableFuture<?>) item).complete(null);
+                        }
+                    }
+                }
+                flushBuffer(buffer);
+                compactIfDue();
+            } catch (IOException | RuntimeException e) {
+                for (Object item : batch) {
+                    if (item instanceof CompletableFuture) {
+                        ((CompletableFuture<?>) item).completeExceptionally(e);
+                    } else if (item instanceof Compaction) {
+                        ((Compaction) item).done.completeExceptionally(e);
+                    }
+                }
+            }
+            batch.clear();
+        }
+    }
+
+    private void compactIfDue() throws IOException {
+        if (compactionDue()) {
+            withFileLock(() -> {
+                if (compactionDue()) {
+                    rewrite();
+                }
+            });
+        }
+    }
+
+    private synchronized boolean compactionDue() {
+        return (maxBytes > 0 && fileSize > maxBytes)
+                || (deduplicate && appendsSinceCompaction >= Math.max(COMPACTION_INTERVAL, count / 2));
+    }
+
+    private void write(ByteBuffer buffer, Entry entry) throws IOException {
+        byte[] text = entry.text.getBytes(StandardCharsets.UTF_8);
+        if (buffer.remaining() < ENTRY_HEADER + text.length) {
+            flushBuffer(buffer);
+        }
+        ByteBuffer target = buffer;
+        if (ENTRY_HEADER + text.length > buffer.capacity()) {
+            target = ByteBuffer.allocate(ENTRY_HEADER + text.length);
+        }
+        target.putInt(text.length).putLong(entry.timestamp).put(entry.source).put(text);
+        if (target != buffer) {
+            target.flip();
+            writeAtEnd(target);
+        }
+        appendsSinceCompaction++;
+    }
+
+    private void flushBuffer(ByteBuffer buffer) throws IOException {
+        if (buffer.position() > 0) {
+            buffer.flip();
+            writeAtEnd(buffer);
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Append whole entries and index them; readers see them only once fully written
+     */
+    private void writeAtEnd(ByteBuffer entries) throws IOException {
+        withFileLock(() -> {
+            long position = fileSize;
+            int start = entries.position();
+            while (entries.hasRemaining()) {
+                position += channel.write(entries, position);
+            }
+            for (int offset = start; offset < entries.limit(); ) {
+                addOffset(fileSize + offset - start);
+                offset += ENTRY_HEADER + entries.getInt(offset);
+            }
+            fileSize = position; // Mapped on the next read
+        });
+    }
+
+    /**
+     * Keep the newest entries, or the newest copy of each when deduplicating, oldest first
+     * and within three quarters of the cap; only called under the file lock
+     */
+    private synchronized void rewrite() throws IOException {
+        long budget = maxBytes > 0 ? maxBytes * 3 / 4 : Long.MAX_VALUE;
+        // Source byte plus payload, compared as mapped bytes without decoding
+        Set<ByteBuffer> seen = deduplicate ? new HashSet<>() : null;
+        int[] kept = new int[count];
+        int keptCount = 0;
+        long keptBytes = FILE_HEADER;
+        for (int i = count - 1; i >= 0; i--) {
+            ByteBuffer entry = entry(i);
+            int length = entry.getInt(0);
+            if (keptBytes + ENTRY_HEADER + length > budget) {
+                break;
+            }
+            if (seen == null || seen.add(entry.slice(ENTRY_HEADER - 1, length + 1))) {
+                kept[keptCount++] = i;
+                keptBytes += ENTRY_HEADER + length;
+            }
+        }
+
+        Path temporary = path.resolveSibling(path.getFileName() + ".compact");
+        try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER);
+            buffer.putInt(MAGIC).putInt(VERSION);
+            for (int k = keptCount - 1; k >= 0; k--) {
+                ByteBuffer entry = entry(kept[k]);
+                entry.limit(ENTRY_HEADER + entry.getInt(0));
+                if (buffer.remaining() < entry.remaining()) {
+                    writeFully(out, buffer.flip());
+                    buffer.clear();
+                }
+                if (buffer.remaining() < entry.remaining()) {
+                    writeFully(out, entry);
+                } else {
+                    buffer.put(entry);
+                }
+            }
+            writeFully(out, buffer.flip());
+        }
+
+        channel.close();
+        mapped = null;
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        openFile();
+        appendsSinceCompaction = 0;
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            out.write(bytes);
+        }
+    }
+
+    private void await(CompletableFuture<Void> barrier) throws IOException {
+        pending.add(barrier);
+        waitFor(barrier);
+    }
+
+    private void waitFor(CompletableFuture<Void> done) throws IOException {
+        if (!writer.isAlive()) {
+            return; // Closed; nothing is being written
+        }
+        try {
+            done.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IOException("History write failed", e.getCause());
+        }
+    }
+
+    private interface LockedAction {
+        void run() throws IOException;
+    }
+
+    private static final class Entry {
+        final long timestamp;
+        final byte source;
+        final String text;
+
+        Entry(long timestamp, byte source, String text) {
+            this.timestamp = timestamp;
+            this.source = source;
+            this.text = text;
+        }
+    }
+
+    private static final class Compaction {
+        final CompletableFuture<Void> done;
+
+        Compaction(CompletableFuture<Void> done) {
+            this.done = done;
+        }
+    }
+}
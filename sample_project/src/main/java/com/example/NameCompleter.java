@@ -0,0 +1,334 @@
+package com.example;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Ranked completion of variable, constant and function names
+ *
+ * Names live in a trie kept in parallel arrays. Completions are ranked by how often a
+ * name was used, then by length, then alphabetically. A node whose subtree holds more
+ * than CACHE_THRESHOLD names keeps its best MAX_COMPLETIONS names and updates them as
+ * names are added or used; any other node has few enough names below it to walk
+ * directly. A lookup therefore costs the prefix length plus a bounded walk, however
+ * many names there are.
+ *
+ * Thread-safe. sync() reads the symbol table, so call it from the thread that changes it.
+ */
+public class NameCompleter {
+    public static final int MAX_COMPLETIONS = 10;
+    private static final int CACHE_THRESHOLD = 64;
+
+    public enum Kind { VARIABLE, CONSTANT, FUNCTION }
+
+    private final SymbolTable variables;
+    private int syncedSlots;
+
+    // Names by id
+    private String[] names = new String[256];
+    private Kind[] kinds = new Kind[256];
+    private int[] uses = new int[256];
+    private int nameCount;
+
+    // Trie nodes; node 0 is the root, children are kept in character order
+    private char[] label = new char[1024];
+    private int[] firstChild = new int[1024];
+    private int[] nextSibling = new int[1024];
+    private int[] terminal = new int[1024];
+    private int[] subtreeNames = new int[1024];
+    private int[][] best = new int[1024][];
+    private int nodeCount;
+
+    /**
+     * Complete the table's names, every public constant in PhysicsConstants and the built-in functions
+     */
+    public NameCompleter(SymbolTable variables) {
+        this.variables = variables;
+        newNode('\0');
+        for (ExpressionNode.Op op : ExpressionNode.Op.values()) {
+            if (op.function) {
+                add(op.symbol, Kind.FUNCTION);
+            }
+        }
+        for (Field field : PhysicsConstants.class.getFields()) {
+            if (Modifier.isStatic(field.getModifiers()) && field.getType() == double.class) {
+                add(field.getName(), Kind.CONSTANT);
+            }
+        }
+        sync();
+    }
+
+    /**
+     * Pick up names defined in the symbol table since the last call
+     */
+    public synchronized void sync() {
+        for (; syncedSlots < variables.size(); syncedSlots++) {
+            add(variables.nameOf(syncedSlots), variables.isConstant(syncedSlots) ? Kind.CONSTANT : Kind.VARIABLE);
+        }
+    }
+
+    public synchronized void add(String name, Kind kind) {
+        if (name.isEmpty()) {
+            throw new IllegalArgumentException("Name must not be empty");
+        }
+        int[] path = new int[name.length() + 1];
+        int node = 0;
+        for (int i = 0; i < name.length(); i++) {
+            node = child(node, name.charAt(i), true);
+            path[i + 1] = node;
+        }
+        if (terminal[node] >= 0) {
+            return; // Already known
+        }
+
+        int id = nameCount++;
+        if (id == names.length) {
+            names = Arrays.copyOf(names, id * 2);
+            kinds = Arrays.copyOf(kinds, id * 2);
+            uses = Arrays.copyOf(uses, id * 2);
+        }
+        names[id] = name;
+        kinds[id] = kind;
+        terminal[node] = id;
+        for (int n : path) {
+            subtreeNames[n]++;
+            if (best[n] != null) {
+                offer(n, id);
+            } else if (subtreeNames[n] > CACHE_THRESHOLD) {
+                best[n] = collect(n, MAX_COMPLETIONS);
+            }
+        }
+    }
+
+    /**
+     * Rank a name higher in future completions; unknown names are ignored
+     */
+    public synchronized void recordUse(String name) {
+        int node = 0;
+        int[] path = new int[name.length() + 1];
+        for (int i = 0; i < name.length() && node >= 0; i++) {
+            node = child(node, name.charAt(i), false);
+            path[i + 1] = node;
+        }
+        if (node < 0 || terminal[node] < 0) {
+            return;
+        }
+        int id = terminal[node];
+        uses[id]++;
+        for (int n : path) {
+            if (best[n] != null) {
+                offer(n, id);
+            }
+        }
+    }
+
+    /**
+     * Record a use of every known name in a command
+     */
+    public void recordUses(String command) {
+        for (int end = command.length(); end > 0; ) {
+            int start = wordStart(command, end);
+            if (start < end) {
+                recordUse(command.substring(start, end));
+                end = start;
+            } else {
+                end--;
+            }
+        }
+    }
+
+    /**
+     * @return up to limit names starting with prefix, best first; limit is capped at MAX_COMPLETIONS
+     */
+    public synchronized List<String> complete(String prefix, int limit) {
+        limit = Math.min(limit, MAX_COMPLETIONS);
+        int node = find(prefix);
+        List<String> completions = new ArrayList<>();
+        if (node < 0) {
+            return completions;
+        }
+        int[] ranked = best[node] != null ? best[node] : collect(node, limit);
+        for (int i = 0; i < ranked.length && i < limit; i++) {
+            completions.add(names[ranked[i]]);
+        }
+        return completions;
+    }
+
+    public synchronized Kind kindOf(String name) {
+        int node = find(name);
+        return node < 0 || terminal[node] < 0 ? null : kinds[terminal[node]];
+    }
+
+    public synchronized int size() {
+        return nameCount;
+    }
+
+    /**
+     * Start of the name that ends at the given position, or end if there is none
+     */
+    public static int wordStart(CharSequence text, int end) {
+        int start = end;
+        while (start > 0 && (Character.isLetterOrDigit(text.charAt(start - 1)) || text.charAt(start - 1) == '_')) {
+            start--;
+        }
+        // Names don't start with a digit; skip over a number like 2e5
+        while (start < end && Character.isDigit(text.charAt(start))) {
+            start++;
+        }
+        return start;
+    }
+
+    /**
+     * Extend a prefix as far as every name starting with it agrees
+     */
+    public synchronized String extend(String prefix) {
+        int node = find(prefix);
+        if (node < 0) {
+            return prefix;
+        }
+        StringBuilder extended = new StringBuilder(prefix);
+        while (terminal[node] < 0 && firstChild[node] >= 0 && nextSibling[firstChild[node]] < 0) {
+            node = firstChild[node];
+            extended.append(label[node]);
+        }
+        return extended.toString();
+    }
+
+    /**
+     * Number of names starting with prefix
+     */
+    public synchronized int count(String prefix) {
+        int node = find(prefix);
+        return node < 0 ? 0 : subtreeNames[node];
+    }
+
+    private int find(String prefix) {
+        int node = 0;
+        for (int i = 0; i < prefix.length() && node >= 0; i++) {
+            node = child(node, prefix.charAt(i), false);
+        }
+        return node;
+    }
+
+    /**
+     * Whether name a ranks before name b
+     */
+    private boolean ranksBefore(int a, int b) {
+        if (uses[a] != uses[b]) {
+            return uses[a] > uses[b];
+        }
+        if (names[a].length() != names[b].length()) {
+            return names[a].length() < names[b].length();
+        }
+        return names[a].compareTo(names[b]) < 0;
+    }
+
+    /**
+     * Insert or move a name within a node's cached ranking
+     */
+    private void offer(int node, int id) {
+        int[] ranked = best[node];
+        int length = ranked.length;
+        int at = -1;
+        for (int i = 0; i < length; i++) {
+            if (ranked[i] == id) {
+                at = i;
+                break;
+            }
+        }
+        if (at < 0) {
+            if (length == MAX_COMPLETIONS && !ranksBefore(id, ranked[length - 1])) {
+                return;
+            }
+            if (length < MAX_COMPLETIONS) {
+                ranked = Arrays.copyOf(ranked, length + 1);
+                length++;
+            }
+            at = length - 1;
+        }
+        // Ranks only ever improve, so the name moves towards the front
+        while (at > 0 && ranksBefore(id, ranked[at - 1])) {
+            ranked[at] = ranked[at - 1];
+            at--;
+        }
+        ranked[at] = id;
+        best[node] = ranked;
+    }
+
+    /**
+     * Best names below a node, found by walking its subtree
+     */
+    private int[] collect(int node, int limit) {
+        int[] ranked = new int[limit];
+        int length = 0;
+        int[] stack = new int[64];
+        int top = 0;
+        stack[top++] = node;
+        while (top > 0) {
+            int n = stack[--top];
+            int id = terminal[n];
+            if (id >= 0 && (length < limit || ranksBefore(id, ranked[length - 1]))) {
+                int at = length < limit ? length++ : length - 1;
+                while (at > 0 && ranksBefore(id, ranked[at - 1])) {
+                    ranked[at] = ranked[at - 1];
+                    at--;
+                }
+                ranked[at] = id;
+            }
+            for (int c = firstChild[n]; c >= 0; c = nextSibling[c]) {
+                if (top == stack.length) {
+                    stack = Arrays.copyOf(stack, top * 2);
+                }
+                stack[top++] = c;
+            }
+        }
+        return Arrays.copyOf(ranked, length);
+    }
+
+    /**
+     * Child of a node for a character, optionally creating it in sorted position; -1 if missing
+     */
+    private int child(int node, char c, boolean create) {
+        int previous = -1;
+        int current = firstChild[node];
+        while (current >= 0 && label[current] < c) {
+            previous = current;
+            current = nextSibling[current];
+        }
+        if (current >= 0 && label[current] == c) {
+            return current;
+        }
+        if (!create) {
+            return -1;
+        }
+        int created = newNode(c);
+        nextSibling[created] = current;
+        if (previous < 0) {
+            firstChild[node] = created;
+        } else {
+            nextSibling[previous] = created;
+        }
+        return created;
+    }
+
+    private int newNode(char c) {
+        if (nodeCount == label.length) {
+            int capacity = nodeCount * 2;
+            label = Arrays.copyOf(label, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            nextSibling = Arrays.copyOf(nextSibling, capacity);
+            terminal = Arrays.copyOf(terminal, capacity);
+            subtreeNames = Arrays.copyOf(subtreeNames, capacity);
+            best = Arrays.copyOf(best, capacity);
+        }
+        int node = nodeCount++;
+        label[node] = c;
+        firstChild[node] = -1;
+        nextSibling[node] = -1;
+        terminal[node] = -1;
+        return node;
+    }
+}
@@ -0,0 +1,907 @@
+package com.example;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Parses decimal numbers such as "42", "-0.5" or "500e-9" straight from characters or bytes
+ *
+ * The digits are read into a 64-bit mantissa and a decimal exponent. If the mantissa is
+ * exact in a double and the exponent is within +-22, one correctly rounded multiply or
+ * divide gives the answer. Otherwise the Eisel-Lemire algorithm multiplies the mantissa
+ * by a 128-bit approximation of the power of ten, which settles the rounding for all
+ * but a few inputs. Those inputs, longer than 19 significant digits with the two
+ * possible roundings disagreeing, and anything outside the plain decimal grammar (e.g.
+ * "NaN", hex floats) go to Double.parseDouble. Results always equal Double.parseDouble's.
+ *
+ * Only the fallback allocates.
+ */
+public final class NumberParser {
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private static final int SMALLEST_POWER = -342;
+    private static final int LARGEST_POWER = 308;
+    private static final int MAX_DIGITS = 19;
+
+    // 5^q normalized to 128 bits for q from SMALLEST_POWER, high and low halves interleaved.
+    // Truncated for q >= 0 and rounded up for q < 0, as in Lemire's fast_float; NumberParserTest
+    // computes it with BigInteger and checks every entry
+    static final long[] POWERS_OF_FIVE = {
+        0xEEF453D6923BD65AL, 0x113FAA2906A13B3FL,
+        0x9558B4661B6565F8L, 0x4AC7CA59A424C507L,
+        0xBAAEE17FA23EBF76L, 0x5D79BCF00D2DF649L,
+        0xE95A99DF8ACE6F53L, 0xF4D82C2C107973DCL,
+        0x91D8A02BB6C10594L, 0x79071B9B8A4BE869L,
+        0xB64EC836A47146F9L, 0x9748E2826CDEE284L,
+        0xE3E27A444D8D98B7L, 0xFD1B1B2308169B25L,
+        0x8E6D8C6AB0787F72L, 0xFE30F0F5E50E20F7L,
+        0xB208EF855C969F4FL, 0xBDBD2D335E51A935L,
+        0xDE8B2B66B3BC4723L, 0xAD2C788035E61382L,
+        0x8B16FB203055AC76L, 0x4C3BCB5021AFCC31L,
+        0xADDCB9E83C6B1793L, 0xDF4ABE242A1BBF3DL,
+        0xD953E8624B85DD78L, 0xD71D6DAD34A2AF0DL,
+        0x87D4713D6F33AA6BL, 0x8672648C40E5AD68L,
+        0xA9C98D8CCB009506L, 0x680EFDAF511F18C2L,
+        0xD43BF0EFFDC0BA48L, 0x0212BD1B2566DEF2L,
+        0x84A57695FE98746DL, 0x014BB630F7604B57L,
+        0xA5CED43B7E3E9188L, 0x419EA3BD35385E2DL,
+        0xCF42894A5DCE35EAL, 0x52064CAC828675B9L,
+        0x818995CE7AA0E1B2L, 0x7343EFEBD1940993L,
+        0xA1EBFB4219491A1FL, 0x1014EBE6C5F90BF8L,
+        0xCA66FA129F9B60A6L, 0xD41A26E077774EF6L,
+        0xFD00B897478238D0L, 0x8920B098955522B4L,
+        0x9E20735E8CB16382L, 0x55B46E5F5D5535B0L,
+        0xC5A890362FDDBC62L, 0xEB2189F734AA831DL,
+        0xF712B443BBD52B7BL, 0xA5E9EC7501D523E4L,
+        0x9A6BB0AA55653B2DL, 0x47B233C92125366EL,
+        0xC1069CD4EABE89F8L, 0x999EC0BB696E840AL,
+        0xF148440A256E2C76L, 0xC00670EA43CA250DL,
+        0x96CD2A865764DBCAL, 0x380406926A5E5728L,
+        0xBC807527ED3E12BCL, 0xC605083704F5ECF2L,
+        0xEBA09271E88D976BL, 0xF7864A44C633682EL,
+        0x93445B8731587EA3L, 0x7AB3EE6AFBE0211DL,
+        0xB8157268FDAE9E4CL, 0x5960EA05BAD82964L,
+        0xE61ACF033D1A45DFL, 0x6FB92487298E33BDL,
+        0x8FD0C16206306BABL, 0xA5D3B6D479F8E056L,
+        0xB3C4F1BA87BC8696L, 0x8F48A4899877186CL,
+        0xE0B62E2929ABA83CL, 0x331ACDABFE94DE87L,
+        0x8C71DCD9BA0B4925L, 0x9FF0C08B7F1D0B14L,
+        0xAF8E5410288E1B6FL, 0x07ECF0AE5EE44DD9L,
+        0xDB71E91432B1A24AL, 0xC9E82CD9F69D6150L,
+        0x892731AC9FAF056EL, 0xBE311C083A225CD2L,
+        0xAB70FE17C79AC6CAL, 0x6DBD630A48AAF406L,
+        0xD64D3D9DB981787DL, 0x092CBBCCDAD5B108L,
+        0x85F0468293F0EB4EL, 0x25BBF56008C58EA5L,
+        0xA76C582338ED2621L, 0xAF2AF2B80AF6F24EL,
+        0xD1476E2C07286FAAL, 0x1AF5AF660DB4AEE1L,
+        0x82CCA4DB847945CAL, 0x50D98D9FC890ED4DL,
+        0xA37FCE126597973CL, 0xE50FF107BAB528A0L,
+        0xCC5FC196FEFD7D0CL, 0x1E53ED49A96272C8L,
+        0xFF77B1FCBEBCDC4FL, 0x25E8E89C13BB0F7AL,
+        0x9FAACF3DF73609B1L, 0x77B191618C54E9ACL,
+        0xC795830D75038C1DL, 0xD59DF5B9EF6A2417L,
+        0xF97AE3D0D2446F25L, 0x4B0573286B44AD1DL,
+        0x9BECCE62836AC577L, 0x4EE367F9430AEC32L,
+        0xC2E801FB244576D5L, 0x229C41F793CDA73FL,
+        0xF3A20279ED56D48AL, 0x6B43527578C1110FL,
+        0x9845418C345644D6L, 0x830A13896B78AAA9L,
+        0xBE5691EF416BD60CL, 0x23CC986BC656D553L,
+        0xEDEC366B11C6CB8FL, 0x2CBFBE86B7EC8AA8L,
+        0x94B3A202EB1C3F39L, 0x7BF7D71432F3D6A9L,
+        0xB9E08A83A5E34F07L, 0xDAF5CCD93FB0CC53L,
+        0xE858AD248F5C22C9L, 0xD1B3400F8F9CFF68L,
+        0x91376C36D99995BEL, 0x23100809B9C21FA1L,
+        0xB58547448FFFFB2DL, 0xABD40A0C2832A78AL,
+        0xE2E69915B3FFF9F9L, 0x16C90C8F323F516CL,
+        0x8DD01FAD907FFC3BL, 0xAE3DA7D97F6792E3L,
+        0xB1442798F49FFB4AL, 0x99CD11CFDF41779CL,
+        0xDD95317F31C7FA1DL, 0x40405643D711D583L,
+        0x8A7D3EEF7F1CFC52L, 0x482835EA666B2572L,
+        0xAD1C8EAB5EE43B66L, 0xDA3243650005EECFL,
+        0xD863B256369D4A40L, 0x90BED43E40076A82L,
+        0x873E4F75E2224E68L, 0x5A7744A6E804A291L,
+        0xA90DE3535AAAE202L, 0x711515D0A205CB36L,
+        0xD3515C2831559A83L, 0x0D5A5B44CA873E03L,
+        0x8412D9991ED58091L, 0xE858790AFE9486C2L,
+        0xA5178FFF668AE0B6L, 0x626E974DBE39A872L,
+        0xCE5D73FF402D98E3L, 0xFB0A3D212DC8128FL,
+        0x80FA687F881C7F8EL, 0x7CE66634BC9D0B99L,
+        0xA139029F6A239F72L, 0x1C1FFFC1EBC44E80L,
+        0xC987434744AC874EL, 0xA327FFB266B56220L,
+        0xFBE9141915D7A922L, 0x4BF1FF9F0062BAA8L,
+        0x9D71AC8FADA6C9B5L, 0x6F773FC3603DB4A9L,
+        0xC4CE17B399107C22L, 0xCB550FB4384D21D3L,
+        0xF6019DA07F549B2BL, 0x7E2A53A146606A48L,
+        0x99C102844F94E0FBL, 0x2EDA7444CBFC426DL,
+        0xC0314325637A1939L, 0xFA911155FEFB5308L,
+        0xF03D93EEBC589F88L, 0x793555AB7EBA27CAL,
+        0x96267C7535B763B5L, 0x4BC1558B2F3458DEL,
+        0xBBB01B9283253CA2L, 0x9EB1AAEDFB016F16L,
+        0xEA9C227723EE8BCBL, 0x465E15A979C1CADCL,
+        0x92A1958A7675175FL, 0x0BFACD89EC191EC9L,
+        0xB749FAED14125D36L, 0xCEF980EC671F667BL,
+        0xE51C79A85916F484L, 0x82B7E12780E7401AL,
+        0x8F31CC0937AE58D2L, 0xD1B2ECB8B0908810L,
+        0xB2FE3F0B8599EF07L, 0x861FA7E6DCB4AA15L,
+        0xDFBDCECE67006AC9L, 0x67A791E093E1D49AL,
+        0x8BD6A141006042BDL, 0xE0C8BB2C5C6D24E0L,
+        0xAECC49914078536DL, 0x58FAE9F773886E18L,
+        0xDA7F5BF590966848L, 0xAF39A475506A899EL,
+        0x888F99797A5E012DL, 0x6D8406C952429603L,
+        0xAAB37FD7D8F58178L, 0xC8E5087BA6D33B83L,
+        0xD5605FCDCF32E1D6L, 0xFB1E4A9A90880A64L,
+        0x855C3BE0A17FCD26L, 0x5CF2EEA09A55067FL,
+        0xA6B34AD8C9DFC06FL, 0xF42FAA48C0EA481EL,
+        0xD0601D8EFC57B08BL, 0xF13B94DAF124DA26L,
+        0x823C12795DB6CE57L, 0x76C53D08D6B70858L,
+        0xA2CB1717B52481EDL, 0x54768C4B0C64CA6EL,
+        0xCB7DDCDDA26DA268L, 0xA9942F5DCF7DFD09L,
+        0xFE5D54150B090B02L, 0xD3F93B35435D7C4CL,
+        0x9EFA548D26E5A6E1L, 0xC47BC5014A1A6DAFL,
+        0xC6B8E9B0709F109AL, 0x359AB6419CA1091BL,
+        0xF867241C8CC6D4C0L, 0xC30163D203C94B62L,
+        0x9B407691D7FC44F8L, 0x79E0DE63425DCF1DL,
+        0xC21094364DFB5636L, 0x985915FC12F542E4L,
+        0xF294B943E17A2BC4L, 0x3E6F5B7B17B2939DL,
+        0x979CF3CA6CEC5B5AL, 0xA705992CEECF9C42L,
+        0xBD8430BD08277231L, 0x50C6FF782A838353L,
+        0xECE53CEC4A314EBDL, 0xA4F8BF5635246428L,
+        0x940F4613AE5ED136L, 0x871B7795E136BE99L,
+        0xB913179899F68584L, 0x28E2557B59846E3FL,
+        0xE757DD7EC07426E5L, 0x331AEADA2FE589CFL,
+        0x9096EA6F3848984FL, 0x3FF0D2C85DEF7621L,
+        0xB4BCA50B065ABE63L, 0x0FED077A756B53A9L,
+        0xE1EBCE4DC7F16DFBL, 0xD3E8495912C62894L,
+        0x8D3360F09CF6E4BDL, 0x64712DD7ABBBD95CL,
+        0xB080392CC4349DECL, 0xBD8D794D96AACFB3L,
+        0xDCA04777F541C567L, 0xECF0D7A0FC5583A0L,
+        0x89E42CAAF9491B60L, 0xF41686C49DB57244L,
+        0xAC5D37D5B79B6239L, 0x311C2875C522CED5L,
+        0xD77485CB25823AC7L, 0x7D633293366B828BL,
+        0x86A8D39EF77164BCL, 0xAE5DFF9C02033197L,
+        0xA8530886B54DBDEBL, 0xD9F57F830283FDFCL,
+        0xD267CAA862A12D66L, 0xD072DF63C324FD7BL,
+        0x8380DEA93DA4BC60L, 0x4247CB9E59F71E6DL,
+        0xA46116538D0DEB78L, 0x52D9BE85F074E608L,
+        0xCD795BE870516656L, 0x67902E276C921F8BL,
+        0x806BD9714632DFF6L, 0x00BA1CD8A3DB53B6L,
+        0xA086CFCD97BF97F3L, 0x80E8A40ECCD228A4L,
+        0xC8A883C0FDAF7DF0L, 0x6122CD128006B2CDL,
+        0xFAD2A4B13D1B5D6CL, 0x796B805720085F81L,
+        0x9CC3A6EEC6311A63L, 0xCBE3303674053BB0L,
+        0xC3F490AA77BD60FCL, 0xBEDBFC4411068A9CL,
+        0xF4F1B4D515ACB93BL, 0xEE92FB5515482D44L,
+        0x991711052D8BF3C5L, 0x751BDD152D4D1C4AL,
+        0xBF5CD54678EEF0B6L, 0xD262D45A78A0635DL,
+        0xEF340A98172AACE4L, 0x86FB897116C87C34L,
+        0x9580869F0E7AAC0EL, 0xD45D35E6AE3D4DA0L,
+        0xBAE0A846D2195712L, 0x8974836059CCA109L,
+        0xE998D258869FACD7L, 0x2BD1A438703FC94BL,
+        0x91FF83775423CC06L, 0x7B6306A34627DDCFL,
+        0xB67F6455292CBF08L, 0x1A3BC84C17B1D542L,
+        0xE41F3D6A7377EECAL, 0x20CABA5F1D9E4A93L,
+        0x8E938662882AF53EL, 0x547EB47B7282EE9CL,
+        0xB23867FB2A35B28DL, 0xE99E619A4F23AA43L,
+        0xDEC681F9F4C31F31L, 0x6405FA00E2EC94D4L,
+        0x8B3C113C38F9F37EL, 0xDE83BC408DD3DD04L,
+        0xAE0B158B4738705EL, 0x9624AB50B148D445L,
+        0xD98DDAEE19068C76L, 0x3BADD624DD9B0957L,
+        0x87F8A8D4CFA417C9L, 0xE54CA5D70A80E5D6L,
+        0xA9F6D30A038D1DBCL, 0x5E9FCF4CCD211F4CL,
+        0xD47487CC8470652BL, 0x7647C3200069671FL,
+        0x84C8D4DFD2C63F3BL, 0x29ECD9F40041E073L,
+        0xA5FB0A17C777CF09L, 0xF468107100525890L,
+        0xCF79CC9DB955C2CCL, 0x7182148D4066EEB4L,
+        0x81AC1FE293D599BFL, 0xC6F14CD848405530L,
+        0xA21727DB38CB002FL, 0xB8ADA00E5A506A7CL,
+        0xCA9CF1D206FDC03BL, 0xA6D90811F0E4851CL,
+        0xFD442E4688BD304AL, 0x908F4A166D1DA663L,
+        0x9E4A9CEC15763E2EL, 0x9A598E4E043287FEL,
+        0xC5DD44271AD3CDBAL, 0x40EFF1E1853F29FDL,
+        0xF7549530E188C128L, 0xD12BEE59E68EF47CL,
+        0x9A94DD3E8CF578B9L, 0x82BB74F8301958CEL,
+        0xC13A148E3032D6E7L, 0xE36A52363C1FAF01L,
+        0xF18899B1BC3F8CA1L, 0xDC44E6C3CB279AC1L,
+        0x96F5600F15A7B7E5L, 0x29AB103A5EF8C0B9L,
+        0xBCB2B812DB11A5DEL, 0x7415D448F6B6F0E7L,
+        0xEBDF661791D60F56L, 0x111B495B3464AD21L,
+        0x936B9FCEBB25C995L, 0xCAB10DD900BEEC34L,
+        0xB84687C269EF3BFBL, 0x3D5D514F40EEA742L,
+        0xE65829B3046B0AFAL, 0x0CB4A5A3112A5112L,
+        0x8FF71A0FE2C2E6DCL, 0x47F0E785EABA72ABL,
+        0xB3F4E093DB73A093L, 0x59ED216765690F56L,
+        0xE0F218B8D25088B8L, 0x306869C13EC3532CL,
+        0x8C974F7383725573L, 0x1E414218C73A13FBL,
+        0xAFBD2350644EEACFL, 0xE5D1929EF90898FAL,
+        0xDBAC6C247D62A583L, 0xDF45F746B74ABF39L,
+        0x894BC396CE5DA772L, 0x6B8BBA8C328EB783L,
+        0xAB9EB47C81F5114FL, 0x066EA92F3F326564L,
+        0xD686619BA27255A2L, 0xC80A537B0EFEFEBDL,
+        0x8613FD0145877585L, 0xBD06742CE95F5F36L,
+        0xA798FC4196E952E7L, 0x2C48113823B73704L,
+        0xD17F3B51FCA3A7A0L, 0xF75A15862CA504C5L,
+        0x82EF85133DE648C4L, 0x9A984D73DBE722FBL,
+        0xA3AB66580D5FDAF5L, 0xC13E60D0D2E0EBBAL,
+        0xCC963FEE10B7D1B3L, 0x318DF905079926A8L,
+        0xFFBBCFE994E5C61FL, 0xFDF17746497F7052L,
+        0x9FD561F1FD0F9BD3L, 0xFEB6EA8BEDEFA633L,
+        0xC7CABA6E7C5382C8L, 0xFE64A52EE96B8FC0L,
+        0xF9BD690A1B68637BL, 0x3DFDCE7AA3C673B0L,
+        0x9C1661A651213E2DL, 0x06BEA10CA65C084EL,
+        0xC31BFA0FE5698DB8L, 0x486E494FCFF30A62L,
+        0xF3E2F893DEC3F126L, 0x5A89DBA3C3EFCCFAL,
+        0x986DDB5C6B3A76B7L, 0xF89629465A75E01CL,
+        0xBE89523386091465L, 0xF6BBB397F1135823L,
+        0xEE2BA6C0678B597FL, 0x746AA07DED582E2CL,
+        0x94DB483840B717EFL, 0xA8C2A44EB4571CDCL,
+        0xBA121A4650E4DDEBL, 0x92F34D62616CE413L,
+        0xE896A0D7E51E1566L, 0x77B020BAF9C81D17L,
+        0x915E2486EF32CD60L, 0x0ACE1474DC1D122EL,
+        0xB5B5ADA8AAFF80B8L, 0x0D819992132456BAL,
+        0xE3231912D5BF60E6L, 0x10E1FFF697ED6C69L,
+        0x8DF5EFABC5979C8FL, 0xCA8D3FFA1EF463C1L,
+        0xB1736B96B6FD83B3L, 0xBD308FF8A6B17CB2L,
+        0xDDD0467C64BCE4A0L, 0xAC7CB3F6D05DDBDEL,
+        0x8AA22C0DBEF60EE4L, 0x6BCDF07A423AA96BL,
+        0xAD4AB7112EB3929DL, 0x86C16C98D2C953C6L,
+        0xD89D64D57A607744L, 0xE871C7BF077BA8B7L,
+        0x87625F056C7C4A8BL, 0x11471CD764AD4972L,
+        0xA93AF6C6C79B5D2DL, 0xD598E40D3DD89BCFL,
+        0xD389B47879823479L, 0x4AFF1D108D4EC2C3L,
+        0x843610CB4BF160CBL, 0xCEDF722A585139BAL,
+        0xA54394FE1EEDB8FEL, 0xC2974EB4EE658828L,
+        0xCE947A3DA6A9273EL, 0x733D226229FEEA32L,
+        0x811CCC668829B887L, 0x0806357D5A3F525FL,
+        0xA163FF802A3426A8L, 0xCA07C2DCB0CF26F7L,
+        0xC9BCFF6034C13052L, 0xFC89B393DD02F0B5L,
+        0xFC2C3F3841F17C67L, 0xBBAC2078D443ACE2L,
+        0x9D9BA7832936EDC0L, 0xD54B944B84AA4C0DL,
+        0xC5029163F384A931L, 0x0A9E795E65D4DF11L,
+        0xF64335BCF065D37DL, 0x4D4617B5FF4A16D5L,
+        0x99EA0196163FA42EL, 0x504BCED1BF8E4E45L,
+        0xC06481FB9BCF8D39L, 0xE45EC2862F71E1D6L,
+        0xF07DA27A82C37088L, 0x5D767327BB4E5A4CL,
+        0x964E858C91BA2655L, 0x3A6A07F8D510F86FL,
+        0xBBE226EFB628AFEAL, 0x890489F70A55368BL,
+        0xEADAB0ABA3B2DBE5L, 0x2B45AC74CCEA842EL,
+        0x92C8AE6B464FC96FL, 0x3B0B8BC90012929DL,
+        0xB77ADA0617E3BBCBL, 0x09CE6EBB40173744L,
+        0xE55990879DDCAABDL, 0xCC420A6A101D0515L,
+        0x8F57FA54C2A9EAB6L, 0x9FA946824A12232DL,
+        0xB32DF8E9F3546564L, 0x47939822DC96ABF9L,
+        0xDFF9772470297EBDL, 0x59787E2B93BC56F7L,
+        0x8BFBEA76C619EF36L, 0x57EB4EDB3C55B65AL,
+        0xAEFAE51477A06B03L, 0xEDE622920B6B23F1L,
+        0xDAB99E59958885C4L, 0xE95FAB368E45ECEDL,
+        0x88B402F7FD75539BL, 0x11DBCB0218EBB414L,
+        0xAAE103B5FCD2A881L, 0xD652BDC29F26A119L,
+        0xD59944A37C0752A2L, 0x4BE76D3346F0495FL,
+        0x857FCAE62D8493A5L, 0x6F70A4400C562DDBL,
+        0xA6DFBD9FB8E5B88EL, 0xCB4CCD500F6BB952L,
+        0xD097AD07A71F26B2L, 0x7E2000A41346A7A7L,
+        0x825ECC24C873782FL, 0x8ED400668C0C28C8L,
+        0xA2F67F2DFA90563BL, 0x728900802F0F32FAL,
+        0xCBB41EF979346BCAL, 0x4F2B40A03AD2FFB9L,
+        0xFEA126B7D78186BCL, 0xE2F610C84987BFA8L,
+        0x9F24B832E6B0F436L, 0x0DD9CA7D2DF4D7C9L,
+        0xC6EDE63FA05D3143L, 0x91503D1C79720DBBL,
+        0xF8A95FCF88747D94L, 0x75A44C6397CE912AL,
+        0x9B69DBE1B548CE7CL, 0xC986AFBE3EE11ABAL,
+        0xC24452DA229B021BL, 0xFBE85BADCE996168L,
+        0xF2D56790AB41C2A2L, 0xFAE27299423FB9C3L,
+        0x97C560BA6B0919A5L, 0xDCCD879FC967D41AL,
+        0xBDB6B8E905CB600FL, 0x5400E987BBC1C920L,
+        0xED246723473E3813L, 0x290123E9AAB23B68L,
+        0x9436C0760C86E30BL, 0xF9A0B6720AAF6521L,
+        0xB94470938FA89BCEL, 0xF808E40E8D5B3E69L,
+        0xE7958CB87392C2C2L, 0xB60B1D1230B20E04L,
+        0x90BD77F3483BB9B9L, 0xB1C6F22B5E6F48C2L,
+        0xB4ECD5F01A4AA828L, 0x1E38AEB6360B1AF3L,
+        0xE2280B6C20DD5232L, 0x25C6DA63C38DE1B0L,
+        0x8D590723948A535FL, 0x579C487E5A38AD0EL,
+        0xB0AF48EC79ACE837L, 0x2D835A9DF0C6D851L,
+        0xDCDB1B2798182244L, 0xF8E431456CF88E65L,
+        0x8A08F0F8BF0F156BL, 0x1B8E9ECB641B58FFL,
+        0xAC8B2D36EED2DAC5L, 0xE272467E3D222F3FL,
+        0xD7ADF884AA879177L, 0x5B0ED81DCC6ABB0FL,
+        0x86CCBB52EA94BAEAL, 0x98E947129FC2B4E9L,
+        0xA87FEA27A539E9A5L, 0x3F2398D747B36224L,
+        0xD29FE4B18E88640EL, 0x8EEC7F0D19A03AADL,
+        0x83A3EEEEF9153E89L, 0x1953CF68300424ACL,
+        0xA48CEAAAB75A8E2BL, 0x5FA8C3423C052DD7L,
+        0xCDB02555653131B6L, 0x3792F412CB06794DL,
+        0x808E17555F3EBF11L, 0xE2BBD88BBEE40BD0L,
+        0xA0B19D2AB70E6ED6L, 0x5B6ACEAEAE9D0EC4L,
+        0xC8DE047564D20A8BL, 0xF245825A5A445275L,
+        0xFB158592BE068D2EL, 0xEED6E2F0F0D56712L,
+        0x9CED737BB6C4183DL, 0x55464DD69685606BL,
+        0xC428D05AA4751E4CL, 0xAA97E14C3C26B886L,
+        0xF53304714D9265DFL, 0xD53DD99F4B3066A8L,
+        0x993FE2C6D07B7FABL, 0xE546A8038EFE4029L,
+        0xBF8FDB78849A5F96L, 0xDE98520472BDD033L,
+        0xEF73D256A5C0F77CL, 0x963E66858F6D4440L,
+        0x95A8637627989AADL, 0xDDE7001379A44AA8L,
+        0xBB127C53B17EC159L, 0x5560C018580D5D52L,
+        0xE9D71B689DDE71AFL, 0xAAB8F01E6E10B4A6L,
+        0x9226712162AB070DL, 0xCAB3961304CA70E8L,
+        0xB6B00D69BB55C8D1L, 0x3D607B97C5FD0D22L,
+        0xE45C10C42A2B3B05L, 0x8CB89A7DB77C506AL,
+        0x8EB98A7A9A5B04E3L, 0x77F3608E92ADB242L,
+        0xB267ED1940F1C61CL, 0x55F038B237591ED3L,
+        0xDF01E85F912E37A3L, 0x6B6C46DEC52F6688L,
+        0x8B61313BBABCE2C6L, 0x2323AC4B3B3DA015L,
+        0xAE397D8AA96C1B77L, 0xABEC975E0A0D081AL,
+        0xD9C7DCED53C72255L, 0x96E7BD358C904A21L,
+        0x881CEA14545C7575L, 0x7E50D64177DA2E54L,
+        0xAA242499697392D2L, 0xDDE50BD1D5D0B9E9L,
+        0xD4AD2DBFC3D07787L, 0x955E4EC64B44E864L,
+        0x84EC3C97DA624AB4L, 0xBD5AF13BEF0B113EL,
+        0xA6274BBDD0FADD61L, 0xECB1AD8AEACDD58EL,
+        0xCFB11EAD453994BAL, 0x67DE18EDA5814AF2L,
+        0x81CEB32C4B43FCF4L, 0x80EACF948770CED7L,
+        0xA2425FF75E14FC31L, 0xA1258379A94D028DL,
+        0xCAD2F7F5359A3B3EL, 0x096EE45813A04330L,
+        0xFD87B5F28300CA0DL, 0x8BCA9D6E188853FCL,
+        0x9E74D1B791E07E48L, 0x775EA264CF55347EL,
+        0xC612062576589DDAL, 0x95364AFE032A819EL,
+        0xF79687AED3EEC551L, 0x3A83DDBD83F52205L,
+        0x9ABE14CD44753B52L, 0xC4926A9672793543L,
+        0xC16D9A0095928A27L, 0x75B7053C0F178294L,
+        0xF1C90080BAF72CB1L, 0x5324C68B12DD6339L,
+        0x971DA05074DA7BEEL, 0xD3F6FC16EBCA5E04L,
+        0xBCE5086492111AEAL, 0x88F4BB1CA6BCF585L,
+        0xEC1E4A7DB69561A5L, 0x2B31E9E3D06C32E6L,
+        0x9392EE8E921D5D07L, 0x3AFF322E62439FD0L,
+        0xB877AA3236A4B449L, 0x09BEFEB9FAD487C3L,
+        0xE69594BEC44DE15BL, 0x4C2EBE687989A9B4L,
+        0x901D7CF73AB0ACD9L, 0x0F9D37014BF60A11L,
+        0xB424DC35095CD80FL, 0x538484C19EF38C95L,
+        0xE12E13424BB40E13L, 0x2865A5F206B06FBAL,
+        0x8CBCCC096F5088CBL, 0xF93F87B7442E45D4L,
+        0xAFEBFF0BCB24AAFEL, 0xF78F69A51539D749L,
+        0xDBE6FECEBDEDD5BEL, 0xB573440E5A884D1CL,
+        0x89705F4136B4A597L, 0x31680A88F8953031L,
+        0xABCC77118461CEFCL, 0xFDC20D2B36BA7C3EL,
+        0xD6BF94D5E57A42BCL, 0x3D32907604691B4DL,
+        0x8637BD05AF6C69B5L, 0xA63F9A49C2C1B110L,
+        0xA7C5AC471B478423L, 0x0FCF80DC33721D54L,
+        0xD1B71758E219652BL, 0xD3C36113404EA4A9L,
+        0x83126E978D4FDF3BL, 0x645A1CAC083126EAL,
+        0xA3D70A3D70A3D70AL, 0x3D70A3D70A3D70A4L,
+        0xCCCCCCCCCCCCCCCCL, 0xCCCCCCCCCCCCCCCDL,
+        0x8000000000000000L, 0x0000000000000000L,
+        0xA000000000000000L, 0x0000000000000000L,
+        0xC800000000000000L, 0x0000000000000000L,
+        0xFA00000000000000L, 0x0000000000000000L,
+        0x9C40000000000000L, 0x0000000000000000L,
+        0xC350000000000000L, 0x0000000000000000L,
+        0xF424000000000000L, 0x0000000000000000L,
+        0x9896800000000000L, 0x0000000000000000L,
+        0xBEBC200000000000L, 0x0000000000000000L,
+        0xEE6B280000000000L, 0x0000000000000000L,
+        0x9502F90000000000L, 0x0000000000000000L,
+        0xBA43B74000000000L, 0x0000000000000000L,
+        0xE8D4A51000000000L, 0x0000000000000000L,
+        0x9184E72A00000000L, 0x0000000000000000L,
+        0xB5E620F480000000L, 0x0000000000000000L,
+        0xE35FA931A0000000L, 0x0000000000000000L,
+        0x8E1BC9BF04000000L, 0x0000000000000000L,
+        0xB1A2BC2EC5000000L, 0x0000000000000000L,
+        0xDE0B6B3A76400000L, 0x0000000000000000L,
+        0x8AC7230489E80000L, 0x0000000000000000L,
+        0xAD78EBC5AC620000L, 0x0000000000000000L,
+        0xD8D726B7177A8000L, 0x0000000000000000L,
+        0x878678326EAC9000L, 0x0000000000000000L,
+        0xA968163F0A57B400L, 0x0000000000000000L,
+        0xD3C21BCECCEDA100L, 0x0000000000000000L,
+        0x84595161401484A0L, 0x0000000000000000L,
+        0xA56FA5B99019A5C8L, 0x0000000000000000L,
+        0xCECB8F27F4200F3AL, 0x0000000000000000L,
+        0x813F3978F8940984L, 0x4000000000000000L,
+        0xA18F07D736B90BE5L, 0x5000000000000000L,
+        0xC9F2C9CD04674EDEL, 0xA400000000000000L,
+        0xFC6F7C4045812296L, 0x4D00000000000000L,
+        0x9DC5ADA82B70B59DL, 0xF020000000000000L,
+        0xC5371912364CE305L, 0x6C28000000000000L,
+        0xF684DF56C3E01BC6L, 0xC732000000000000L,
+        0x9A130B963A6C115CL, 0x3C7F400000000000L,
+        0xC097CE7BC90715B3L, 0x4B9F100000000000L,
+        0xF0BDC21ABB48DB20L, 0x1E86D40000000000L,
+        0x96769950B50D88F4L, 0x1314448000000000L,
+        0xBC143FA4E250EB31L, 0x17D955A000000000L,
+        0xEB194F8E1AE525FDL, 0x5DCFAB0800000000L,
+        0x92EFD1B8D0CF37BEL, 0x5AA1CAE500000000L,
+        0xB7ABC627050305ADL, 0xF14A3D9E40000000L,
+        0xE596B7B0C643C719L, 0x6D9CCD05D0000000L,
+        0x8F7E32CE7BEA5C6FL, 0xE4820023A2000000L,
+        0xB35DBF821AE4F38BL, 0xDDA2802C8A800000L,
+        0xE0352F62A19E306EL, 0xD50B2037AD200000L,
+        0x8C213D9DA502DE45L, 0x4526F422CC340000L,
+        0xAF298D050E4395D6L, 0x9670B12B7F410000L,
+        0xDAF3F04651D47B4CL, 0x3C0CDD765F114000L,
+        0x88D8762BF324CD0FL, 0xA5880A69FB6AC800L,
+        0xAB0E93B6EFEE0053L, 0x8EEA0D047A457A00L,
+        0xD5D238A4ABE98068L, 0x72A4904598D6D880L,
+        0x85A36366EB71F041L, 0x47A6DA2B7F864750L,
+        0xA70C3C40A64E6C51L, 0x999090B65F67D924L,
+        0xD0CF4B50CFE20765L, 0xFFF4B4E3F741CF6DL,
+        0x82818F1281ED449FL, 0xBFF8F10E7A8921A4L,
+        0xA321F2D7226895C7L, 0xAFF72D52192B6A0DL,
+        0xCBEA6F8CEB02BB39L, 0x9BF4F8A69F764490L,
+        0xFEE50B7025C36A08L, 0x02F236D04753D5B4L,
+        0x9F4F2726179A2245L, 0x01D762422C946590L,
+        0xC722F0EF9D80AAD6L, 0x424D3AD2B7B97EF5L,
+        0xF8EBAD2B84E0D58BL, 0xD2E0898765A7DEB2L,
+        0x9B934C3B330C8577L, 0x63CC55F49F88EB2FL,
+        0xC2781F49FFCFA6D5L, 0x3CBF6B71C76B25FBL,
+        0xF316271C7FC3908AL, 0x8BEF464E3945EF7AL,
+        0x97EDD871CFDA3A56L, 0x97758BF0E3CBB5ACL,
+        0xBDE94E8E43D0C8ECL, 0x3D52EEED1CBEA317L,
+        0xED63A231D4C4FB27L, 0x4CA7AAA863EE4BDDL,
+        0x945E455F24FB1CF8L, 0x8FE8CAA93E74EF6AL,
+        0xB975D6B6EE39E436L, 0xB3E2FD538E122B44L,
+        0xE7D34C64A9C85D44L, 0x60DBBCA87196B616L,
+        0x90E40FBEEA1D3A4AL, 0xBC8955E946FE31CDL,
+        0xB51D13AEA4A488DDL, 0x6BABAB6398BDBE41L,
+        0xE264589A4DCDAB14L, 0xC696963C7EED2DD1L,
+        0x8D7EB76070A08AECL, 0xFC1E1DE5CF543CA2L,
+        0xB0DE65388CC8ADA8L, 0x3B25A55F43294BCBL,
+        0xDD15FE86AFFAD912L, 0x49EF0EB713F39EBEL,
+        0x8A2DBF142DFCC7ABL, 0x6E3569326C784337L,
+        0xACB92ED9397BF996L, 0x49C2C37F07965404L,
+        0xD7E77A8F87DAF7FBL, 0xDC33745EC97BE906L,
+        0x86F0AC99B4E8DAFDL, 0x69A028BB3DED71A3L,
+        0xA8ACD7C0222311BCL, 0xC40832EA0D68CE0CL,
+        0xD2D80DB02AABD62BL, 0xF50A3FA490C30190L,
+        0x83C7088E1AAB65DBL, 0x792667C6DA79E0FAL,
+        0xA4B8CAB1A1563F52L, 0x577001B891185938L,
+        0xCDE6FD5E09ABCF26L, 0xED4C0226B55E6F86L,
+        0x80B05E5AC60B6178L, 0x544F8158315B05B4L,
+        0xA0DC75F1778E39D6L, 0x696361AE3DB1C721L,
+        0xC913936DD571C84CL, 0x03BC3A19CD1E38E9L,
+        0xFB5878494ACE3A5FL, 0x04AB48A04065C723L,
+        0x9D174B2DCEC0E47BL, 0x62EB0D64283F9C76L,
+        0xC45D1DF942711D9AL, 0x3BA5D0BD324F8394L,
+        0xF5746577930D6500L, 0xCA8F44EC7EE36479L,
+        0x9968BF6ABBE85F20L, 0x7E998B13CF4E1ECBL,
+        0xBFC2EF456AE276E8L, 0x9E3FEDD8C321A67EL,
+        0xEFB3AB16C59B14A2L, 0xC5CFE94EF3EA101EL,
+        0x95D04AEE3B80ECE5L, 0xBBA1F1D158724A12L,
+        0xBB445DA9CA61281FL, 0x2A8A6E45AE8EDC97L,
+        0xEA1575143CF97226L, 0xF52D09D71A3293BDL,
+        0x924D692CA61BE758L, 0x593C2626705F9C56L,
+        0xB6E0C377CFA2E12EL, 0x6F8B2FB00C77836CL,
+        0xE498F455C38B997AL, 0x0B6DFB9C0F956447L,
+        0x8EDF98B59A373FECL, 0x4724BD4189BD5EACL,
+        0xB2977EE300C50FE7L, 0x58EDEC91EC2CB657L,
+        0xDF3D5E9BC0F653E1L, 0x2F2967B66737E3EDL,
+        0x8B865B215899F46CL, 0xBD79E0D20082EE74L,
+        0xAE67F1E9AEC07187L, 0xECD8590680A3AA11L,
+        0xDA01EE641A708DE9L, 0xE80E6F4820CC9495L,
+        0x884134FE908658B2L, 0x3109058D147FDCDDL,
+        0xAA51823E34A7EEDEL, 0xBD4B46F0599FD415L,
+        0xD4E5E2CDC1D1EA96L, 0x6C9E18AC7007C91AL,
+        0x850FADC09923329EL, 0x03E2CF6BC604DDB0L,
+        0xA6539930BF6BFF45L, 0x84DB8346B786151CL,
+        0xCFE87F7CEF46FF16L, 0xE612641865679A63L,
+        0x81F14FAE158C5F6EL, 0x4FCB7E8F3F60C07EL,
+        0xA26DA3999AEF7749L, 0xE3BE5E330F38F09DL,
+        0xCB090C8001AB551CL, 0x5CADF5BFD3072CC5L,
+        0xFDCB4FA002162A63L, 0x73D9732FC7C8F7F6L,
+        0x9E9F11C4014DDA7EL, 0x2867E7FDDCDD9AFAL,
+        0xC646D63501A1511DL, 0xB281E1FD541501B8L,
+        0xF7D88BC24209A565L, 0x1F225A7CA91A4226L,
+        0x9AE757596946075FL, 0x3375788DE9B06958L,
+        0xC1A12D2FC3978937L, 0x0052D6B1641C83AEL,
+        0xF209787BB47D6B84L, 0xC0678C5DBD23A49AL,
+        0x9745EB4D50CE6332L, 0xF840B7BA963646E0L,
+        0xBD176620A501FBFFL, 0xB650E5A93BC3D898L,
+        0xEC5D3FA8CE427AFFL, 0xA3E51F138AB4CEBEL,
+        0x93BA47C980E98CDFL, 0xC66F336C36B10137L,
+        0xB8A8D9BBE123F017L, 0xB80B0047445D4184L,
+        0xE6D3102AD96CEC1DL, 0xA60DC059157491E5L,
+        0x9043EA1AC7E41392L, 0x87C89837AD68DB2FL,
+        0xB454E4A179DD1877L, 0x29BABE4598C311FBL,
+        0xE16A1DC9D8545E94L, 0xF4296DD6FEF3D67AL,
+        0x8CE2529E2734BB1DL, 0x1899E4A65F58660CL,
+        0xB01AE745B101E9E4L, 0x5EC05DCFF72E7F8FL,
+        0xDC21A1171D42645DL, 0x76707543F4FA1F73L,
+        0x899504AE72497EBAL, 0x6A06494A791C53A8L,
+        0xABFA45DA0EDBDE69L, 0x0487DB9D17636892L,
+        0xD6F8D7509292D603L, 0x45A9D2845D3C42B6L,
+        0x865B86925B9BC5C2L, 0x0B8A2392BA45A9B2L,
+        0xA7F26836F282B732L, 0x8E6CAC7768D7141EL,
+        0xD1EF0244AF2364FFL, 0x3207D795430CD926L,
+        0x8335616AED761F1FL, 0x7F44E6BD49E807B8L,
+        0xA402B9C5A8D3A6E7L, 0x5F16206C9C6209A6L,
+        0xCD036837130890A1L, 0x36DBA887C37A8C0FL,
+        0x802221226BE55A64L, 0xC2494954DA2C9789L,
+        0xA02AA96B06DEB0FDL, 0xF2DB9BAA10B7BD6CL,
+        0xC83553C5C8965D3DL, 0x6F92829494E5ACC7L,
+        0xFA42A8B73ABBF48CL, 0xCB772339BA1F17F9L,
+        0x9C69A97284B578D7L, 0xFF2A760414536EFBL,
+        0xC38413CF25E2D70DL, 0xFEF5138519684ABAL,
+        0xF46518C2EF5B8CD1L, 0x7EB258665FC25D69L,
+        0x98BF2F79D5993802L, 0xEF2F773FFBD97A61L,
+        0xBEEEFB584AFF8603L, 0xAAFB550FFACFD8FAL,
+        0xEEAABA2E5DBF6784L, 0x95BA2A53F983CF38L,
+        0x952AB45CFA97A0B2L, 0xDD945A747BF26183L,
+        0xBA756174393D88DFL, 0x94F971119AEEF9E4L,
+        0xE912B9D1478CEB17L, 0x7A37CD5601AAB85DL,
+        0x91ABB422CCB812EEL, 0xAC62E055C10AB33AL,
+        0xB616A12B7FE617AAL, 0x577B986B314D6009L,
+        0xE39C49765FDF9D94L, 0xED5A7E85FDA0B80BL,
+        0x8E41ADE9FBEBC27DL, 0x14588F13BE847307L,
+        0xB1D219647AE6B31CL, 0x596EB2D8AE258FC8L,
+        0xDE469FBD99A05FE3L, 0x6FCA5F8ED9AEF3BBL,
+        0x8AEC23D680043BEEL, 0x25DE7BB9480D5854L,
+        0xADA72CCC20054AE9L, 0xAF561AA79A10AE6AL,
+        0xD910F7FF28069DA4L, 0x1B2BA1518094DA04L,
+        0x87AA9AFF79042286L, 0x90FB44D2F05D0842L,
+        0xA99541BF57452B28L, 0x353A1607AC744A53L,
+        0xD3FA922F2D1675F2L, 0x42889B8997915CE8L,
+        0x847C9B5D7C2E09B7L, 0x69956135FEBADA11L,
+        0xA59BC234DB398C25L, 0x43FAB9837E699095L,
+        0xCF02B2C21207EF2EL, 0x94F967E45E03F4BBL,
+        0x8161AFB94B44F57DL, 0x1D1BE0EEBAC278F5L,
+        0xA1BA1BA79E1632DCL, 0x6462D92A69731732L,
+        0xCA28A291859BBF93L, 0x7D7B8F7503CFDCFEL,
+        0xFCB2CB35E702AF78L, 0x5CDA735244C3D43EL,
+        0x9DEFBF01B061ADABL, 0x3A0888136AFA64A7L,
+        0xC56BAEC21C7A1916L, 0x088AAA1845B8FDD0L,
+        0xF6C69A72A3989F5BL, 0x8AAD549E57273D45L,
+        0x9A3C2087A63F6399L, 0x36AC54E2F678864BL,
+        0xC0CB28A98FCF3C7FL, 0x84576A1BB416A7DDL,
+        0xF0FDF2D3F3C30B9FL, 0x656D44A2A11C51D5L,
+        0x969EB7C47859E743L, 0x9F644AE5A4B1B325L,
+        0xBC4665B596706114L, 0x873D5D9F0DDE1FEEL,
+        0xEB57FF22FC0C7959L, 0xA90CB506D155A7EAL,
+        0x9316FF75DD87CBD8L, 0x09A7F12442D588F2L,
+        0xB7DCBF5354E9BECEL, 0x0C11ED6D538AEB2FL,
+        0xE5D3EF282A242E81L, 0x8F1668C8A86DA5FAL,
+        0x8FA475791A569D10L, 0xF96E017D694487BCL,
+        0xB38D92D760EC4455L, 0x37C981DCC395A9ACL,
+        0xE070F78D3927556AL, 0x85BBE253F47B1417L,
+        0x8C469AB843B89562L, 0x93956D7478CCEC8EL,
+        0xAF58416654A6BABBL, 0x387AC8D1970027B2L,
+        0xDB2E51BFE9D0696AL, 0x06997B05FCC0319EL,
+        0x88FCF317F22241E2L, 0x441FECE3BDF81F03L,
+        0xAB3C2FDDEEAAD25AL, 0xD527E81CAD7626C3L,
+        0xD60B3BD56A5586F1L, 0x8A71E223D8D3B074L,
+        0x85C7056562757456L, 0xF6872D5667844E49L,
+        0xA738C6BEBB12D16CL, 0xB428F8AC016561DBL,
+        0xD106F86E69D785C7L, 0xE13336D701BEBA52L,
+        0x82A45B450226B39CL, 0xECC0024661173473L,
+        0xA34D721642B06084L, 0x27F002D7F95D0190L,
+        0xCC20CE9BD35C78A5L, 0x31EC038DF7B441F4L,
+        0xFF290242C83396CEL, 0x7E67047175A15271L,
+        0x9F79A169BD203E41L, 0x0F0062C6E984D386L,
+        0xC75809C42C684DD1L, 0x52C07B78A3E60868L,
+        0xF92E0C3537826145L, 0xA7709A56CCDF8A82L,
+        0x9BBCC7A142B17CCBL, 0x88A66076400BB691L,
+        0xC2ABF989935DDBFEL, 0x6ACFF893D00EA435L,
+        0xF356F7EBF83552FEL, 0x0583F6B8C4124D43L,
+        0x98165AF37B2153DEL, 0xC3727A337A8B704AL,
+        0xBE1BF1B059E9A8D6L, 0x744F18C0592E4C5CL,
+        0xEDA2EE1C7064130CL, 0x1162DEF06F79DF73L,
+        0x9485D4D1C63E8BE7L, 0x8ADDCB5645AC2BA8L,
+        0xB9A74A0637CE2EE1L, 0x6D953E2BD7173692L,
+        0xE8111C87C5C1BA99L, 0xC8FA8DB6CCDD0437L,
+        0x910AB1D4DB9914A0L, 0x1D9C9892400A22A2L,
+        0xB54D5E4A127F59C8L, 0x2503BEB6D00CAB4BL,
+        0xE2A0B5DC971F303AL, 0x2E44AE64840FD61DL,
+        0x8DA471A9DE737E24L, 0x5CEAECFED289E5D2L,
+        0xB10D8E1456105DADL, 0x7425A83E872C5F47L,
+        0xDD50F1996B947518L, 0xD12F124E28F77719L,
+        0x8A5296FFE33CC92FL, 0x82BD6B70D99AAA6FL,
+        0xACE73CBFDC0BFB7BL, 0x636CC64D1001550BL,
+        0xD8210BEFD30EFA5AL, 0x3C47F7E05401AA4EL,
+        0x8714A775E3E95C78L, 0x65ACFAEC34810A71L,
+        0xA8D9D1535CE3B396L, 0x7F1839A741A14D0DL,
+        0xD31045A8341CA07CL, 0x1EDE48111209A050L,
+        0x83EA2B892091E44DL, 0x934AED0AAB460432L,
+        0xA4E4B66B68B65D60L, 0xF81DA84D5617853FL,
+        0xCE1DE40642E3F4B9L, 0x36251260AB9D668EL,
+        0x80D2AE83E9CE78F3L, 0xC1D72B7C6B426019L,
+        0xA1075A24E4421730L, 0xB24CF65B8612F81FL,
+        0xC94930AE1D529CFCL, 0xDEE033F26797B627L,
+        0xFB9B7CD9A4A7443CL, 0x169840EF017DA3B1L,
+        0x9D412E0806E88AA5L, 0x8E1F289560EE864EL,
+        0xC491798A08A2AD4EL, 0xF1A6F2BAB92A27E2L,
+        0xF5B5D7EC8ACB58A2L, 0xAE10AF696774B1DBL,
+        0x9991A6F3D6BF1765L, 0xACCA6DA1E0A8EF29L,
+        0xBFF610B0CC6EDD3FL, 0x17FD090A58D32AF3L,
+        0xEFF394DCFF8A948EL, 0xDDFC4B4CEF07F5B0L,
+        0x95F83D0A1FB69CD9L, 0x4ABDAF101564F98EL,
+        0xBB764C4CA7A4440FL, 0x9D6D1AD41ABE37F1L,
+        0xEA53DF5FD18D5513L, 0x84C86189216DC5EDL,
+        0x92746B9BE2F8552CL, 0x32FD3CF5B4E49BB4L,
+        0xB7118682DBB66A77L, 0x3FBC8C33221DC2A1L,
+        0xE4D5E82392A40515L, 0x0FABAF3FEAA5334AL,
+        0x8F05B1163BA6832DL, 0x29CB4D87F2A7400EL,
+        0xB2C71D5BCA9023F8L, 0x743E20E9EF511012L,
+        0xDF78E4B2BD342CF6L, 0x914DA9246B255416L,
+        0x8BAB8EEFB6409C1AL, 0x1AD089B6C2F7548EL,
+        0xAE9672ABA3D0C320L, 0xA184AC2473B529B1L,
+        0xDA3C0F568CC4F3E8L, 0xC9E5D72D90A2741EL,
+        0x8865899617FB1871L, 0x7E2FA67C7A658892L,
+        0xAA7EEBFB9DF9DE8DL, 0xDDBB901B98FEEAB7L,
+        0xD51EA6FA85785631L, 0x552A74227F3EA565L,
+        0x8533285C936B35DEL, 0xD53A88958F87275FL,
+        0xA67FF273B8460356L, 0x8A892ABAF368F137L,
+        0xD01FEF10A657842CL, 0x2D2B7569B0432D85L,
+        0x8213F56A67F6B29BL, 0x9C3B29620E29FC73L,
+        0xA298F2C501F45F42L, 0x8349F3BA91B47B8FL,
+        0xCB3F2F7642717713L, 0x241C70A936219A73L,
+        0xFE0EFB53D30DD4D7L, 0xED238CD383AA0110L,
+        0x9EC95D1463E8A506L, 0xF4363804324A40AAL,
+        0xC67BB4597CE2CE48L, 0xB143C6053EDCD0D5L,
+        0xF81AA16FDC1B81DAL, 0xDD94B7868E94050AL,
+        0x9B10A4E5E9913128L, 0xCA7CF2B4191C8326L,
+        0xC1D4CE1F63F57D72L, 0xFD1C2F611F63A3F0L,
+        0xF24A01A73CF2DCCFL, 0xBC633B39673C8CECL,
+        0x976E41088617CA01L, 0xD5BE0503E085D813L,
+        0xBD49D14AA79DBC82L, 0x4B2D8644D8A74E18L,
+        0xEC9C459D51852BA2L, 0xDDF8E7D60ED1219EL,
+        0x93E1AB8252F33B45L, 0xCABB90E5C942B503L,
+        0xB8DA1662E7B00A17L, 0x3D6A751F3B936243L,
+        0xE7109BFBA19C0C9DL, 0x0CC512670A783AD4L,
+        0x906A617D450187E2L, 0x27FB2B80668B24C5L,
+        0xB484F9DC9641E9DAL, 0xB1F9F660802DEDF6L,
+        0xE1A63853BBD26451L, 0x5E7873F8A0396973L,
+        0x8D07E33455637EB2L, 0xDB0B487B6423E1E8L,
+        0xB049DC016ABC5E5FL, 0x91CE1A9A3D2CDA62L,
+        0xDC5C5301C56B75F7L, 0x7641A140CC7810FBL,
+        0x89B9B3E11B6329BAL, 0xA9E904C87FCB0A9DL,
+        0xAC2820D9623BF429L, 0x546345FA9FBDCD44L,
+        0xD732290FBACAF133L, 0xA97C177947AD4095L,
+        0x867F59A9D4BED6C0L, 0x49ED8EABCCCC485DL,
+        0xA81F301449EE8C70L, 0x5C68F256BFFF5A74L,
+        0xD226FC195C6A2F8CL, 0x73832EEC6FFF3111L,
+        0x83585D8FD9C25DB7L, 0xC831FD53C5FF7EABL,
+        0xA42E74F3D032F525L, 0xBA3E7CA8B77F5E55L,
+        0xCD3A1230C43FB26FL, 0x28CE1BD2E55F35EBL,
+        0x80444B5E7AA7CF85L, 0x7980D163CF5B81B3L,
+        0xA0555E361951C366L, 0xD7E105BCC332621FL,
+        0xC86AB5C39FA63440L, 0x8DD9472BF3FEFAA7L,
+        0xFA856334878FC150L, 0xB14F98F6F0FEB951L,
+        0x9C935E00D4B9D8D2L, 0x6ED1BF9A569F33D3L,
+        0xC3B8358109E84F07L, 0x0A862F80EC4700C8L,
+        0xF4A642E14C6262C8L, 0xCD27BB612758C0FAL,
+        0x98E7E9CCCFBD7DBDL, 0x8038D51CB897789CL,
+        0xBF21E44003ACDD2CL, 0xE0470A63E6BD56C3L,
+        0xEEEA5D5004981478L, 0x1858CCFCE06CAC74L,
+        0x95527A5202DF0CCBL, 0x0F37801E0C43EBC8L,
+        0xBAA718E68396CFFDL, 0xD30560258F54E6BAL,
+        0xE950DF20247C83FDL, 0x47C6B82EF32A2069L,
+        0x91D28B7416CDD27EL, 0x4CDC331D57FA5441L,
+        0xB6472E511C81471DL, 0xE0133FE4ADF8E952L,
+        0xE3D8F9E563A198E5L, 0x58180FDDD97723A6L,
+        0x8E679C2F5E44FF8FL, 0x570F09EAA7EA7648L
+    };
+
+    private NumberParser() {
+    }
+
+    /**
+     * Parse the whole of text
+     * @throws NumberFormatException if text is not a number
+     */
+    public static double parse(CharSequence text) {
+        return parse(text, 0, text.length());
+    }
+
+    /**
+     * Parse the characters [from, to) of text
+     * @throws NumberFormatException if the range is not a number
+     */
+    public static double parse(CharSequence text, int from, int to) {
+        int i = from;
+        boolean negative = i < to && text.charAt(i) == '-';
+        if (i < to && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean anyDigit = false;
+        boolean truncated = false;
+        for (boolean fraction = false; i < to; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                anyDigit = true;
+                if (digits < MAX_DIGITS) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    if (mantissa != 0) {
+                        digits++;
+                    }
+                    if (fraction) {
+                        exponent--;
+                    }
+                } else {
+                    truncated |= c != '0';
+                    if (!fraction) {
+                        exponent++;
+                    }
+                }
+            } else if (c == '.' && !fraction) {
+                fraction = true;
+            } else {
+                break;
+            }
+        }
+        if (anyDigit && i < to && (text.charAt(i) == 'e' || text.charAt(i) == 'E')) {
+            i++;
+            boolean negativeExponent = i < to && text.charAt(i) == '-';
+            if (i < to && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+                i++;
+            }
+            int start = i;
+            int value = 0;
+            for (; i < to && text.charAt(i) >= '0' && text.charAt(i) <= '9'; i++) {
+                value = Math.min(value * 10 + (text.charAt(i) - '0'), 100_000);
+            }
+            if (i == start) {
+                anyDigit = false; // Missing exponent digits; let the fallback reject it
+            }
+            exponent += negativeExponent ? -value : value;
+        }
+
+        double value = anyDigit && i == to ? toDouble(negative, mantissa, exponent, truncated) : Double.NaN;
+        return Double.isNaN(value) ? Double.parseDouble(text.subSequence(from, to).toString()) : value;
+    }
+
+    /**
+     * Parse the bytes [from, to) of buffer, read as ASCII with absolute gets
+     * @throws NumberFormatException if the range is not a number
+     */
+    public static double parse(ByteBuffer buffer, int from, int to) {
+        int i = from;
+        boolean negative = i < to && buffer.get(i) == '-';
+        if (i < to && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean anyDigit = false;
+        boolean truncated = false;
+        for (boolean fraction = false; i < to; i++) {
+            byte c = buffer.get(i);
+            if (c >= '0' && c <= '9') {
+                anyDigit = true;
+                if (digits < MAX_DIGITS) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    if (mantissa != 0) {
+                        digits++;
+                    }
+                    if (fraction) {
+                        exponent--;
+                    }
+                } else {
+                    truncated |= c != '0';
+                    if (!fraction) {
+                        exponent++;
+                    }
+                }
+            } else if (c == '.' && !fraction) {
+                fraction = true;
+            } else {
+                break;
+            }
+        }
+        if (anyDigit && i < to && (buffer.get(i) == 'e' || buffer.get(i) == 'E')) {
+            i++;
+            boolean negativeExponent = i < to && buffer.get(i) == '-';
+            if (i < to && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+                i++;
+            }
+            int start = i;
+            int value = 0;
+            for (; i < to && buffer.get(i) >= '0' && buffer.get(i) <= '9'; i++) {
+                value = Math.min(value * 10 + (buffer.get(i) - '0'), 100_000);
+            }
+            if (i == start) {
+                anyDigit = false;
+            }
+            exponent += negativeExponent ? -value : value;
+        }
+
+        double value = anyDigit && i == to ? toDouble(negative, mantissa, exponent, truncated) : Double.NaN;
+        if (!Double.isNaN(value)) {
+            return value;
+        }
+        byte[] bytes = new byte[to - from];
+        buffer.get(from, bytes);
+        return Double.parseDouble(new String(bytes, StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * mantissa * 10^exponent, correctly rounded, or NaN if it can't be settled here
+     * @param truncated whether non-zero digits were dropped after the mantissa's last one
+     */
+    static double toDouble(boolean negative, long mantissa, int exponent, boolean truncated) {
+        if (mantissa == 0) {
+            return negative ? -0.0 : 0.0;
+        }
+        double value;
+        // Nineteen digits may exceed Long.MAX_VALUE; the mantissa is unsigned from here on
+        if (!truncated && (mantissa >>> 53) == 0 && Math.abs(exponent) < POWERS_OF_TEN.length) {
+            value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+        } else {
+            value = eiselLemire(mantissa, exponent);
+            // The dropped digits put the number between mantissa and mantissa + 1
+            if (truncated && !Double.isNaN(value) && value != eiselLemire(mantissa + 1, exponent)) {
+                value = Double.NaN;
+            }
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Correctly rounded w * 10^q for w > 0, or NaN when the product is too close to call
+     */
+    private static double eiselLemire(long w, int q) {
+        if (q < SMALLEST_POWER) {
+            return 0.0;
+        }
+        if (q > LARGEST_POWER) {
+            return Double.POSITIVE_INFINITY;
+        }
+        int lz = Long.numberOfLeadingZeros(w);
+        w <<= lz;
+        long powerHigh = POWERS_OF_FIVE[(q - SMALLEST_POWER) << 1];
+        long powerLow = POWERS_OF_FIVE[(q - SMALLEST_POWER) << 1 | 1];
+
+        // Top 128 bits of w * 5^q; the low half of the power only matters near a carry
+        long low = w * powerHigh;
+        long high = unsignedMultiplyHigh(w, powerHigh);
+        if ((high & 0x1FF) == 0x1FF) {
+            long carry = unsignedMultiplyHigh(w, powerLow);
+            low += carry;
+            if (Long.compareUnsigned(carry, low) > 0) {
+                high++;
+            }
+        }
+        if (low == -1L && (q < -27 || q > 55)) {
+            return Double.NaN; // Too close to call
+        }
+
+        int upperBit = (int) (high >>> 63);
+        long mantissa = high >>> (upperBit + 9);
+        int power2 = (int) (((152_170L + 65_536L) * q) >> 16) + 63 + upperBit - lz + 1023;
+        if (power2 <= 0) {
+            // Subnormal
+            if (-power2 + 1 >= 64) {
+                return 0.0;
+            }
+            mantissa >>>= -power2 + 1;
+            mantissa += mantissa & 1;
+            mantissa >>>= 1;
+            power2 = mantissa < (1L << 52) ? 0 : 1;
+            return Double.longBitsToDouble((mantissa & ((1L << 52) - 1)) | ((long) power2 << 52));
+        }
+        // An exact tie halfway between two doubles rounds to even
+        if (Long.compareUnsigned(low, 1) <= 0 && q >= -4 && q <= 23 && (mantissa & 3) == 1
+                && (mantissa << (upperBit + 9)) == high) {
+            mantissa &= ~1L;
+        }
+        mantissa += mantissa & 1;
+        mantissa >>>= 1;
+        if (mantissa >= (2L << 52)) {
+            mantissa = 1L << 52;
+            power2++;
+        }
+        if (power2 >= 0x7FF) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return Double.longBitsToDouble((mantissa & ((1L << 52) - 1)) | ((long) power2 << 52));
+    }
+
+    private static long unsignedMultiplyHigh(long x, long y) {
+        return Math.multiplyHigh(x, y) + ((x >> 63) & y) + ((y >> 63) & x);
+    }
+}
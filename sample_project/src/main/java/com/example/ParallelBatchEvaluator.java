@@ -0,0 +1,117 @@
+package com.example;
+
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Evaluates an expression over large input columns on a ForkJoinPool
+ *
+ * The row range is split recursively until a piece fits the cache budget; idle workers
+ * steal the remaining halves. Every piece writes its own range of the caller's output
+ * array, so nothing is allocated per row and no merging is needed.
+ */
+public class ParallelBatchEvaluator {
+    /** Bytes of input and output touched by one leaf task; roughly an L2 cache */
+    public static final int DEFAULT_CHUNK_BYTES = 256 * 1024;
+
+    private final BatchEvaluator batch;
+    private final String[] inputs;
+    private final ForkJoinPool pool;
+    private final int grain;
+
+    /**
+     * COMPILED mode on the common pool
+     */
+    public ParallelBatchEvaluator(Expression expression, String... inputs) {
+        this(expression, BatchEvaluator.Mode.COMPILED, ForkJoinPool.commonPool(), inputs);
+    }
+
+    /**
+     * @param inputs names of the variables supplied as columns, in column order
+     */
+    public ParallelBatchEvaluator(Expression expression, BatchEvaluator.Mode mode, ForkJoinPool pool, String... inputs) {
+        this.batch = new BatchEvaluator(expression, mode, inputs);
+        this.inputs = inputs.clone();
+        this.pool = pool;
+
+        // Whole column chunks, sized so inputs plus output stay within the budget
+        int bytesPerRow = Double.BYTES * (inputs.length + 1);
+        int rows = Math.max(ColumnProgram.CHUNK, DEFAULT_CHUNK_BYTES / bytesPerRow);
+        this.grain = rows / ColumnProgram.CHUNK * ColumnProgram.CHUNK;
+    }
+
+    /**
+     * Evaluate an expression over named columns in one call
+     * @param columns input values by variable name; all columns must have at least out.length rows
+     */
+    public static void evaluate(Expression expression, Map<String, double[]> columns, double[] out) {
+        new ParallelBatchEvaluator(expression, columns.keySet().toArray(new String[0])).evaluate(columns, out);
+    }
+
+    public BatchEvaluator getBatchEvaluator() {
+        return batch;
+    }
+
+    /**
+     * Rows handled by one leaf task
+     */
+    public int getGrain() {
+        return grain;
+    }
+
+    /**
+     * @param columns input values by variable name
+     * @throws IllegalArgumentException if an input column is missing
+     */
+    public void evaluate(Map<String, double[]> columns, double[] out) {
+        double[][] ordered = new double[inputs.length][];
+        for (int i = 0; i < inputs.length; i++) {
+            ordered[i] = columns.get(inputs[i]);
+            if (ordered[i] == null) {
+                throw new IllegalArgumentException("Missing input column: " + inputs[i]);
+            }
+        }
+        evaluate(ordered, out);
+    }
+
+    /**
+     * @param columns input values, one array per input in constructor order
+     * @param out receives one result per row; its length is the row count
+     */
+    public void evaluate(double[][] columns, double[] out) {
+        // Validate once up front so a bad column fails fast instead of inside a worker
+        batch.evaluate(columns, out, 0, 0);
+        pool.invoke(new RangeTask(columns, out, 0, out.length));
+    }
+
+    private class RangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final double[][] columns;
+        private final double[] out;
+        private final int from;
+        private final int to;
+
+        RangeTask(double[][] columns, double[] out, int from, int to) {
+            this.columns = columns;
+            this.out = out;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                batch.evaluate(columns, out, from, to);
+                return;
+            }
+            // Split on a chunk boundary so columnar chunks stay aligned
+            int middle = from + (to - from) / 2 / ColumnProgram.CHUNK * ColumnProgram.CHUNK;
+            if (middle == from) {
+                middle = from + ColumnProgram.CHUNK;
+            }
+            invokeAll(new RangeTask(columns, out, from, middle), new RangeTask(columns, out, middle, to));
+        }
+    }
+}
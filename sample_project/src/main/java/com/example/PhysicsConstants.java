@@ -1,5 +1,8 @@
 package com.example;
 
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
 /**
  * Comprehensive Physics Constants Library
  * Contains fundamental constants, derived constants, and conversion factors
@@ -312,6 +315,23 @@ public class PhysicsConstants {
         return 2 * G * mass / (c * c);
     }
     
+    /**
+     * Define every public double constant of this class in a symbol table, plus pi and E
+     */
+    public static void defineAll(SymbolTable symbols) {
+        for (Field field : PhysicsConstants.class.getFields()) {
+            if (Modifier.isStatic(field.getModifiers()) && field.getType() == double.class) {
+                try {
+                    symbols.defineConstant(field.getName(), field.getDouble(null));
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+        symbols.defineConstant("pi", Math.PI);
+        symbols.defineConstant("E", Math.E);
+    }
+    
     /**
      * Get all constants as a formatted string
      */
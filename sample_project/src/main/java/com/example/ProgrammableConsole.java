@@ -1,5 +1,8 @@
 package com.example;
 
+import com.example.engine.Engine;
+import com.example.engine.EvaluationContext;
+
 import javax.swing.*;
 import javax.swing.text.*;
 import java.awt.*;
@@ -7,34 +10,82 @@ import java.awt.event.*;
 import java.io.*;
 import java.util.*;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Advanced Programmable Console for Scientific Computing
  * Supports Java expressions, Python script execution, and physics calculations
+ * Expressions are evaluated by an Engine, in one EvaluationContext owned by the command thread
+ *
+ * Commands run one at a time on a background thread so the window stays responsive;
+ * Ctrl+C in the input field or the per-command timeout stops the running command.
  */
 public class ProgrammableConsole extends JFrame {
+    public static final long DEFAULT_TIMEOUT_SECONDS = Long.getLong("calculator.timeout", 60);
+    private static final int HISTORY_RECALL = 10_000;
+
     private JTextArea consoleArea;
+    private ConsoleOutput consoleOutput;
     private JTextField inputField;
     private JScrollPane scrollPane;
+    private JProgressBar busyIndicator;
     private Calculator calculator;
     private PhysicsConstants physics;
-    private List<String> commandHistory;
+    private HistoryIndex commandHistory;
     private int historyIndex;
-    private Map<String, Double> variables;
-    private boolean pythonMode;
+    private String historyPrefix;
+    private JLabel promptLabel;
+
+    // Ctrl+R reverse search state; searchQuery is null when not searching
+    private String searchQuery;
+    private int searchMatch;
+    private String searchOriginal;
+    private Engine engine;
+    private EvaluationContext session;
+    private volatile boolean pythonMode;
+    private PythonWorkerPool pythonWorkers;
+    private SharedArrayStore sharedArrays;
+    private HistoryLog historyLog;
+    private NameCompleter completer;
+
+    // Background command execution
+    private final ExecutorService commandExecutor = Executors.newSingleThreadExecutor(daemon("console-command"));
+    private final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(daemon("console-watchdog"));
+    private final AtomicInteger pendingCommands = new AtomicInteger();
+    private final AtomicLong commandCounter = new AtomicLong();
+    // Guards runningCommand changes against an interrupt aimed at the command that is finishing
+    private final Object commandLock = new Object();
+    private volatile long runningCommand;
+    private volatile Thread commandThread;
+    private volatile boolean pythonRunning;
+    private volatile String interruption;
+    private volatile long timeoutSeconds = DEFAULT_TIMEOUT_SECONDS;
 
     public ProgrammableConsole() {
         calculator = new Calculator();
         physics = new PhysicsConstants();
-        commandHistory = new ArrayList<>();
-        historyIndex = -1;
-        variables = new HashMap<>();
+        commandHistory = new HistoryIndex();
+        try {
+            historyLog = HistoryLog.openDefault();
+            commandHistory.addAll(historyLog.recent(HistoryLog.CONSOLE, HISTORY_RECALL));
+        } catch (IOException e) {
+            System.err.println("History is not saved: " + e.getMessage());
+        }
+        historyIndex = commandHistory.size();
+        engine = new Engine();
+        session = engine.newContext();
         pythonMode = false;
         
         initializeConsole();
-        setupPhysicsConstants();
+        completer = new NameCompleter(session.getSymbols());
         showWelcomeMessage();
     }
 
@@ -54,6 +105,7 @@ public class ProgrammableConsole extends JFrame {
         consoleArea.setBackground(new Color(20, 20, 20));
         consoleArea.setForeground(new Color(0, 255, 0));
         consoleArea.setCaretColor(new Color(0, 255, 0));
+        consoleOutput = new ConsoleOutput(consoleArea);
 
         scrollPane = new JScrollPane(consoleArea);
         scrollPane.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_ALWAYS);
@@ -63,7 +115,7 @@ public class ProgrammableConsole extends JFrame {
         JPanel inputPanel = new JPanel(new BorderLayout());
         inputPanel.setBackground(new Color(20, 20, 20));
 
-        JLabel promptLabel = new JLabel(">>> ");
+        promptLabel = new JLabel(">>> ");
         promptLabel.setFont(new Font("Monospaced", Font.BOLD, 14));
         promptLabel.setForeground(new Color(0, 255, 255));
         inputPanel.add(promptLabel, BorderLayout.WEST);
@@ -75,14 +127,33 @@ public class ProgrammableConsole extends JFrame {
         inputField.setCaretColor(Color.WHITE);
         inputField.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
         inputField.addActionListener(this::processCommand);
+        inputField.setFocusTraversalKeysEnabled(false); // Tab completes names
         inputField.addKeyListener(new KeyAdapter() {
             @Override
             public void keyPressed(KeyEvent e) {
                 handleKeyPress(e);
             }
+
+            @Override
+            public void keyTyped(KeyEvent e) {
+                if (searchQuery != null) {
+                    char c = e.getKeyChar();
+                    if (!Character.isISOControl(c) && !e.isControlDown()) {
+                        updateSearch(searchQuery + c, commandHistory.size());
+                    }
+                    e.consume();
+                }
+            }
         });
         inputPanel.add(inputField, BorderLayout.CENTER);
 
+        busyIndicator = new JProgressBar();
+        busyIndicator.setIndeterminate(true);
+        busyIndicator.setStringPainted(true);
+        busyIndicator.setString("Running... Ctrl+C to cancel");
+        busyIndicator.setVisible(false);
+        inputPanel.add(busyIndicator, BorderLayout.EAST);
+
         add(inputPanel, BorderLayout.SOUTH);
 
         // Create menu bar
@@ -139,7 +210,10 @@ public class ProgrammableConsole extends JFrame {
         commands.addActionListener(e -> showCommands());
         constants.addActionListener(e -> showConstants());
         examples.addActionListener(e -> showExamples());
-        runExamples.addActionListener(e -> runPhysicsExamples());
+        runExamples.addActionListener(e -> submitCommand("", () -> {
+            runPhysicsExamples();
+            return "";
+        }));
         about.addActionListener(e -> showAbout());
 
         helpMenu.add(commands);
@@ -156,26 +230,6 @@ public class ProgrammableConsole extends JFrame {
         setJMenuBar(menuBar);
     }
 
-    private void setupPhysicsConstants() {
-        // Load physics constants into variables
-        variables.put("c", PhysicsConstants.c);
-        variables.put("h", PhysicsConstants.h);
-        variables.put("e", PhysicsConstants.e);
-        variables.put("m_e", PhysicsConstants.m_e);
-        variables.put("m_p", PhysicsConstants.m_p);
-        variables.put("k_B", PhysicsConstants.k_B);
-        variables.put("G", PhysicsConstants.G);
-        variables.put("g", PhysicsConstants.g);
-        variables.put("alpha", PhysicsConstants.alpha);
-        variables.put("epsilon_0", PhysicsConstants.epsilon_0);
-        variables.put("mu_0", PhysicsConstants.mu_0);
-        variables.put("eV", PhysicsConstants.eV);
-        variables.put("AU", PhysicsConstants.AU);
-        variables.put("ly", PhysicsConstants.ly);
-        variables.put("pi", Math.PI);
-        variables.put("E", Math.E);
-    }
-
     private void showWelcomeMessage() {
         appendToConsole("=== SCIENTIFIC PROGRAMMABLE CONSOLE ===\n");
         appendToConsole("Version 1.0 - Advanced Physics & Engineering Calculator\n\n");
@@ -204,24 +258,112 @@ public class ProgrammableConsole extends JFrame {
         // Add to history
         commandHistory.add(command);
         historyIndex = commandHistory.size();
-
-        // Display command
-        appendToConsole(">>> " + command + "\n");
+        historyPrefix = null;
+        if (historyLog != null) {
+            historyLog.append(HistoryLog.CONSOLE, command);
+        }
+        completer.recordUses(command);
 
         // Clear input
         inputField.setText("");
 
-        // Process command
-        try {
-            String result = executeCommand(command);
-            if (!result.isEmpty()) {
-                appendToConsole(result + "\n");
+        // Process command; it is echoed when it starts so queued output stays in order
+        submitCommand(">>> " + command + "\n", () -> executeCommand(command));
+    }
+
+    /**
+     * Queue work on the command thread; its result is appended to the console when done
+     */
+    private void submitCommand(String banner, Callable<String> work) {
+        pendingCommands.incrementAndGet();
+        updateBusyIndicator();
+        commandExecutor.execute(() -> {
+            long id = commandCounter.incrementAndGet();
+            synchronized (commandLock) {
+                Thread.interrupted(); // Clear an interrupt that arrived after the previous command ended
+                interruption = null;
+                commandThread = Thread.currentThread();
+                runningCommand = id;
+            }
+            ScheduledFuture<?> timer = null;
+            long timeout = timeoutSeconds;
+            if (timeout > 0) {
+                timer = watchdog.schedule(() -> interruptCommand(id, "Command timed out after " + timeout + " s"),
+                        timeout, TimeUnit.SECONDS);
+            }
+
+            appendToConsole(banner);
+            try {
+                String result = work.call();
+                if (interruption != null) {
+                    appendToConsole(interruption + "\n");
+                } else if (!result.isEmpty()) {
+                    appendToConsole(result + "\n");
+                }
+            } catch (Exception ex) {
+                appendToConsole((interruption != null ? interruption : "ERROR: " + ex.getMessage()) + "\n");
+            } finally {
+                if (timer != null) {
+                    timer.cancel(false);
+                }
+                synchronized (commandLock) {
+                    runningCommand = 0;
+                    Thread.interrupted(); // No interrupt can target this command from here on
+                }
+                completer.sync(); // Commands define variables on this thread
+                pendingCommands.decrementAndGet();
+                updateBusyIndicator();
+            }
+            appendToConsole("\n");
+        });
+    }
+
+    /**
+     * Stop a command if it is still the one running; a Python command loses its worker
+     */
+    private void interruptCommand(long id, String reason) {
+        synchronized (commandLock) {
+            // Under the lock the command thread takes to finish, so the interrupt can't hit the next command
+            if (runningCommand != id) {
+                return;
+            }
+            interruption = reason;
+            if (pythonRunning && pythonWorkers != null) {
+                interruption += "; Python worker stopped and will restart with fresh state";
+                pythonWorkers.kill(0);
             }
-        } catch (Exception ex) {
-            appendToConsole("ERROR: " + ex.getMessage() + "\n");
+            commandThread.interrupt();
         }
+    }
+
+    private void cancelCommand() {
+        long id = runningCommand;
+        if (id != 0) {
+            interruptCommand(id, "Command cancelled");
+        }
+    }
+
+    private boolean isBusy() {
+        return pendingCommands.get() > 0;
+    }
+
+    private void updateBusyIndicator() {
+        SwingUtilities.invokeLater(() -> {
+            int pending = pendingCommands.get();
+            busyIndicator.setVisible(pending > 0);
+            busyIndicator.setString(pending > 1
+                    ? "Running, " + (pending - 1) + " queued... Ctrl+C to cancel"
+                    : "Running... Ctrl+C to cancel");
+            busyIndicator.getParent().revalidate();
+        });
+    }
 
-        appendToConsole("\n");
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
     }
 
     private String executeCommand(String command) throws Exception {
@@ -246,6 +388,19 @@ public class ProgrammableConsole extends JFrame {
             return "Switched to Java mode";
         } else if (command.equals("examples")) {
             return getExamplesText();
+        } else if (command.equals("timeout")) {
+            return timeoutSeconds > 0 ? "Command timeout: " + timeoutSeconds + " s" : "Command timeout: off";
+        } else if (command.startsWith("timeout ")) {
+            timeoutSeconds = Long.parseLong(command.substring(8).trim());
+            return timeoutSeconds > 0 ? "Command timeout set to " + timeoutSeconds + " s" : "Command timeout disabled";
+        } else if (command.equals("cache")) {
+            return engine.getStatistics();
+        } else if (command.startsWith("explain ")) {
+            return session.explain(session.compile(command.substring(8)));
+        } else if (command.equals("arrays")) {
+            return getArrays();
+        } else if (command.startsWith("array ")) {
+            return handleArrayCommand(command.substring(6));
         } else if (command.startsWith("exec ")) {
             return executePythonScript(command.substring(5));
         }
@@ -258,222 +413,266 @@ public class ProgrammableConsole extends JFrame {
         }
     }
 
-    private String evaluateJavaExpression(String expression) {
+    private String evaluateJavaExpression(String statement) {
         try {
-            // Handle variable assignments
-            if (expression.contains("=") && !expression.contains("==")) {
-                return handleAssignment(expression);
-            }
-
-            // Replace variables
-            String processedExpression = replaceVariables(expression);
-
-            // Handle mathematical functions
-            processedExpression = replaceMathFunctions(processedExpression);
-
-            // Handle physics functions
-            processedExpression = replacePhysicsFunctions(processedExpression);
-
-            // Evaluate expression
-            double result = evaluateExpression(processedExpression);
-            
-            // Store result in 'ans' variable
-            variables.put("ans", result);
-
-            return formatResult(result);
-
+            String target = EvaluationContext.targetOf(statement);
+            double result = session.execute(statement);
+            return target == null ? DoubleFormatter.formatResult(result)
+                    : target + " = " + DoubleFormatter.formatResult(result);
         } catch (Exception e) {
             throw new RuntimeException("Expression evaluation failed: " + e.getMessage());
         }
     }
 
-    private String handleAssignment(String expression) {
-        String[] parts = expression.split("=", 2);
-        if (parts.length != 2) {
-            throw new RuntimeException("Invalid assignment syntax");
-        }
-
-        String varName = parts[0].trim();
-        String valueExpr = parts[1].trim();
-
-        // Evaluate the right side
-        String processedExpr = replaceVariables(valueExpr);
-        processedExpr = replaceMathFunctions(processedExpr);
-        processedExpr = replacePhysicsFunctions(processedExpr);
-
-        double value = evaluateExpression(processedExpr);
-        variables.put(varName, value);
-
-        return varName + " = " + formatResult(value);
-    }
-
-    private String replaceVariables(String expression) {
-        for (Map.Entry<String, Double> entry : variables.entrySet()) {
-            String varName = entry.getKey();
-            String value = entry.getValue().toString();
-            
-            // Use word boundaries to avoid partial replacements
-            expression = expression.replaceAll("\\b" + Pattern.quote(varName) + "\\b", value);
-        }
-        return expression;
-    }
-
-    private String replaceMathFunctions(String expression) {
-        // Replace mathematical functions
-        expression = expression.replaceAll("\\bsin\\((.*?)\\)", "Math.sin($1)");
-        expression = expression.replaceAll("\\bcos\\((.*?)\\)", "Math.cos($1)");
-        expression = expression.replaceAll("\\btan\\((.*?)\\)", "Math.tan($1)");
-        expression = expression.replaceAll("\\bsqrt\\((.*?)\\)", "Math.sqrt($1)");
-        expression = expression.replaceAll("\\blog\\((.*?)\\)", "Math.log10($1)");
-        expression = expression.replaceAll("\\bln\\((.*?)\\)", "Math.log($1)");
-        expression = expression.replaceAll("\\bexp\\((.*?)\\)", "Math.exp($1)");
-        expression = expression.replaceAll("\\babs\\((.*?)\\)", "Math.abs($1)");
-        expression = expression.replaceAll("\\bpow\\((.*?),(.*?)\\)", "Math.pow($1,$2)");
-        
-        return expression;
-    }
-
-    private String replacePhysicsFunctions(String expression) {
-        // Handle special physics functions
-        if (expression.contains("photon_energy(")) {
-            Pattern pattern = Pattern.compile("photon_energy\\((.*?)\\)");
-            Matcher matcher = pattern.matcher(expression);
-            StringBuffer sb = new StringBuffer();
-            while (matcher.find()) {
-                double wavelength = Double.parseDouble(matcher.group(1));
-                double energy = PhysicsConstants.photonEnergy(wavelength);
-                matcher.appendReplacement(sb, String.valueOf(energy));
+    private String executePythonScript(String script) {
+        try {
+            // Bind array variables first so tracebacks keep the script's own line numbers
+            String bindings = sharedArrays().pythonBindings();
+            if (!bindings.isEmpty()) {
+                String bound = pythonWorkers().execute(bindings);
+                if (!bound.isEmpty()) {
+                    return bound;
+                }
+            }
+            String output;
+            pythonRunning = true;
+            try {
+                output = pythonWorkers().execute(script);
+            } finally {
+                pythonRunning = false;
+            }
+            List<String> changed = sharedArrays().refresh();
+            if (!changed.isEmpty()) {
+                output += "Arrays updated: " + String.join(", ", changed) + "\n";
             }
-            matcher.appendTail(sb);
-            expression = sb.toString();
+            return output;
+        } catch (Exception e) {
+            return "Python execution error: " + e.getMessage();
         }
+    }
 
-        if (expression.contains("de_broglie(")) {
-            Pattern pattern = Pattern.compile("de_broglie\\((.*?),(.*?)\\)");
-            Matcher matcher = pattern.matcher(expression);
-            StringBuffer sb = new StringBuffer();
-            while (matcher.find()) {
-                double mass = Double.parseDouble(matcher.group(1));
-                double velocity = Double.parseDouble(matcher.group(2));
-                double wavelength = PhysicsConstants.deBroglieWavelength(mass, velocity);
-                matcher.appendReplacement(sb, String.valueOf(wavelength));
+    /**
+     * The worker pool, started on first use; workers begin with math, numpy if installed,
+     * and every constant of the variable table
+     */
+    private synchronized PythonWorkerPool pythonWorkers() throws IOException {
+        if (pythonWorkers == null) {
+            StringBuilder init = new StringBuilder();
+            init.append("import math\n");
+            init.append("try:\n    import numpy as np\nexcept ImportError:\n    pass\n");
+            init.append("# Physics constants\n");
+            SymbolTable variables = session.getSymbols();
+            for (int slot = 0; slot < variables.size(); slot++) {
+                if (variables.isConstant(slot)) {
+                    init.append(variables.nameOf(slot)).append(" = ").append(variables.get(slot)).append("\n");
+                }
             }
-            matcher.appendTail(sb);
-            expression = sb.toString();
+            init.append(sharedArrays().pythonSupport());
+            pythonWorkers = new PythonWorkerPool(PythonWorkerPool.DEFAULT_SIZE, init.toString());
         }
-
-        return expression;
+        return pythonWorkers;
     }
 
-    private double evaluateExpression(String expression) {
-        // Simple expression evaluator using JavaScript engine
-        try {
-            javax.script.ScriptEngineManager manager = new javax.script.ScriptEngineManager();
-            javax.script.ScriptEngine engine = manager.getEngineByName("JavaScript");
-            Object result = engine.eval(expression);
-            return ((Number) result).doubleValue();
-        } catch (Exception e) {
-            throw new RuntimeException("Cannot evaluate expression: " + expression);
+    /**
+     * Array variables, backed by memory-mapped files in a temporary directory
+     */
+    private synchronized SharedArrayStore sharedArrays() throws IOException {
+        if (sharedArrays == null) {
+            sharedArrays = new SharedArrayStore();
         }
+        return sharedArrays;
     }
 
-    private String executePythonScript(String script) {
-        try {
-            // Create temporary Python file
-            File tempFile = File.createTempFile("console_script", ".py");
-            tempFile.deleteOnExit();
-
-            // Add physics constants to script
-            StringBuilder fullScript = new StringBuilder();
-            fullScript.append("import math\n");
-            fullScript.append("import numpy as np\n");
-            fullScript.append("# Physics constants\n");
-            fullScript.append("c = ").append(PhysicsConstants.c).append("\n");
-            fullScript.append("h = ").append(PhysicsConstants.h).append("\n");
-            fullScript.append("e = ").append(PhysicsConstants.e).append("\n");
-            fullScript.append("m_e = ").append(PhysicsConstants.m_e).append("\n");
-            fullScript.append("k_B = ").append(PhysicsConstants.k_B).append("\n");
-            fullScript.append("G = ").append(PhysicsConstants.G).append("\n");
-            fullScript.append("# Add more constants as needed\n\n");
-            fullScript.append(script).append("\n");
-
-            // Write script to file
-            try (FileWriter writer = new FileWriter(tempFile)) {
-                writer.write(fullScript.toString());
-            }
-
-            // Execute Python script
-            ProcessBuilder pb = new ProcessBuilder("python3", tempFile.getAbsolutePath());
-            pb.redirectErrorStream(true);
-            Process process = pb.start();
-
-            // Read output
-            StringBuilder output = new StringBuilder();
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    output.append(line).append("\n");
-                }
-            }
-
-            int exitCode = process.waitFor();
-            if (exitCode != 0) {
-                return "Python execution failed with exit code: " + exitCode + "\n" + output.toString();
+    private String handleArrayCommand(String arguments) throws IOException {
+        SharedArray array;
+        int equals = arguments.indexOf('=');
+        if (equals >= 0) {
+            // array name = formula over existing arrays
+            array = sharedArrays().compute(arguments.substring(0, equals).trim(),
+                    arguments.substring(equals + 1).trim(), session.getSymbols(), -1);
+        } else {
+            // array name length [formula of i]
+            String[] parts = arguments.trim().split("\\s+", 3);
+            if (parts.length < 2) {
+                throw new RuntimeException("Usage: array <name> <length> [formula] or array <name> = <formula>");
             }
+            int length = Integer.parseInt(parts[1]);
+            array = parts.length == 3
+                    ? sharedArrays().compute(parts[0], parts[2], session.getSymbols(), length)
+                    : sharedArrays().create(parts[0], length);
+        }
+        return describeArray(array);
+    }
 
-            return output.toString();
+    private String getArrays() throws IOException {
+        if (sharedArrays == null || sharedArrays.isEmpty()) {
+            return "No arrays defined";
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append("Arrays in ").append(sharedArrays.getDirectory()).append(":\n");
+        for (SharedArray array : sharedArrays.getArrays()) {
+            sb.append("  ").append(describeArray(array)).append("\n");
+        }
+        return sb.toString();
+    }
 
-        } catch (Exception e) {
-            return "Python execution error: " + e.getMessage();
+    private String describeArray(SharedArray array) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(array.getName()).append("[").append(array.length()).append("] = [");
+        int shown = Math.min(array.length(), 4);
+        for (int i = 0; i < shown; i++) {
+            sb.append(i > 0 ? ", " : "").append(DoubleFormatter.formatResult(array.get(i)));
         }
+        if (array.length() > shown) {
+            sb.append(", ... ").append(DoubleFormatter.formatResult(array.get(array.length() - 1)));
+        }
+        return sb.append("]").toString();
     }
 
     private void handleKeyPress(KeyEvent e) {
-        if (e.getKeyCode() == KeyEvent.VK_UP) {
-            // Previous command
-            if (historyIndex > 0) {
-                historyIndex--;
+        if (searchQuery != null && handleSearchKey(e)) {
+            e.consume();
+            return;
+        }
+        if (e.getKeyCode() == KeyEvent.VK_C && e.isControlDown() && isBusy() && inputField.getSelectedText() == null) {
+            // Ctrl+C cancels only while busy and nothing is selected, so copying still works
+            cancelCommand();
+            e.consume();
+        } else if (e.getKeyCode() == KeyEvent.VK_R && e.isControlDown()) {
+            // Reverse search, starting from the text already typed
+            searchOriginal = inputField.getText();
+            searchMatch = -1;
+            updateSearch(searchOriginal, commandHistory.size());
+            e.consume();
+        } else if (e.getKeyCode() == KeyEvent.VK_TAB) {
+            completeName();
+            e.consume();
+        } else if (e.getKeyCode() == KeyEvent.VK_UP) {
+            // Previous command, or previous one starting with the text typed before navigating
+            if (historyIndex == commandHistory.size()) {
+                historyPrefix = inputField.getText();
+            }
+            int previous = commandHistory.findOlderWithPrefix(historyPrefix, historyIndex);
+            if (previous >= 0) {
+                historyIndex = previous;
                 inputField.setText(commandHistory.get(historyIndex));
             }
         } else if (e.getKeyCode() == KeyEvent.VK_DOWN) {
             // Next command
-            if (historyIndex < commandHistory.size() - 1) {
-                historyIndex++;
+            int next = historyPrefix == null ? -1 : commandHistory.findNewerWithPrefix(historyPrefix, historyIndex);
+            if (next >= 0) {
+                historyIndex = next;
                 inputField.setText(commandHistory.get(historyIndex));
             } else {
                 historyIndex = commandHistory.size();
-                inputField.setText("");
+                inputField.setText(historyPrefix == null ? "" : historyPrefix);
             }
         }
     }
 
-    private void appendToConsole(String text) {
-        SwingUtilities.invokeLater(() -> {
-            consoleArea.append(text);
-            consoleArea.setCaretPosition(consoleArea.getDocument().getLength());
-        });
-    }
+    /**
+     * Complete the name before the caret, or list the candidates if it is ambiguous
+     */
+    private void completeName() {
+        String text = inputField.getText();
+        int caret = inputField.getCaretPosition();
+        int start = NameCompleter.wordStart(text, caret);
+        String prefix = text.substring(start, caret);
+        int count = completer.count(prefix);
+        if (count == 0) {
+            Toolkit.getDefaultToolkit().beep();
+            return;
+        }
 
-    private String formatResult(double result) {
-        if (Math.abs(result) > 1e6 || (Math.abs(result) < 1e-3 && result != 0)) {
-            return String.format("%.6e", result);
+        String completion = completer.extend(prefix);
+        if (count == 1 && completer.kindOf(completion) == NameCompleter.Kind.FUNCTION) {
+            completion += "(";
+        }
+        if (completion.length() > prefix.length()) {
+            inputField.setText(text.substring(0, start) + completion + text.substring(caret));
+            inputField.setCaretPosition(start + completion.length());
         } else {
-            return String.format("%.6f", result);
+            List<String> candidates = completer.complete(prefix, NameCompleter.MAX_COMPLETIONS);
+            appendToConsole("  " + String.join("  ", candidates)
+                    + (count > candidates.size() ? "  ... (" + count + " names)" : "") + "\n");
+        }
+    }
+
+    /**
+     * Keys with a meaning while searching; returns false to let the key act normally
+     */
+    private boolean handleSearchKey(KeyEvent e) {
+        switch (e.getKeyCode()) {
+            case KeyEvent.VK_R:
+                if (e.isControlDown()) {
+                    // Next older match
+                    updateSearch(searchQuery, searchMatch >= 0 ? searchMatch : commandHistory.size());
+                    return true;
+                }
+                return false;
+            case KeyEvent.VK_BACK_SPACE:
+                if (!searchQuery.isEmpty()) {
+                    updateSearch(searchQuery.substring(0, searchQuery.length() - 1), commandHistory.size());
+                }
+                return true;
+            case KeyEvent.VK_ESCAPE:
+                endSearch();
+                inputField.setText(searchOriginal);
+                return true;
+            case KeyEvent.VK_ENTER:
+                endSearch(); // Enter then runs the match
+                return false;
+            case KeyEvent.VK_SHIFT:
+            case KeyEvent.VK_CONTROL:
+            case KeyEvent.VK_ALT:
+                return false;
+            default:
+                if (e.getKeyChar() == KeyEvent.CHAR_UNDEFINED || e.isControlDown()) {
+                    endSearch(); // Arrows and other editing keys keep the match for editing
+                }
+                return false;
+        }
+    }
+
+    private void updateSearch(String query, int before) {
+        searchQuery = query;
+        int match = commandHistory.findOlder(query, before);
+        if (match >= 0) {
+            searchMatch = match;
+            String command = commandHistory.get(match);
+            inputField.setText(command);
+            inputField.setCaretPosition(command.indexOf(query));
+        }
+        // On failure the last match stays in the field, as in a shell
+        promptLabel.setText((match >= 0 ? "(reverse-i-search)`" : "(failed reverse-i-search)`") + query + "': ");
+    }
+
+    private void endSearch() {
+        if (searchMatch >= 0) {
+            historyIndex = searchMatch;
+            historyPrefix = "";
         }
+        searchQuery = null;
+        promptLabel.setText(">>> ");
+    }
+
+    private void appendToConsole(String text) {
+        consoleOutput.append(text);
     }
 
     private String getVariables() {
         StringBuilder sb = new StringBuilder();
         sb.append("Current Variables:\n");
-        for (Map.Entry<String, Double> entry : variables.entrySet()) {
-            sb.append(String.format("  %s = %s\n", entry.getKey(), formatResult(entry.getValue())));
+        SymbolTable variables = session.getSymbols();
+        for (int slot = 0; slot < variables.size(); slot++) {
+            sb.append(String.format("  %s = %s\n", variables.nameOf(slot), DoubleFormatter.formatResult(variables.get(slot))));
         }
         return sb.toString();
     }
 
     private String saveVariable(String varName) {
-        if (variables.containsKey("ans")) {
-            variables.put(varName, variables.get("ans"));
+        if (session.contains("ans")) {
+            session.set(varName, session.get("ans"));
             return "Saved last result to variable: " + varName;
         } else {
             return "No result to save";
@@ -486,11 +685,21 @@ public class ProgrammableConsole extends JFrame {
                "  examples      - Show example calculations\n" +
                "  constants     - Show physics constants\n" +
                "  variables     - Show current variables\n" +
+               "  cache         - Show expression cache statistics\n" +
+               "  explain <expr> - Show the optimized expression tree\n" +
                "  clear         - Clear console\n" +
                "  python        - Switch to Python mode\n" +
                "  java          - Switch to Java mode\n" +
                "  exec <script> - Execute Python script\n" +
-               "  save <name>   - Save last result to variable\n\n" +
+               "  array <name> <length> [formula of i] - Create a shared array\n" +
+               "  array <name> = <formula> - Element-wise formula over arrays\n" +
+               "  arrays        - List shared arrays (visible in Python as numpy.memmap)\n" +
+               "  save <name>   - Save last result to variable\n" +
+               "  timeout [s]   - Show or set the command timeout (0 = off)\n" +
+               "  Ctrl+C        - Cancel the running command\n" +
+               "  Ctrl+R        - Search history; Ctrl+R again for older matches\n" +
+               "  Tab           - Complete a variable, constant or function name\n" +
+               "  Up/Down       - Previous/next command starting with the typed text\n\n" +
                "EXPRESSIONS:\n" +
                "  x = 5 * c     - Variable assignment\n" +
                "  sin(pi/2)     - Trigonometric functions\n" +
@@ -533,7 +742,12 @@ public class ProgrammableConsole extends JFrame {
                ">>> result = np.sqrt(16)\n" +
                ">>> print(f'Square root of 16: {result}')\n" +
                ">>> print(f'Speed of light: {c:.0f} m/s')\n" +
-               ">>> java                 (switch back to Java mode)\n\n";
+               ">>> java                 (switch back to Java mode)\n\n" +
+               "SHARED ARRAYS:\n" +
+               ">>> array wl 1000000 400e-9 + i * 3e-13   (wavelengths)\n" +
+               ">>> array energy = photon_energy(wl) / eV\n" +
+               ">>> exec print(energy[0], len(energy))    (same memory in Python)\n" +
+               ">>> exec share('doubled', [2 * x for x in energy[:10]])\n\n";
     }
 
     private void setJavaMode() {
@@ -559,9 +773,7 @@ public class ProgrammableConsole extends JFrame {
             try {
                 File file = fileChooser.getSelectedFile();
                 String content = new String(java.nio.file.Files.readAllBytes(file.toPath()));
-                appendToConsole("Executing script: " + file.getName() + "\n");
-                String result = executePythonScript(content);
-                appendToConsole(result + "\n");
+                submitCommand("Executing script: " + file.getName() + "\n", () -> executePythonScript(content));
             } catch (Exception e) {
                 appendToConsole("Error loading script: " + e.getMessage() + "\n");
             }
@@ -584,7 +796,7 @@ public class ProgrammableConsole extends JFrame {
     }
 
     private void clearConsole() {
-        consoleArea.setText("");
+        consoleOutput.clear();
         showWelcomeMessage();
     }
 
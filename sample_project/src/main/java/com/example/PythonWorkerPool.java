@@ -0,0 +1,284 @@
+package com.example;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Long-lived python3 processes that run console scripts
+ *
+ * Each worker keeps one interpreter, and its globals survive between calls, so imports
+ * and variables persist the way they do in a REPL. A session number always maps to the
+ * same worker. Workers start on first use with the init script already run, and one that
+ * crashes is restarted with fresh state.
+ *
+ * Protocol over the worker's stdin/stdout: a request is a header line "EXEC <n>" or
+ * "PING <n>" followed by n bytes of UTF-8 script; the reply is "OK <n>" or "ERR <n>"
+ * followed by n bytes of captured stdout and stderr.
+ */
+public class PythonWorkerPool implements AutoCloseable {
+    public static final int DEFAULT_SIZE = 2;
+    private static final long HEALTH_CHECK_SECONDS = 15;
+
+    private static final String WORKER_SOURCE = """
+            import sys, io, traceback, contextlib
+            def serve():
+                requests, replies = sys.stdin.buffer, sys.stdout.buffer
+                sys.stdin = io.StringIO()
+                env = {'__name__': '__console__'}
+                while True:
+                    header = requests.readline()
+                    if not header:
+                        return
+                    kind, size = header.split()
+                    body = requests.read(int(size)).decode('utf-8')
+                    status, captured = b'OK', io.StringIO()
+                    if kind == b'EXEC':
+                        with contextlib.redirect_stdout(captured), contextlib.redirect_stderr(captured):
+                            try:
+                                exec(compile(body, '<console>', 'exec'), env)
+                            except SystemExit:
+                                pass
+                            except BaseException:
+                                traceback.print_exc()
+                                status = b'ERR'
+                    data = captured.getvalue().encode('utf-8')
+                    replies.write(status + b' ' + str(len(data)).encode() + b'\\n' + data)
+                    replies.flush()
+            serve()
+            """;
+
+    private final String command;
+    private final String initScript;
+    private final Worker[] workers;
+    private ScheduledExecutorService healthChecker;
+
+    /**
+     * @param initScript run once in every new worker, e.g. imports and constants
+     */
+    public PythonWorkerPool(int size, String initScript) {
+        this(System.getProperty("calculator.python", "python3"), size, initScript);
+    }
+
+    PythonWorkerPool(String command, int size, String initScript) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Pool size must be positive");
+        }
+        this.command = command;
+        this.initScript = initScript;
+        this.workers = new Worker[size];
+        for (int i = 0; i < size; i++) {
+            workers[i] = new Worker();
+        }
+    }
+
+    /**
+     * Run a script in session 0
+     */
+    public String execute(String script) throws IOException {
+        return execute(0, script);
+    }
+
+    /**
+     * Run a script on the worker owning a session, starting it if needed
+     * @return the captured output; a traceback follows "Python execution failed" on error
+     */
+    public String execute(int session, String script) throws IOException {
+        Worker worker = workers[Math.floorMod(session, workers.length)];
+        worker.lock.lock();
+        try {
+            String notice = "";
+            if (!worker.isAlive()) {
+                notice = worker.process == null ? "" : "Python worker restarted; previous state was lost\n";
+                start(worker);
+            }
+            try {
+                Reply reply = worker.call("EXEC", script);
+                return notice + (reply.ok ? reply.output : "Python execution failed\n" + reply.output);
+            } catch (IOException e) {
+                worker.destroy();
+                return notice + "Python worker crashed (" + e.getMessage() + "); it restarts on the next command\n";
+            }
+        } finally {
+            worker.lock.unlock();
+        }
+    }
+
+    /**
+     * Start every worker now instead of on first use
+     */
+    public void warmUp() throws IOException {
+        for (Worker worker : workers) {
+            worker.lock.lock();
+            try {
+                if (!worker.isAlive()) {
+                    start(worker);
+                }
+            } finally {
+                worker.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Ping idle workers and restart any that died or answer wrongly; busy workers are skipped
+     * @return the number of workers restarted
+     */
+    public int checkHealth() {
+        int restarted = 0;
+        for (Worker worker : workers) {
+            if (!worker.lock.tryLock()) {
+                continue; // Busy running a script
+            }
+            try {
+                if (worker.process == null) {
+                    continue; // Never started, nothing to check
+                }
+                boolean healthy = worker.isAlive();
+                if (healthy) {
+                    try {
+                        Reply reply = worker.call("PING", "");
+                        healthy = reply.ok && reply.output.isEmpty();
+                    } catch (IOException e) {
+                        healthy = false;
+                    }
+                }
+                if (!healthy) {
+                    try {
+                        start(worker);
+                        restarted++;
+                    } catch (IOException e) {
+                        worker.destroy();
+                    }
+                }
+            } finally {
+                worker.lock.unlock();
+            }
+        }
+        return restarted;
+    }
+
+    public int getSize() {
+        return workers.length;
+    }
+
+    /**
+     * Kill the worker owning a session, e.g. to stop a runaway script; the next call restarts it
+     */
+    public void kill(int session) {
+        workers[Math.floorMod(session, workers.length)].destroy();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (healthChecker != null) {
+            healthChecker.shutdownNow();
+        }
+        for (Worker worker : workers) {
+            worker.destroy();
+        }
+    }
+
+    private void start(Worker worker) throws IOException {
+        worker.destroy();
+        ProcessBuilder builder = new ProcessBuilder(command, "-u", "-c", WORKER_SOURCE);
+        builder.redirectError(ProcessBuilder.Redirect.DISCARD);
+        worker.attach(builder.start());
+        startHealthChecks();
+
+        Reply reply = worker.call("EXEC", initScript);
+        if (!reply.ok) {
+            worker.destroy();
+            throw new IOException("Python init script failed:\n" + reply.output);
+        }
+    }
+
+    private synchronized void startHealthChecks() {
+        if (healthChecker == null) {
+            healthChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "python-health-check");
+                thread.setDaemon(true);
+                return thread;
+            });
+            healthChecker.scheduleWithFixedDelay(this::checkHealth, HEALTH_CHECK_SECONDS,
+                    HEALTH_CHECK_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    private static final class Worker {
+        final ReentrantLock lock = new ReentrantLock();
+        private volatile Process process;
+        private OutputStream requests;
+        private InputStream replies;
+
+        void attach(Process process) {
+            this.process = process;
+            this.requests = new BufferedOutputStream(process.getOutputStream());
+            this.replies = new BufferedInputStream(process.getInputStream());
+        }
+
+        boolean isAlive() {
+            Process current = process;
+            return current != null && current.isAlive();
+        }
+
+        void destroy() {
+            Process current = process;
+            if (current != null) {
+                current.destroyForcibly();
+            }
+        }
+
+        Reply call(String kind, String script) throws IOException {
+            byte[] body = script.getBytes(StandardCharsets.UTF_8);
+            requests.write((kind + " " + body.length + "\n").getBytes(StandardCharsets.US_ASCII));
+            requests.write(body);
+            requests.flush();
+
+            String[] header = readLine().split(" ");
+            int length;
+            try {
+                length = header.length == 2 ? Integer.parseInt(header[1]) : -1;
+            } catch (NumberFormatException e) {
+                length = -1;
+            }
+            if (length < 0) {
+                throw new IOException("Malformed reply header from Python worker");
+            }
+            byte[] output = replies.readNBytes(length);
+            if (output.length < length) {
+                throw new IOException("Python worker exited");
+            }
+            return new Reply(header[0].equals("OK"), new String(output, StandardCharsets.UTF_8));
+        }
+
+        private String readLine() throws IOException {
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            for (int b = replies.read(); b != '\n'; b = replies.read()) {
+                if (b < 0) {
+                    throw new IOException("Python worker exited");
+                }
+                line.write(b);
+            }
+            return line.toString(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private static final class Reply {
+        final boolean ok;
+        final String output;
+
+        Reply(boolean ok, String output) {
+            this.ok = ok;
+            this.output = output;
+        }
+    }
+}
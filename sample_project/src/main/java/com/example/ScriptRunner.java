@@ -0,0 +1,167 @@
+package com.example;
+
+import com.example.engine.EvaluationContext;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Runs a script of console statements without the interactive prompt
+ *
+ * A reader thread parses lines ahead of execution and hands them over in batches; the
+ * calling thread evaluates them in order and writes one result line per statement.
+ * Lines that are blank or start with '#' are skipped, and "exit" or "quit" ends the script.
+ *
+ * Only the reader touches the symbol table while a script runs: it binds slots for
+ * assignment targets as it parses them. The evaluator keeps the variable values in its
+ * own array and copies them back into the table when the script ends.
+ */
+public class ScriptRunner {
+    private static final int BATCH_SIZE = 512;
+    private static final int QUEUED_BATCHES = 16;
+
+    private final SymbolTable symbols;
+    private final ExpressionCache expressionCache;
+    private volatile IOException readFailure;
+
+    public ScriptRunner(SymbolTable symbols) {
+        this.symbols = symbols;
+        this.expressionCache = new ExpressionCache(symbols);
+    }
+
+    /**
+     * @return the number of statements that failed to parse
+     */
+    public int run(BufferedReader script, Writer output) throws IOException, InterruptedException {
+        int ansSlot = symbols.define("ans", symbols.contains("ans") ? symbols.get("ans") : 0);
+        double[] values = Arrays.copyOf(symbols.values(), symbols.size());
+
+        BlockingQueue<List<Statement>> queue = new ArrayBlockingQueue<>(QUEUED_BATCHES);
+        Thread reader = new Thread(() -> readStatements(script, queue), "script-reader");
+        reader.setDaemon(true);
+        reader.start();
+
+        DoubleFormatter formatter = new DoubleFormatter();
+        char[] result = new char[DoubleFormatter.MAX_LENGTH + 1];
+        int errors = 0;
+        try {
+            for (List<Statement> batch = queue.take(); !batch.isEmpty(); batch = queue.take()) {
+                for (Statement statement : batch) {
+                    if (statement.error != null) {
+                        output.write("ERROR (line " + statement.line + "): " + statement.error + "\n");
+                        errors++;
+                        continue;
+                    }
+                    if (values.length < statement.slotCount) {
+                        values = Arrays.copyOf(values, Math.max(statement.slotCount, values.length * 2));
+                    }
+
+                    double value = statement.expression.evaluate(values);
+                    values[ansSlot] = value;
+                    if (statement.target >= 0) {
+                        values[statement.target] = value;
+                        output.write(statement.targetName);
+                        output.write(" = ");
+                    }
+                    int end = formatter.format(value, DoubleFormatter.Mode.FIXED, result, 0);
+                    result[end++] = '\n';
+                    output.write(result, 0, end);
+                }
+            }
+        } finally {
+            reader.interrupt();
+            output.flush();
+        }
+
+        // The reader has sent its last batch; once it exits the table is ours again
+        reader.join();
+        for (int slot = 0; slot < symbols.size(); slot++) {
+            // Write back only what changed, so slot versions show what the script touched
+            if (!symbols.isConstant(slot) && slot < values.length
+                    && Double.doubleToRawLongBits(symbols.get(slot)) != Double.doubleToRawLongBits(values[slot])) {
+                symbols.set(slot, values[slot]);
+            }
+        }
+        if (readFailure != null) {
+            throw readFailure;
+        }
+        return errors;
+    }
+
+    private void readStatements(BufferedReader script, BlockingQueue<List<Statement>> queue) {
+        List<Statement> batch = new ArrayList<>(BATCH_SIZE);
+        try {
+            int line = 0;
+            for (String text = script.readLine(); text != null; text = script.readLine()) {
+                line++;
+                text = text.trim();
+                if (text.isEmpty() || text.startsWith("#")) {
+                    continue;
+                }
+                if (text.equals("exit") || text.equals("quit")) {
+                    break;
+                }
+                batch.add(parse(text, line));
+                if (batch.size() == BATCH_SIZE) {
+                    queue.put(batch);
+                    batch = new ArrayList<>(BATCH_SIZE);
+                }
+            }
+        } catch (IOException e) {
+            readFailure = e;
+        } catch (InterruptedException e) {
+            return; // The evaluator gave up
+        }
+
+        try {
+            if (!batch.isEmpty()) {
+                queue.put(batch);
+            }
+            queue.put(new ArrayList<>()); // End of script
+        } catch (InterruptedException e) {
+            // The evaluator gave up
+        }
+    }
+
+    private Statement parse(String text, int line) {
+        try {
+            // Same assignment rule as the interactive console; invalid targets are parse errors
+            String target = EvaluationContext.targetOf(text);
+            if (target != null) {
+                Expression expression = expressionCache.get(text.substring(text.indexOf('=') + 1).trim());
+                int slot = symbols.slotOf(target);
+                if (slot < 0 || symbols.isConstant(slot)) {
+                    slot = symbols.define(target, Double.NaN);
+                }
+                return new Statement(line, expression, slot, target, symbols.size(), null);
+            }
+            return new Statement(line, expressionCache.get(text), -1, null, symbols.size(), null);
+        } catch (IllegalArgumentException e) {
+            return new Statement(line, null, -1, null, 0, e.getMessage());
+        }
+    }
+
+    private static final class Statement {
+        final int line;
+        final Expression expression;
+        final int target;
+        final String targetName;
+        final int slotCount;
+        final String error;
+
+        Statement(int line, Expression expression, int target, String targetName, int slotCount, String error) {
+            this.line = line;
+            this.expression = expression;
+            this.target = target;
+            this.targetName = targetName;
+            this.slotCount = slotCount;
+            this.error = error;
+        }
+    }
+}
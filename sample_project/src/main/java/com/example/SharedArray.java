@@ -0,0 +1,83 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An array of doubles living in a memory-mapped file
+ *
+ * The file is raw little-endian float64 with no header, which is exactly the layout
+ * numpy.memmap(path, dtype='<f8') expects. Java and Python therefore work on the same
+ * pages and neither side copies or formats the data.
+ */
+public final class SharedArray {
+    private final String name;
+    private final Path path;
+    private final int length;
+    private final DoubleBuffer values;
+
+    private SharedArray(String name, Path path, int length, DoubleBuffer values) {
+        this.name = name;
+        this.path = path;
+        this.length = length;
+        this.values = values;
+    }
+
+    /**
+     * Map a file of the given length, creating or resizing it as needed
+     */
+    static SharedArray map(String name, Path path, int length) throws IOException {
+        if (length <= 0) {
+            throw new IllegalArgumentException("Array length must be positive");
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long bytes = (long) length * Double.BYTES;
+            if (channel.size() > bytes) {
+                channel.truncate(bytes);
+            }
+            // Mapping past the end grows the file with zeros
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+            return new SharedArray(name, path, length, buffer.order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer());
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public double get(int index) {
+        return values.get(index);
+    }
+
+    public void set(int index, double value) {
+        values.put(index, value);
+    }
+
+    /**
+     * Copy values [from, from + count) into dst[0, count)
+     */
+    public void get(int from, double[] dst, int count) {
+        values.get(from, dst, 0, count);
+    }
+
+    /**
+     * Copy src[0, count) into values [from, from + count)
+     */
+    public void put(int from, double[] src, int count) {
+        values.put(from, src, 0, count);
+    }
+}
@@ -0,0 +1,270 @@
+package com.example;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Array variables shared between the console and its Python workers
+ *
+ * Every array is a file NAME.f64 in one temporary directory. Before a Python command the
+ * console runs pythonBindings(), which binds each array as a global numpy.memmap (or a
+ * memoryview over mmap when numpy is missing). Python creates or replaces arrays with
+ * new_array(name, n) or share(name, values), and refresh() maps whatever it wrote.
+ *
+ * Array names must be Python identifiers that are not keywords, and must not shadow what
+ * the workers' prelude or formulas rely on: the index variable, math, np, the helpers
+ * defined by pythonSupport(), or any name starting with '_'.
+ *
+ * Files hold little-endian doubles. numpy reads them as such on any machine; without numpy
+ * the workers fall back to a native-order memoryview, so they refuse to bind arrays on a
+ * big-endian machine rather than misread them.
+ *
+ * Element-wise formulas over arrays run through BatchEvaluator in cache-sized chunks,
+ * reading from and writing to the mapped files directly.
+ */
+public class SharedArrayStore implements AutoCloseable {
+    public static final String INDEX_VARIABLE = "i";
+    private static final String SUFFIX = ".f64";
+    private static final int CHUNK = 64 * ColumnProgram.CHUNK;
+    private static final Set<String> RESERVED_NAMES = Set.of(INDEX_VARIABLE, "math", "np", "numpy", "os", "sys", "mmap",
+            "new_array", "share");
+    private static final Set<String> PYTHON_KEYWORDS = Set.of("False", "None", "True", "and", "as", "assert", "async",
+            "await", "break", "class", "continue", "def", "del", "elif", "else", "except", "finally", "for", "from",
+            "global", "if", "import", "in", "is", "lambda", "nonlocal", "not", "or", "pass", "raise", "return", "try",
+            "while", "with", "yield");
+
+    private final Path directory;
+    private final Map<String, SharedArray> arrays = new LinkedHashMap<>();
+
+    public SharedArrayStore() throws IOException {
+        this(Files.createTempDirectory("calculator-arrays"));
+    }
+
+    public SharedArrayStore(Path directory) {
+        this.directory = directory;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public SharedArray get(String name) {
+        return arrays.get(name);
+    }
+
+    public Collection<SharedArray> getArrays() {
+        return arrays.values();
+    }
+
+    public boolean isEmpty() {
+        return arrays.isEmpty();
+    }
+
+    /**
+     * @throws IllegalArgumentException if the name is not a usable array name
+     */
+    static void checkName(String name) {
+        if (!name.matches("[A-Za-z_][A-Za-z0-9_]*")) {
+            throw new IllegalArgumentException("Invalid array name: " + name);
+        }
+        if (PYTHON_KEYWORDS.contains(name)) {
+            throw new IllegalArgumentException("Array name '" + name + "' is a Python keyword");
+        }
+        if (RESERVED_NAMES.contains(name) || name.startsWith("_")) {
+            throw new IllegalArgumentException("Array name '" + name + "' is reserved for the console's Python bindings");
+        }
+    }
+
+    /**
+     * Create a zero-filled array, or return the existing one if it has the same length
+     */
+    public SharedArray create(String name, int length) throws IOException {
+        checkName(name);
+        SharedArray existing = arrays.get(name);
+        if (existing != null && existing.length() == length) {
+            return existing;
+        }
+        SharedArray array = SharedArray.map(name, directory.resolve(name + SUFFIX), length);
+        array.getPath().toFile().deleteOnExit();
+        arrays.put(name, array);
+        return array;
+    }
+
+    /**
+     * Evaluate a formula element-wise into an array
+     *
+     * Array names in the formula read the matching element, and INDEX_VARIABLE is the
+     * element index. Every other name comes from the scalar table.
+     * @param length the target length, or -1 to take it from the arrays the formula reads
+     * @throws IllegalArgumentException if the arrays read have different lengths
+     * @throws InterruptedIOException if the thread is interrupted; the target is left partly computed
+     */
+    public SharedArray compute(String target, String formula, SymbolTable scalars, int length) throws IOException {
+        SymbolTable symbols = new SymbolTable();
+        for (int slot = 0; slot < scalars.size(); slot++) {
+            if (scalars.isConstant(slot)) {
+                symbols.defineConstant(scalars.nameOf(slot), scalars.get(slot));
+            } else {
+                symbols.define(scalars.nameOf(slot), scalars.get(slot));
+            }
+        }
+        symbols.define(INDEX_VARIABLE, 0);
+        for (String name : arrays.keySet()) {
+            symbols.define(name, 0);
+        }
+
+        Expression expression = ExpressionParser.parse(formula, symbols);
+        List<String> inputs = new ArrayList<>();
+        List<SharedArray> sources = new ArrayList<>();
+        for (String name : expression.getVariableNames()) {
+            SharedArray source = arrays.get(name);
+            if (source != null) {
+                if (length < 0) {
+                    length = source.length();
+                } else if (source.length() != length) {
+                    throw new IllegalArgumentException("Array " + name + " has length " + source.length() + ", expected " + length);
+                }
+                inputs.add(name);
+                sources.add(source);
+            } else if (name.equals(INDEX_VARIABLE)) {
+                inputs.add(name);
+                sources.add(null);
+            }
+        }
+        if (length < 0) {
+            throw new IllegalArgumentException("Formula reads no arrays; give a length");
+        }
+
+        SharedArray result = create(target, length);
+        BatchEvaluator evaluator = new BatchEvaluator(expression, inputs.toArray(new String[0]));
+        double[][] columns = new double[inputs.size()][CHUNK];
+        double[] out = new double[CHUNK];
+        for (int start = 0; start < length; start += CHUNK) {
+            if (Thread.interrupted()) {
+                throw new InterruptedIOException("Array compute interrupted after " + start + " of " + length + " elements");
+            }
+            int count = Math.min(CHUNK, length - start);
+            for (int c = 0; c < columns.length; c++) {
+                if (sources.get(c) == null) {
+                    for (int k = 0; k < count; k++) {
+                        columns[c][k] = start + k;
+                    }
+                } else {
+                    sources.get(c).get(start, columns[c], count);
+                }
+            }
+            evaluator.evaluate(columns, out, 0, count);
+            result.put(start, out, count);
+        }
+        return result;
+    }
+
+    /**
+     * Python code defining _array_dir, _bind_arrays, new_array and share; run once per worker
+     */
+    public String pythonSupport() {
+        StringBuilder reserved = new StringBuilder();
+        for (String name : RESERVED_NAMES) {
+            reserved.append(pythonString(name)).append(", ");
+        }
+        return "import os, sys, mmap, keyword as _keyword, array as _array_module\n" +
+               "_array_dir = " + pythonString(directory.toString()) + "\n" +
+               "_array_views = {}\n" +
+               "_reserved_names = {" + reserved + "}\n" +
+               "def _open_array(path, n):\n" +
+               "    try:\n" +
+               "        import numpy\n" +
+               "        return numpy.memmap(path, dtype='<f8', mode='r+', shape=(n,))\n" +
+               "    except ImportError:\n" +
+               "        if sys.byteorder != 'little':\n" +
+               "            raise RuntimeError('Shared arrays need numpy on a big-endian machine')\n" +
+               "        with open(path, 'r+b') as f:\n" +
+               "            return memoryview(mmap.mmap(f.fileno(), n * 8)).cast('d')\n" +
+               "def _bind_arrays(arrays):\n" +
+               "    for name, n in arrays.items():\n" +
+               "        if _array_views.get(name, (None, -1))[1] != n:\n" +
+               "            _array_views[name] = (_open_array(os.path.join(_array_dir, name + '.f64'), n), n)\n" +
+               "        globals()[name] = _array_views[name][0]\n" +
+               "def new_array(name, n):\n" +
+               "    if not name.isidentifier() or _keyword.iskeyword(name) or name.startswith('_') or name in _reserved_names:\n" +
+               "        raise ValueError('Array name %r is reserved or not an identifier' % name)\n" +
+               "    path = os.path.join(_array_dir, name + '.f64')\n" +
+               "    with open(path, 'w+b') as f:\n" +
+               "        f.truncate(n * 8)\n" +
+               "    _array_views[name] = (_open_array(path, n), n)\n" +
+               "    globals()[name] = _array_views[name][0]\n" +
+               "    return globals()[name]\n" +
+               "def share(name, values):\n" +
+               "    values = list(values)\n" +
+               "    target = new_array(name, len(values))\n" +
+               "    target[:] = _array_module.array('d', values) if isinstance(target, memoryview) else values\n" +
+               "    return target\n";
+    }
+
+    /**
+     * Python statement binding every current array as a global, or "" if there are none
+     */
+    public String pythonBindings() {
+        if (arrays.isEmpty()) {
+            return "";
+        }
+        StringBuilder bindings = new StringBuilder("_bind_arrays({");
+        for (SharedArray array : arrays.values()) {
+            bindings.append(pythonString(array.getName())).append(": ").append(array.length()).append(", ");
+        }
+        return bindings.append("})\n").toString();
+    }
+
+    /**
+     * Map arrays Python created or resized since the last call
+     * @return names of the arrays that were (re)mapped
+     */
+    public List<String> refresh() throws IOException {
+        List<String> changed = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : files) {
+                String fileName = file.getFileName().toString();
+                String name = fileName.substring(0, fileName.length() - SUFFIX.length());
+                try {
+                    checkName(name);
+                } catch (IllegalArgumentException e) {
+                    continue; // Not written by new_array(); leave it alone
+                }
+                long size = Files.size(file);
+                SharedArray existing = arrays.get(name);
+                if (size > 0 && size % Double.BYTES == 0 && size / Double.BYTES <= Integer.MAX_VALUE
+                        && (existing == null || existing.length() * (long) Double.BYTES != size)) {
+                    arrays.remove(name);
+                    create(name, (int) (size / Double.BYTES));
+                    changed.add(name);
+                }
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Remove the array files; mappings stay valid until they are garbage collected
+     */
+    @Override
+    public void close() throws IOException {
+        for (SharedArray array : arrays.values()) {
+            Files.deleteIfExists(array.getPath());
+        }
+        arrays.clear();
+        Files.deleteIfExists(directory);
+    }
+
+    private static String pythonString(String text) {
+        return "'" + text.replace("\\", "\\\\").replace("'", "\\'") + "'";
+    }
+}
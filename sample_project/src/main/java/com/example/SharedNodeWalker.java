@@ -0,0 +1,59 @@
+package com.example;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tree walker for DAGs from common subexpression elimination
+ *
+ * Each shared node is evaluated on first use and its value reused for the rest of the
+ * call, as ExpressionCompiler does with locals. The values live in arrays allocated per
+ * call, so one walker can be used by many threads at once.
+ */
+final class SharedNodeWalker implements CompiledExpression {
+    private final ExpressionNode root;
+    private final Map<ExpressionNode, Integer> sharedIndex = new IdentityHashMap<>();
+
+    private SharedNodeWalker(ExpressionNode root, Set<ExpressionNode> shared) {
+        this.root = root;
+        for (ExpressionNode node : shared) {
+            sharedIndex.put(node, sharedIndex.size());
+        }
+    }
+
+    /**
+     * The cheapest tree walker for a tree: the root itself when nothing is shared
+     */
+    static CompiledExpression of(ExpressionNode root) {
+        Set<ExpressionNode> shared = ExpressionOptimizer.sharedNodes(root);
+        return shared.isEmpty() ? root : new SharedNodeWalker(root, shared);
+    }
+
+    @Override
+    public double eval(double[] slots) {
+        int shared = sharedIndex.size();
+        return eval(root, slots, new double[shared], new boolean[shared]);
+    }
+
+    private double eval(ExpressionNode node, double[] slots, double[] values, boolean[] done) {
+        switch (node.op) {
+            case NUMBER: return node.value;
+            case VARIABLE: return slots[node.slot];
+            default:
+                break;
+        }
+        Integer index = sharedIndex.get(node);
+        if (index != null && done[index]) {
+            return values[index];
+        }
+        double left = eval(node.args[0], slots, values, done);
+        double right = node.args.length > 1 ? eval(node.args[1], slots, values, done) : 0;
+        double value = node.apply(left, right);
+        if (index != null) {
+            values[index] = value;
+            done[index] = true;
+        }
+        return value;
+    }
+}
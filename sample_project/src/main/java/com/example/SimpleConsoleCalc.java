@@ -1,61 +1,56 @@
 package com.example;
 
-import java.util.*;
+import com.example.engine.Engine;
+import com.example.engine.EvaluationContext;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 
 /**
  * Simple Console Calculator that works without JavaScript engine
  */
 public class SimpleConsoleCalc {
-    private Scanner scanner;
-    private Map<String, Double> variables;
+    private BufferedReader input;
+    private EvaluationContext session;
 
     public SimpleConsoleCalc() {
-        scanner = new Scanner(System.in);
-        variables = new HashMap<>();
-        setupPhysicsConstants();
-    }
-
-    private void setupPhysicsConstants() {
-        variables.put("c", PhysicsConstants.c);
-        variables.put("h", PhysicsConstants.h);
-        variables.put("e", PhysicsConstants.e);
-        variables.put("m_e", PhysicsConstants.m_e);
-        variables.put("m_p", PhysicsConstants.m_p);
-        variables.put("k_B", PhysicsConstants.k_B);
-        variables.put("G", PhysicsConstants.G);
-        variables.put("g", PhysicsConstants.g);
-        variables.put("alpha", PhysicsConstants.alpha);
-        variables.put("epsilon_0", PhysicsConstants.epsilon_0);
-        variables.put("mu_0", PhysicsConstants.mu_0);
-        variables.put("eV", PhysicsConstants.eV);
-        variables.put("AU", PhysicsConstants.AU);
-        variables.put("ly", PhysicsConstants.ly);
-        variables.put("pi", Math.PI);
-        variables.put("E", Math.E);
+        input = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        session = new Engine().newContext();
     }
 
-    public void run() {
+    public void run() throws IOException {
         printWelcome();
+        StartupProfile.mark("welcome banner");
         
         while (true) {
             System.out.print(">>> ");
-            String input = scanner.nextLine().trim();
+            String line = input.readLine();
+            if (line == null) {
+                line = "exit"; // End of input
+            }
+            line = line.trim();
+            StartupProfile.mark("read command");
             
-            if (input.isEmpty()) continue;
+            if (line.isEmpty()) continue;
             
-            if (input.equals("exit") || input.equals("quit")) {
+            if (line.equals("exit") || line.equals("quit")) {
                 System.out.println("Goodbye!");
+                StartupProfile.report(System.err);
                 break;
             }
             
             try {
-                String result = processCommand(input);
+                String result = processCommand(line);
                 if (!result.isEmpty()) {
                     System.out.println(result);
                 }
             } catch (Exception e) {
                 System.out.println("ERROR: " + e.getMessage());
             }
+            StartupProfile.mark("evaluate and print");
+            StartupProfile.report(System.err);
             
             System.out.println();
         }
@@ -90,10 +85,10 @@ public class SimpleConsoleCalc {
                 return "";
             default:
                 // Check if it's a variable name
-                if (variables.containsKey(command)) {
-                    double value = variables.get(command);
-                    variables.put("ans", value);
-                    return command + " = " + formatResult(value);
+                if (session.contains(command)) {
+                    double value = session.get(command);
+                    session.set("ans", value);
+                    return command + " = " + DoubleFormatter.formatResult(value);
                 }
                 
                 // Try some simple calculations
@@ -105,53 +100,45 @@ public class SimpleConsoleCalc {
         // Handle some simple patterns
         if (command.equals("electron_energy") || command.equals("m_e * c^2")) {
             double energy = PhysicsConstants.m_e * PhysicsConstants.c * PhysicsConstants.c;
-            variables.put("ans", energy);
-            return "Electron rest energy = " + formatResult(energy) + " J = " + 
-                   formatResult(energy / PhysicsConstants.eV) + " eV";
+            session.set("ans", energy);
+            return "Electron rest energy = " + DoubleFormatter.formatResult(energy) + " J = " + 
+                   DoubleFormatter.formatResult(energy / PhysicsConstants.eV) + " eV";
         }
         
         if (command.equals("proton_energy") || command.equals("m_p * c^2")) {
             double energy = PhysicsConstants.m_p * PhysicsConstants.c * PhysicsConstants.c;
-            variables.put("ans", energy);
-            return "Proton rest energy = " + formatResult(energy) + " J = " + 
-                   formatResult(energy / PhysicsConstants.eV) + " eV";
+            session.set("ans", energy);
+            return "Proton rest energy = " + DoubleFormatter.formatResult(energy) + " J = " + 
+                   DoubleFormatter.formatResult(energy / PhysicsConstants.eV) + " eV";
         }
         
         if (command.startsWith("photon_energy_")) {
             // Extract wavelength from command like "photon_energy_500nm"
             String wavelengthStr = command.substring(14);
             if (wavelengthStr.endsWith("nm")) {
-                double wavelength = Double.parseDouble(wavelengthStr.substring(0, wavelengthStr.length()-2)) * 1e-9;
+                double wavelength = NumberParser.parse(wavelengthStr, 0, wavelengthStr.length() - 2) * 1e-9;
                 double energy = PhysicsConstants.photonEnergy(wavelength);
-                variables.put("ans", energy);
-                return "Photon energy (" + wavelengthStr + ") = " + formatResult(energy) + " J = " +
-                       formatResult(energy / PhysicsConstants.eV) + " eV";
+                session.set("ans", energy);
+                return "Photon energy (" + wavelengthStr + ") = " + DoubleFormatter.formatResult(energy) + " J = " +
+                       DoubleFormatter.formatResult(energy / PhysicsConstants.eV) + " eV";
             }
         }
         
         if (command.equals("fine_structure")) {
-            return "Fine structure constant = " + formatResult(PhysicsConstants.alpha);
+            return "Fine structure constant = " + DoubleFormatter.formatResult(PhysicsConstants.alpha);
         }
         
         if (command.equals("bohr_radius")) {
-            return "Bohr radius = " + formatResult(PhysicsConstants.a_0) + " m";
+            return "Bohr radius = " + DoubleFormatter.formatResult(PhysicsConstants.a_0) + " m";
         }
         
         if (command.equals("rydberg")) {
-            return "Rydberg constant = " + formatResult(PhysicsConstants.R_infinity) + " m⁻¹";
+            return "Rydberg constant = " + DoubleFormatter.formatResult(PhysicsConstants.R_infinity) + " m⁻¹";
         }
         
         throw new RuntimeException("Unknown command or calculation: " + command);
     }
 
-    private String formatResult(double result) {
-        if (Math.abs(result) > 1e6 || (Math.abs(result) < 1e-3 && result != 0)) {
-            return String.format("%.6e", result);
-        } else {
-            return String.format("%.6f", result);
-        }
-    }
-
     private String getVariables() {
         StringBuilder sb = new StringBuilder();
         sb.append("Physics Constants Available:\n");
@@ -165,9 +152,9 @@ public class SimpleConsoleCalc {
         };
         
         for (int i = 0; i < constants.length; i++) {
-            if (variables.containsKey(constants[i])) {
+            if (session.contains(constants[i])) {
                 sb.append(String.format("  %-12s = %-12s (%s)\n", 
-                    constants[i], formatResult(variables.get(constants[i])), descriptions[i]));
+                    constants[i], DoubleFormatter.formatResult(session.get(constants[i])), descriptions[i]));
             }
         }
         
@@ -224,10 +211,12 @@ public class SimpleConsoleCalc {
         System.out.println("Try typing any of the commands shown above!");
     }
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        StartupProfile.start(args);
         System.out.println("Starting Physics Console Calculator...\n");
         
         SimpleConsoleCalc calc = new SimpleConsoleCalc();
+        StartupProfile.mark("console setup");
         calc.run();
     }
 }
\ No newline at end of file
@@ -0,0 +1,86 @@
+package com.example;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+/**
+ * Startup phase timings for the headless consoles, shown with --startup-profile
+ *
+ * mark() records how long the phase that just finished took. Marks cost one branch
+ * while profiling is off, so they can stay on paths that run for every command.
+ * The time the JVM took to reach main() is its uptime less the time spent since main(),
+ * so it is only known to the millisecond.
+ */
+public final class StartupProfile {
+    public static final String FLAG = "--startup-profile";
+    private static final int MAX_PHASES = 32;
+
+    private static boolean enabled;
+    private static final String[] phases = new String[MAX_PHASES];
+    private static final long[] nanos = new long[MAX_PHASES];
+    private static int count;
+    private static long mainNanos;
+    private static long last;
+
+    private StartupProfile() {
+    }
+
+    /**
+     * Start profiling if args contain FLAG; call first thing in main
+     * @return args without FLAG
+     */
+    public static String[] start(String[] args) {
+        int kept = 0;
+        String[] rest = new String[args.length];
+        for (String arg : args) {
+            if (arg.equals(FLAG)) {
+                enabled = true;
+            } else {
+                rest[kept++] = arg;
+            }
+        }
+        if (enabled) {
+            mainNanos = System.nanoTime();
+            last = mainNanos;
+        }
+        return kept == args.length ? args : Arrays.copyOf(rest, kept);
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Record the phase that ended now; ignored when not profiling or once the table is full
+     */
+    public static void mark(String phase) {
+        if (!enabled || count == MAX_PHASES) {
+            return;
+        }
+        long now = System.nanoTime();
+        phases[count] = phase;
+        nanos[count++] = now - last;
+        last = now;
+    }
+
+    /**
+     * Print the phases so far and stop profiling
+     */
+    public static void report(PrintStream out) {
+        if (!enabled) {
+            return;
+        }
+        enabled = false;
+        long jvm = ManagementFactory.getRuntimeMXBean().getUptime() - (System.nanoTime() - mainNanos) / 1_000_000;
+        out.println("Startup profile:");
+        out.printf("  %-24s %8d ms%n", "jvm to main (approx.)", jvm);
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            total += nanos[i];
+            out.printf("  %-24s %8.2f ms%n", phases[i], nanos[i] / 1e6);
+        }
+        out.printf("  %-24s %8.2f ms%n", "main to here", total / 1e6);
+        out.printf("  %-24s %8.2f ms%n", "jvm start to here", jvm + total / 1e6);
+    }
+}
@@ -0,0 +1,235 @@
+package com.example;
+
+import java.util.Arrays;
+
+/**
+ * Variable storage with names bound to fixed slots
+ *
+ * Expressions parsed against a table refer to variables by slot, so evaluation reads
+ * values() directly instead of looking names up. Slots are never removed, which keeps
+ * previously parsed expressions valid. Not thread-safe.
+ *
+ * Variables defined with defineConstant() may be folded into expressions by the optimizer.
+ * Redefining one turns it into an ordinary variable and bumps getConstantVersion(),
+ * which tells caches holding folded expressions to drop them.
+ *
+ * Names are interned and found through an open-addressing table of slots, so lookups
+ * neither box nor allocate. Every write stamps its slot with the next table-wide
+ * version, so a cache that remembers getVersion() can ask exactly which slots changed.
+ */
+public class SymbolTable {
+    private String[] names = new String[16];
+    private double[] values = new double[16];
+    private boolean[] constant = new boolean[16];
+    private long[] versions = new long[16];
+    private int size;
+    private int constantVersion;
+    private long version;
+
+    // Open-addressing index from name to slot + 1; 0 marks an empty bucket
+    private String[] bucketNames = new String[32];
+    private int[] bucketSlots = new int[32];
+
+    public SymbolTable() {
+    }
+
+    /**
+     * Copy another table's variables, constants and versions; the copy shares nothing mutable with it
+     */
+    public SymbolTable(SymbolTable source) {
+        names = source.names.clone();
+        values = source.values.clone();
+        constant = source.constant.clone();
+        versions = source.versions.clone();
+        size = source.size;
+        constantVersion = source.constantVersion;
+        version = source.version;
+        bucketNames = source.bucketNames.clone();
+        bucketSlots = source.bucketSlots.clone();
+    }
+
+    /**
+     * @return the slot bound to a name, or -1 if the name is not defined
+     */
+    public int slotOf(String name) {
+        int mask = bucketNames.length - 1;
+        for (int bucket = bucketOf(name, mask); bucketSlots[bucket] != 0; bucket = (bucket + 1) & mask) {
+            String candidate = bucketNames[bucket];
+            if (candidate == name || candidate.equals(name)) {
+                return bucketSlots[bucket] - 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Set a variable, binding a new slot the first time the name is seen
+     * @return the variable's slot
+     */
+    public int define(String name, double value) {
+        int slot = slotOf(name);
+        if (slot < 0) {
+            if (size == values.length) {
+                names = Arrays.copyOf(names, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+                constant = Arrays.copyOf(constant, size * 2);
+                versions = Arrays.copyOf(versions, size * 2);
+            }
+            slot = size++;
+            names[slot] = name.intern();
+            index(names[slot], slot);
+        } else {
+            clearConstant(slot);
+        }
+        values[slot] = value;
+        versions[slot] = ++version;
+        return slot;
+    }
+
+    /**
+     * Define a variable whose value may be folded into expressions at parse time
+     * @return the variable's slot
+     */
+    public int defineConstant(String name, double value) {
+        int slot = define(name, value);
+        constant[slot] = true;
+        return slot;
+    }
+
+    public void set(int slot, double value) {
+        checkSlot(slot);
+        clearConstant(slot);
+        values[slot] = value;
+        versions[slot] = ++version;
+    }
+
+    public boolean isConstant(int slot) {
+        checkSlot(slot);
+        return constant[slot];
+    }
+
+    /**
+     * Incremented whenever a constant is redefined
+     */
+    public int getConstantVersion() {
+        return constantVersion;
+    }
+
+    /**
+     * Version of the latest write to any slot; 0 for an empty table
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Version of the latest write to one slot; greater than a remembered getVersion() if it changed since
+     */
+    public long getVersion(int slot) {
+        checkSlot(slot);
+        return versions[slot];
+    }
+
+    /**
+     * @return whether any of the given slots was written after the given version
+     */
+    public boolean changedSince(long since, int... slots) {
+        for (int slot : slots) {
+            if (getVersion(slot) > since) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public double get(int slot) {
+        checkSlot(slot);
+        return values[slot];
+    }
+
+    /**
+     * @throws IllegalArgumentException if the name is not defined
+     */
+    public double get(String name) {
+        int slot = slotOf(name);
+        if (slot < 0) {
+            throw new IllegalArgumentException("Unknown variable: " + name);
+        }
+        return values[slot];
+    }
+
+    public boolean contains(String name) {
+        return slotOf(name) >= 0;
+    }
+
+    public String nameOf(int slot) {
+        checkSlot(slot);
+        return names[slot];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Backing value array indexed by slot. Only the first size() entries are meaningful,
+     * and the array is replaced when the table grows, so don't hold on to it across define().
+     */
+    public double[] values() {
+        return values;
+    }
+
+    /**
+     * Whether expressions can refer to a name: a letter or '_', then letters, digits or '_'
+     */
+    public static boolean isValidName(String name) {
+        if (name.isEmpty() || !(Character.isLetter(name.charAt(0)) || name.charAt(0) == '_')) {
+            return false;
+        }
+        for (int i = 1; i < name.length(); i++) {
+            if (!Character.isLetterOrDigit(name.charAt(i)) && name.charAt(i) != '_') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void clearConstant(int slot) {
+        if (constant[slot]) {
+            constant[slot] = false;
+            constantVersion++;
+        }
+    }
+
+    private void index(String name, int slot) {
+        if (size * 2 > bucketNames.length) {
+            bucketNames = new String[bucketNames.length * 2];
+            bucketSlots = new int[bucketNames.length];
+            for (int i = 0; i < size - 1; i++) {
+                insert(names[i], i);
+            }
+        }
+        insert(name, slot);
+    }
+
+    private void insert(String name, int slot) {
+        int mask = bucketNames.length - 1;
+        int bucket = bucketOf(name, mask);
+        while (bucketSlots[bucket] != 0) {
+            bucket = (bucket + 1) & mask;
+        }
+        bucketNames[bucket] = name;
+        bucketSlots[bucket] = slot + 1;
+    }
+
+    private static int bucketOf(String name, int mask) {
+        int hash = name.hashCode() * 0x9E3779B9; // String caches its hash
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private void checkSlot(int slot) {
+        if (slot < 0 || slot >= size) {
+            throw new IndexOutOfBoundsException("No variable in slot " + slot);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.example;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Column kernels on DoubleVector lanes
+ *
+ * Only loaded through ColumnKernels.best() when jdk.incubator.vector is present.
+ * Each loop runs full vectors up to the species loop bound, then finishes the tail
+ * with the inherited scalar code.
+ */
+final class VectorColumnKernels extends ColumnKernels {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    boolean isVectorized() {
+        return true;
+    }
+
+    @Override
+    String describe() {
+        return "vector (" + SPECIES.length() + " lanes)";
+    }
+
+    @Override
+    void add(double[] a, int ao, double[] b, int bo, double[] out, int oo, int n) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, a, ao + i)
+                    .add(DoubleVector.fromArray(SPECIES, b, bo + i))
+                    .intoArray(out, oo + i);
+        }
+        super.add(a, ao + i, b, bo + i, out, oo + i, n - i);
+    }
+
+    @Override
+    void sub(double[] a, int ao, double[] b, int bo, double[] out, int oo, int n) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, a, ao + i)
+                    .sub(DoubleVector.fromArray(SPECIES, b, bo + i))
+                    .intoArray(out, oo + i);
+        }
+        super.sub(a, ao + i, b, bo + i, out, oo + i, n - i);
+    }
+
+    @Override
+    void mul(double[] a, int ao, double[] b, int bo, double[] out, int oo, int n) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, a, ao + i)
+                    .mul(DoubleVector.fromArray(SPECIES, b, bo + i))
+                    .intoArray(out, oo + i);
+        }
+        super.mul(a, ao + i, b, bo + i, out, oo + i, n - i);
+    }
+
+    @Override
+    void div(double[] a, int ao, double[] b, int bo, double[] out, int oo, int n) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, a, ao + i)
+                    .div(DoubleVector.fromArray(SPECIES, b, bo + i))
+                    .intoArray(out, oo + i);
+        }
+        super.div(a, ao + i, b, bo + i, out, oo + i, n - i);
+    }
+
+    @Override
+    void fma(double[] a, int ao, double[] b, int bo, double[] c, int co, double[] out, int oo, int n) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, a, ao + i)
+                    .fma(DoubleVector.fromArray(SPECIES, b, bo + i), DoubleVector.fromArray(SPECIES, c, co + i))
+                    .intoArray(out, oo + i);
+        }
+        super.fma(a, ao + i, b, bo + i, c, co + i, out, oo + i, n - i);
+    }
+
+    @Override
+    void neg(double[] a, int ao, double[] out, int oo, int n) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, a, ao + i).neg().intoArray(out, oo + i);
+        }
+        super.neg(a, ao + i, out, oo + i, n - i);
+    }
+
+    @Override
+    void sqrt(double[] a, int ao, double[] out, int oo, int n) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, a, ao + i).lanewise(VectorOperators.SQRT).intoArray(out, oo + i);
+        }
+        super.sqrt(a, ao + i, out, oo + i, n - i);
+    }
+
+    @Override
+    void abs(double[] a, int ao, double[] out, int oo, int n) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, a, ao + i).abs().intoArray(out, oo + i);
+        }
+        super.abs(a, ao + i, out, oo + i, n - i);
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.engine;
+
+import com.example.ExpressionCache;
+import com.example.PhysicsConstants;
+import com.example.SymbolTable;
+
+import java.util.Map;
+
+/**
+ * Embeddable expression engine with no dependency on the consoles or Swing
+ *
+ * An engine holds a fixed set of constants and a cache of compiled formulas; it is
+ * thread-safe and meant to be shared. Formulas are immutable, so any number of threads
+ * can evaluate the same one at once, each in its own EvaluationContext:
+ *
+ *   Formula energy = engine.compile("m * c^2 / eV");
+ *   EvaluationContext context = engine.context();
+ *   context.set("m", m_e);
+ *   double eV = context.evaluate(energy);
+ *
+ * Evaluation takes no locks. compile() holds the cache's lock only to look a formula up,
+ * and contexts remember the formulas they have compiled.
+ */
+public final class Engine {
+    private final SymbolTable constants;
+    private final ExpressionCache formulas;
+    private final ThreadLocal<EvaluationContext> contexts = new ThreadLocal<EvaluationContext>() {
+        @Override
+        protected EvaluationContext initialValue() {
+            return newContext();
+        }
+    };
+
+    /**
+     * An engine with every constant in PhysicsConstants, plus pi and E
+     */
+    public Engine() {
+        this(physicsConstants(), ExpressionCache.DEFAULT_CAPACITY);
+    }
+
+    public Engine(Map<String, Double> constants) {
+        this(constants, ExpressionCache.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param cacheCapacity how many compiled formulas to keep
+     */
+    public Engine(Map<String, Double> constants, int cacheCapacity) {
+        this(toTable(constants), cacheCapacity);
+    }
+
+    private Engine(SymbolTable constants, int cacheCapacity) {
+        this.constants = constants;
+        this.formulas = new ExpressionCache(constants, cacheCapacity, true);
+    }
+
+    private static SymbolTable physicsConstants() {
+        SymbolTable table = new SymbolTable();
+        PhysicsConstants.defineAll(table);
+        return table;
+    }
+
+    private static SymbolTable toTable(Map<String, Double> constants) {
+        SymbolTable table = new SymbolTable();
+        for (Map.Entry<String, Double> constant : constants.entrySet()) {
+            table.defineConstant(constant.getKey(), constant.getValue());
+        }
+        return table;
+    }
+
+    /**
+     * Compile a formula; sources already in the cache are not parsed again
+     * @throws IllegalArgumentException if the formula is malformed
+     */
+    public Formula compile(String source) {
+        return new Formula(formulas.get(source));
+    }
+
+    /**
+     * A context of its own, e.g. for a console session; not thread-safe
+     */
+    public EvaluationContext newContext() {
+        return new EvaluationContext(this, new SymbolTable(constants));
+    }
+
+    /**
+     * The calling thread's context, created on first use
+     */
+    public EvaluationContext context() {
+        return contexts.get();
+    }
+
+    public boolean isConstant(String name) {
+        return constants.contains(name);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the engine has no such constant
+     */
+    public double getConstant(String name) {
+        return constants.get(name);
+    }
+
+    /**
+     * Formula cache statistics as a formatted string
+     */
+    public String getStatistics() {
+        return formulas.getStatistics();
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.engine;
+
+import com.example.Expression;
+import com.example.ExpressionCache;
+import com.example.SymbolTable;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Variables and scratch space for evaluating formulas on one thread
+ *
+ * A context starts with the engine's constants and holds whatever variables are set in
+ * it, including "ans", the last result of execute(). Each formula evaluated here gets a
+ * scratch array laid out for it, filled from the context's values on every call, so the
+ * formula itself is never written. Not thread-safe: use one context per thread.
+ *
+ * Redefining one of the engine's constants is allowed. Formulas that folded it are then
+ * evaluated against the context's own table instead, which sees the new value.
+ */
+public final class EvaluationContext {
+    private static final int MAX_REMEMBERED = 256;
+
+    private final Engine engine;
+    private final SymbolTable symbols;
+    private final int initialConstantVersion;
+    private final Map<String, Formula> compiled = new HashMap<>();
+    private final Map<Expression, Binding> bindings = new IdentityHashMap<>();
+    private Binding last;
+    private ExpressionCache redefined;
+
+    EvaluationContext(Engine engine, SymbolTable symbols) {
+        this.engine = engine;
+        this.symbols = symbols;
+        this.initialConstantVersion = symbols.getConstantVersion();
+    }
+
+    public Engine getEngine() {
+        return engine;
+    }
+
+    /**
+     * The context's variables and constants, for tools that work on a symbol table
+     * such as CsvPipeline or NameCompleter. Writes are seen by later evaluations.
+     */
+    public SymbolTable getSymbols() {
+        return symbols;
+    }
+
+    public void set(String name, double value) {
+        symbols.define(name, value);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the name is not defined
+     */
+    public double get(String name) {
+        return symbols.get(name);
+    }
+
+    public boolean contains(String name) {
+        return symbols.contains(name);
+    }
+
+    /**
+     * Compile through the engine, remembering the result for this context
+     * @throws IllegalArgumentException if the formula is malformed
+     */
+    public Formula compile(String source) {
+        Formula formula = compiled.get(source);
+        if (formula == null) {
+            if (compiled.size() == MAX_REMEMBERED) {
+                compiled.clear();
+            }
+            formula = engine.compile(source);
+            compiled.put(source, formula);
+        }
+        return formula;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the formula is malformed or uses a variable this context lacks
+     */
+    public double evaluate(String source) {
+        return evaluate(compile(source));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the formula uses a variable this context lacks
+     */
+    public double evaluate(Formula formula) {
+        Binding binding = last;
+        if (binding == null || binding.expression != formula.expression
+                || binding.constantVersion != symbols.getConstantVersion()) {
+            binding = bind(formula);
+        }
+        double[] values = symbols.values();
+        if (binding.redefined != null) {
+            return binding.redefined.evaluate(values);
+        }
+        double[] scratch = binding.scratch;
+        int[] from = binding.from;
+        int[] to = binding.to;
+        for (int i = 0; i < from.length; i++) {
+            scratch[to[i]] = values[from[i]];
+        }
+        return formula.expression.evaluate(scratch);
+    }
+
+    /**
+     * Describe the trees this context evaluates for a formula; they differ from
+     * Formula.explain() once a constant the formula folded has been redefined here
+     */
+    public String explain(Formula formula) {
+        return foldsRedefinedConstant(formula) ? redefined().get(formula.getSource()).explain() : formula.explain();
+    }
+
+    /**
+     * Run a console statement, either an expression or "name = expression", and store
+     * the result in ans as well
+     * @return the value of the expression
+     * @throws IllegalArgumentException if the statement is malformed or uses an unknown variable
+     */
+    public double execute(String statement) {
+        String target = targetOf(statement);
+        double value = evaluate(target == null ? statement : statement.substring(statement.indexOf('=') + 1).trim());
+        if (target != null) {
+            symbols.define(target, value);
+        }
+        symbols.define("ans", value);
+        return value;
+    }
+
+    /**
+     * The variable a statement assigns, or null if it is a plain expression
+     * @throws IllegalArgumentException if the left-hand side is not a name
+     */
+    public static String targetOf(String statement) {
+        int equals = statement.indexOf('=');
+        if (equals < 0 || statement.contains("==")) {
+            return null;
+        }
+        String target = statement.substring(0, equals).trim();
+        if (!SymbolTable.isValidName(target)) {
+            throw new IllegalArgumentException("Invalid variable name: '" + target + "'");
+        }
+        return target;
+    }
+
+    private Binding bind(Formula formula) {
+        int constantVersion = symbols.getConstantVersion();
+        Binding binding = bindings.get(formula.expression);
+        if (binding == null || binding.constantVersion != constantVersion) {
+            binding = new Binding(formula.expression, constantVersion);
+            if (foldsRedefinedConstant(formula)) {
+                binding.redefined = redefined().get(formula.getSource());
+            } else {
+                binding.scratch = formula.newScratch();
+                binding.to = formula.variableSlots;
+                binding.from = new int[formula.variables.length];
+                for (int i = 0; i < binding.from.length; i++) {
+                    binding.from[i] = symbols.slotOf(formula.variables[i]);
+                    if (binding.from[i] < 0) {
+                        throw new IllegalArgumentException("Unknown variable: " + formula.variables[i]);
+                    }
+                }
+            }
+            if (bindings.size() == MAX_REMEMBERED) {
+                bindings.clear();
+            }
+            bindings.put(formula.expression, binding);
+        }
+        last = binding;
+        return binding;
+    }
+
+    /**
+     * Expressions parsed against this context's table, for formulas that folded a constant it redefined
+     */
+    private ExpressionCache redefined() {
+        if (redefined == null) {
+            redefined = new ExpressionCache(symbols);
+        }
+        return redefined;
+    }
+
+    private boolean foldsRedefinedConstant(Formula formula) {
+        if (symbols.getConstantVersion() == initialConstantVersion) {
+            return false;
+        }
+        for (String constant : formula.constants) {
+            if (!symbols.isConstant(symbols.slotOf(constant))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Where a formula's variables live in this context, and the scratch array they are copied to
+     */
+    private static final class Binding {
+        final Expression expression;
+        final int constantVersion;
+        int[] from;
+        int[] to;
+        double[] scratch;
+        Expression redefined;
+
+        Binding(Expression expression, int constantVersion) {
+            this.expression = expression;
+            this.constantVersion = constantVersion;
+        }
+    }
+}
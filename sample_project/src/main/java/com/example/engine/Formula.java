@@ -0,0 +1,75 @@
+package com.example.engine;
+
+import com.example.Expression;
+import com.example.SymbolTable;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A compiled expression, immutable and safe to share between threads
+ *
+ * Constants of the engine are folded in when the formula is compiled; every other name
+ * is a variable whose value comes from the EvaluationContext it is evaluated in.
+ */
+public final class Formula {
+    final Expression expression;
+    final String[] variables;
+    final int[] variableSlots;
+    final String[] constants;
+
+    Formula(Expression expression) {
+        this.expression = expression;
+        SymbolTable table = expression.getSymbols();
+        String[] names = expression.getVariableNames();
+        int[] slots = expression.getVariableSlots();
+        String[] variables = new String[names.length];
+        int[] variableSlots = new int[names.length];
+        String[] constants = new String[names.length];
+        int variableCount = 0;
+        int constantCount = 0;
+        for (int i = 0; i < names.length; i++) {
+            if (table.isConstant(slots[i])) {
+                constants[constantCount++] = names[i];
+            } else {
+                variables[variableCount] = names[i];
+                variableSlots[variableCount++] = slots[i];
+            }
+        }
+        this.variables = Arrays.copyOf(variables, variableCount);
+        this.variableSlots = Arrays.copyOf(variableSlots, variableCount);
+        this.constants = Arrays.copyOf(constants, constantCount);
+    }
+
+    public String getSource() {
+        return expression.getSource();
+    }
+
+    /**
+     * Names the formula reads from its context, in order of appearance
+     */
+    public List<String> getVariables() {
+        return Collections.unmodifiableList(Arrays.asList(variables));
+    }
+
+    /**
+     * Describe the parsed and optimized trees, for checking what the optimizer folded
+     */
+    public String explain() {
+        return expression.explain();
+    }
+
+    /**
+     * A table laid out for this formula, with its constants filled in; scratch for one thread
+     */
+    double[] newScratch() {
+        SymbolTable table = expression.getSymbols();
+        return Arrays.copyOf(table.values(), table.size());
+    }
+
+    @Override
+    public String toString() {
+        return expression.toString();
+    }
+}
@@ -0,0 +1,94 @@
+package com.example;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+public class BatchEvaluatorTest {
+    
+    public static void main(String[] args) {
+        SymbolTable symbols = new SymbolTable();
+        symbols.defineConstant("c", PhysicsConstants.c);
+        symbols.define("m", PhysicsConstants.m_e);
+        symbols.define("v", 0);
+        symbols.define("x", 0);
+        
+        int rows = 3 * ColumnProgram.CHUNK + 7;
+        double[] velocities = new double[rows];
+        double[] xs = new double[rows];
+        for (int i = 0; i < rows; i++) {
+            velocities[i] = i * 1e5;
+            xs[i] = i - rows / 2.0;
+        }
+        double[][] columns = {velocities, xs};
+        
+        // Test columnar mode matches compiled mode exactly when nothing is fused
+        String[] exact = {
+            "m * c^2 / sqrt(1 - v^2/c^2) - m * c^2",
+            "abs(x) / (v - x) + -x",
+            "sin(x) - ln(v + 1) / exp(x / 1000) - pow(abs(x), 1.5)",
+            "de_broglie(m, v + 1)",
+            "x"
+        };
+        for (String source : exact) {
+            Expression expression = ExpressionParser.parse(source, symbols);
+            double[] compiled = new double[rows];
+            double[] columnar = new double[rows];
+            new BatchEvaluator(expression, "v", "x").evaluate(columns, compiled);
+            new BatchEvaluator(expression, BatchEvaluator.Mode.COLUMNAR, "v", "x").evaluate(columns, columnar);
+            for (int i = 0; i < rows; i++) {
+                assert Double.compare(compiled[i], columnar[i]) == 0 : "Columnar mismatch for " + source + " at row " + i;
+            }
+        }
+        
+        // Test fused multiply-add stays within one rounding of the scalar result
+        Expression fused = ExpressionParser.parse("x * v + 3 * x", symbols);
+        double[] compiled = new double[rows];
+        double[] columnar = new double[rows];
+        new BatchEvaluator(fused, "v", "x").evaluate(columns, compiled);
+        new BatchEvaluator(fused, BatchEvaluator.Mode.COLUMNAR, "v", "x").evaluate(columns, columnar);
+        for (int i = 0; i < rows; i++) {
+            assert Math.abs(compiled[i] - columnar[i]) <= 2 * Math.ulp(compiled[i]) : "FMA result out of tolerance at row " + i;
+        }
+        
+        // Test partial ranges leave other rows untouched
+        double[] partial = new double[rows];
+        new BatchEvaluator(fused, BatchEvaluator.Mode.COLUMNAR, "v", "x").evaluate(columns, partial, 10, 20);
+        assert partial[9] == 0 && partial[20] == 0 && partial[10] == columnar[10] : "Partial range test failed";
+        
+        // Test the fork/join evaluator matches the sequential one over many leaf tasks
+        int large = 200_000;
+        double[] bigV = new double[large];
+        double[] bigX = new double[large];
+        for (int i = 0; i < large; i++) {
+            bigV[i] = 1.0e8 * (i % 997) / 997.0;
+            bigX[i] = i * 0.001 - 50;
+        }
+        Map<String, double[]> named = new HashMap<>();
+        named.put("x", bigX);
+        named.put("v", bigV);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        for (BatchEvaluator.Mode mode : BatchEvaluator.Mode.values()) {
+            ParallelBatchEvaluator parallel = new ParallelBatchEvaluator(fused, mode, pool, "v", "x");
+            assert parallel.getGrain() % 1024 == 0 && parallel.getGrain() < large : "Grain should split large inputs";
+            double[] sequential = new double[large];
+            double[] forked = new double[large];
+            parallel.getBatchEvaluator().evaluate(new double[][] {bigV, bigX}, sequential);
+            parallel.evaluate(named, forked);
+            for (int i = 0; i < large; i++) {
+                assert Double.compare(sequential[i], forked[i]) == 0 : "Parallel mismatch in " + mode + " at row " + i;
+            }
+        }
+        pool.shutdown();
+        
+        try {
+            new ParallelBatchEvaluator(fused, "v", "x").evaluate(Collections.singletonMap("v", bigV), new double[large]);
+            assert false : "Missing column should fail";
+        } catch (IllegalArgumentException e) {
+            assert e.getMessage().contains("x") : "Error should name the missing column";
+        }
+        
+        System.out.println("All batch evaluator tests passed! (vector lanes: " + BatchEvaluator.isVectorAvailable() + ")");
+    }
+}
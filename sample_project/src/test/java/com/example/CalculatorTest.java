@@ -1,8 +1,11 @@
 package com.example;
 
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
 public class CalculatorTest {
     
-    public static void main(String[] args) {
+    public static void main(String[] args) throws Exception {
         Calculator calc = new Calculator();
         
         // Test addition
@@ -17,6 +20,66 @@ public class CalculatorTest {
         // Test division
         assert calc.divide(10, 2) == 5.0 : "Division test failed";
         
+        // Test powers match Math.pow bit for bit, including near the subnormal and overflow ranges
+        for (double x : new double[] {3, 1.1, -2.7, 1e-103, 2.5e-108, 5e102, 5.6e102, 1e77, 1.3e-77, 7.1e-81}) {
+            assert calc.square(x) == Math.pow(x, 2) : "Square of " + x;
+            assert calc.cube(x) == Math.pow(x, 3) : "Cube of " + x;
+            assert calc.calculateBlackbodyPower(x, 1) == PhysicsConstants.sigma * Math.pow(x, 4) : "Blackbody power at " + x;
+        }
+        
+        // Test every bulk overload matches its scalar method bit for bit
+        int n = 1000;
+        double[][] inputs = new double[3][n];
+        for (int k = 0; k < n; k++) {
+            inputs[0][k] = 1.0 + k * 0.37;
+            inputs[1][k] = 0.5 + (k % 17) * 0.03;
+            inputs[2][k] = 1.0e3 + k;
+        }
+        int bulkMethods = 0;
+        for (Method bulk : Calculator.class.getMethods()) {
+            Class<?>[] types = bulk.getParameterTypes();
+            if (types.length < 2 || types[0] != double[].class || types[types.length - 1] != double[].class) {
+                continue;
+            }
+            int arity = types.length - 1;
+            Class<?>[] scalarTypes = new Class<?>[arity];
+            Arrays.fill(scalarTypes, double.class);
+            Method scalar = Calculator.class.getMethod(bulk.getName(), scalarTypes);
+            
+            Object[] bulkArgs = new Object[arity + 1];
+            System.arraycopy(inputs, 0, bulkArgs, 0, arity);
+            double[] out = new double[n];
+            bulkArgs[arity] = out;
+            bulk.invoke(calc, bulkArgs);
+            for (int k = 0; k < n; k++) {
+                Object[] scalarArgs = new Object[arity];
+                for (int a = 0; a < arity; a++) {
+                    scalarArgs[a] = inputs[a][k];
+                }
+                double expected = (Double) scalar.invoke(calc, scalarArgs);
+                assert Double.compare(expected, out[k]) == 0 : "Bulk " + bulk.getName() + " differs at " + k;
+            }
+            bulkMethods++;
+        }
+        assert bulkMethods == 30 : "Expected a bulk overload for every formula, found " + bulkMethods;
+        
+        // Test ranges only touch the requested slice
+        double[] out = new double[n];
+        calc.calculatePower(inputs[0], inputs[1], out, 10, 5);
+        assert out[9] == 0 && out[15] == 0 && out[10] == calc.calculatePower(inputs[0][10], inputs[1][10]) : "Bulk range test failed";
+        try {
+            calc.calculatePower(inputs[0], new double[4], out, 0, 5);
+            assert false : "Short input should fail";
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+        try {
+            calc.calculatePowerFactor(inputs[0], new double[n], out);
+            assert false : "Zero apparent power should fail";
+        } catch (IllegalArgumentException e) {
+            assert e.getMessage().equals("Apparent power cannot be zero") : "Bulk error message should match scalar";
+        }
+        
         System.out.println("All tests passed!");
     }
 }
\ No newline at end of file
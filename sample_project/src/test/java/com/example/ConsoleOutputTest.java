@@ -0,0 +1,58 @@
+package com.example;
+
+import javax.swing.JTextArea;
+import javax.swing.SwingUtilities;
+
+public class ConsoleOutputTest {
+
+    public static void main(String[] args) throws Exception {
+        JTextArea area = new JTextArea();
+        ConsoleOutput output = new ConsoleOutput(area, 100, 4096);
+
+        // Test appends from many threads arrive in one flush with nothing lost
+        Thread[] writers = new Thread[4];
+        for (int t = 0; t < writers.length; t++) {
+            writers[t] = new Thread(() -> {
+                for (int i = 0; i < 10; i++) {
+                    output.append("line\n");
+                }
+            });
+            writers[t].start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        SwingUtilities.invokeAndWait(output::flush);
+        assert area.getText().length() == 40 * 5 : "All appended text should be shown";
+
+        // Test the frame timer flushes without an explicit call
+        output.append("timed\n");
+        Thread.sleep(20 * ConsoleOutput.FRAME_MILLIS);
+        SwingUtilities.invokeAndWait(() -> { });
+        assert area.getText().endsWith("timed\n") : "Timer should flush pending output";
+
+        // Test the scrollback limit keeps only the newest lines
+        for (int i = 0; i < 250; i++) {
+            output.append("row " + i + "\n");
+        }
+        SwingUtilities.invokeAndWait(output::flush);
+        String text = area.getText();
+        assert area.getLineCount() == 100 : "Scrollback should hold 100 lines, has " + area.getLineCount();
+        assert text.endsWith("row 249\n") && !text.contains("row 149\n") : "Oldest lines should be trimmed";
+
+        // Test overflowing the pending buffer drops the oldest text and says so
+        ConsoleOutput small = new ConsoleOutput(area, 1000, 4096);
+        small.clear();
+        StringBuilder burst = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            burst.append(String.format("%07d\n", i));
+        }
+        small.append(burst.toString());
+        SwingUtilities.invokeAndWait(small::flush);
+        text = area.getText();
+        assert text.startsWith("[... 3904 characters of output dropped ...]") : "Drop marker expected: " + text.substring(0, 40);
+        assert text.endsWith("0000999\n") : "Newest output should survive";
+
+        System.out.println("All console output tests passed!");
+    }
+}
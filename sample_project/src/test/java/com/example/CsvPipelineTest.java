@@ -0,0 +1,108 @@
+package com.example;
+
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+public class CsvPipelineTest {
+
+    public static void main(String[] args) throws Exception {
+        // Test field parsing matches Double.parseDouble bit for bit
+        String[] numbers = {
+            "0", "-0", "1", "-1.5", "0.1", ".5", "5.", "3.14159", " 42 ", "+7", "1e3", "2.5E-3",
+            "6.02214076e23", "1.602176634e-19", "123456789012345678901", "0.000000000000000000001",
+            "9007199254740993", "1e-300", "1.7976931348623157e308", "4.9e-324", "1e400", "NaN", "-Infinity"
+        };
+        for (String number : numbers) {
+            double parsed = parse(number);
+            assert Double.compare(parsed, Double.parseDouble(number)) == 0 : "Parse mismatch for " + number;
+        }
+        assert Double.isNaN(parse("   ")) : "Blank field should be NaN";
+        for (String invalid : new String[] {"abc", "1e", "1.2.3", "--1"}) {
+            try {
+                parse(invalid);
+                assert false : "Should reject " + invalid;
+            } catch (NumberFormatException e) {
+                // expected
+            }
+        }
+
+        // Test a file spanning many small mapping windows, with CRLF line ends and a blank line
+        Path input = Files.createTempFile("pipeline", ".csv");
+        Path output = Files.createTempFile("pipeline", ".out");
+        StringBuilder csv = new StringBuilder("time, V ,I,unused\r\n");
+        int rows = 500;
+        for (int i = 0; i < rows; i++) {
+            csv.append(i).append(',').append(230 + i * 0.01).append(',').append(i % 13 * 0.5).append(",x\r\n");
+            if (i == 100) {
+                csv.append("\r\n");
+            }
+        }
+        Files.write(input, csv.toString().getBytes(StandardCharsets.US_ASCII));
+
+        SymbolTable symbols = new SymbolTable();
+        PhysicsConstants.defineAll(symbols);
+        CsvPipeline pipeline = new CsvPipeline(symbols, "V * I + 0 * pi", 256);
+        assert pipeline.run(input, output) == rows : "Row count mismatch";
+
+        List<String> lines = Files.readAllLines(output);
+        assert lines.size() == rows + 1 : "Output line count mismatch";
+        assert lines.get(0).equals("time, V ,I,unused,result") : "Header should gain a result column";
+        for (int i = 0; i < rows; i++) {
+            double expected = (230 + i * 0.01) * (i % 13 * 0.5);
+            String line = lines.get(i + 1);
+            double actual = Double.parseDouble(line.substring(line.lastIndexOf(',') + 1));
+            assert Double.compare(expected, actual) == 0 : "Result mismatch on row " + i;
+        }
+
+        // Test an interrupted thread stops the run
+        Thread.currentThread().interrupt();
+        try {
+            pipeline.run(input, output);
+            assert false : "Interrupted run should stop";
+        } catch (InterruptedIOException | ClosedByInterruptException e) {
+            Thread.interrupted(); // A channel that notices the interrupt before the row loop leaves it set
+        }
+
+        // Test columns don't leak into the caller's table, even when they shadow a constant
+        Files.write(input, "c,m\n2,3\n".getBytes(StandardCharsets.US_ASCII));
+        assert new CsvPipeline(symbols, "m * c^2", 256).run(input, output) == 1 : "Shadowing run";
+        assert Files.readAllLines(output).get(1).equals("2,3,12.0") : "Column should shadow the constant";
+        assert symbols.get("c") == PhysicsConstants.c && symbols.isConstant(symbols.slotOf("c")) : "Constant should be untouched";
+        assert !symbols.contains("m") && !symbols.contains("time") : "Columns should not be defined";
+        for (String header : new String[] {"x,,y", "x,2y", "x,a b"}) {
+            Files.write(input, (header + "\n1,2,3\n").getBytes(StandardCharsets.US_ASCII));
+            try {
+                new CsvPipeline(symbols, "x", 256).run(input, output);
+                assert false : "Should reject header " + header;
+            } catch (IllegalArgumentException e) {
+                assert e.getMessage().startsWith("Column 2 has an invalid name") : "Unexpected message: " + e.getMessage();
+            }
+        }
+
+        // Test the last line may lack a newline and errors name the line
+        Files.write(input, "a,b\n1,2\n3".getBytes(StandardCharsets.US_ASCII));
+        try {
+            new CsvPipeline(new SymbolTable(), "a + b").run(input, output);
+            assert false : "Missing column should fail";
+        } catch (IllegalArgumentException e) {
+            assert e.getMessage().equals("Missing column 2 on line 3") : "Unexpected message: " + e.getMessage();
+        }
+        Files.write(input, "a,b\n1,2\n3,4".getBytes(StandardCharsets.US_ASCII));
+        assert new CsvPipeline(new SymbolTable(), "a + b").run(input, output) == 2 : "Unterminated last line should count";
+
+        Files.delete(input);
+        Files.delete(output);
+
+        System.out.println("All CSV pipeline tests passed!");
+    }
+
+    private static double parse(String text) {
+        byte[] bytes = ("," + text + ",").getBytes(StandardCharsets.US_ASCII);
+        return CsvPipeline.parseNumber(ByteBuffer.wrap(bytes), 1, bytes.length - 1);
+    }
+}
@@ -0,0 +1,153 @@
+package com.example;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.math.BigInteger;
+import java.util.Locale;
+import java.util.Random;
+
+public class DoubleFormatterTest {
+
+    public static void main(String[] args) {
+        Locale.setDefault(Locale.ROOT);
+        DoubleFormatter formatter = new DoubleFormatter();
+
+        // Test the power table matches g(k) computed exactly
+        long[] g = powersOfTen(-324, 292);
+        assert g.length == DoubleFormatter.G.length : "Power table length";
+        for (int i = 0; i < g.length; i++) {
+            assert g[i] == DoubleFormatter.G[i] : "Power table entry " + i + " for k = " + (i / 2 - 324);
+        }
+
+        // Test special values and layout
+        assert DoubleFormatter.formatResult(Math.PI).equals("3.141593") : "Fixed format failed";
+        assert DoubleFormatter.formatResult(2.99792458e8).equals("2.997925e+08") : "Exponential format failed";
+        assert DoubleFormatter.formatResult(-0.0).equals("-0.000000") : "Negative zero keeps its sign";
+        assert DoubleFormatter.formatResult(9.9999995e-4).equals("1.000000e-03") : "Carry should bump the exponent";
+        assert DoubleFormatter.formatResult(Double.NaN).equals("NaN") : "NaN";
+        assert DoubleFormatter.formatResult(Double.NEGATIVE_INFINITY).equals("-Infinity") : "Infinity";
+        assert formatter.toString(100, DoubleFormatter.Mode.SHORTEST).equals("100.0") : "Integers keep a decimal";
+        assert formatter.toString(1e-5, DoubleFormatter.Mode.SHORTEST).equals("1.0E-5") : "Small values are scientific";
+        assert formatter.toString(Double.MIN_VALUE, DoubleFormatter.Mode.SHORTEST).equals("4.9E-324") : "Smallest subnormal";
+        assert formatter.toString(-Double.MAX_VALUE, DoubleFormatter.Mode.SHORTEST).equals("-1.7976931348623157E308") : "Largest value";
+
+        // Test against String.format and Double.toString across magnitudes and edge cases
+        Random random = new Random(21);
+        int shorter = 0;
+        for (int i = 0; i < 2_000_000; i++) {
+            double value;
+            switch (i % 5) {
+                case 0: value = Double.longBitsToDouble(random.nextLong()); break;
+                case 1: value = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(20) - 8); break;
+                case 2: value = random.nextInt(2_000_000) / 1e6 + 0.0000005; break; // Near %.6f ties
+                case 3: value = (random.nextInt(20_000_000) + 0.5) * Math.pow(10, random.nextInt(40) - 20); break; // Near %.6e ties
+                default: value = random.nextInt(10_000_000) * (random.nextBoolean() ? 1 : 0.001);
+            }
+            String expected = Math.abs(value) > 1e6 || (Math.abs(value) < 1e-3 && value != 0)
+                    ? String.format("%.6e", value) : String.format("%.6f", value);
+            String actual = DoubleFormatter.formatResult(value);
+            assert actual.equals(expected) : "Fixed mismatch for " + value + ": " + actual + " vs " + expected;
+
+            String shortest = formatter.toString(value, DoubleFormatter.Mode.SHORTEST);
+            String reference = Double.toString(value);
+            if (!shortest.equals(reference)) {
+                // The JDK's older algorithm occasionally emits an extra or less close digit
+                assert Double.parseDouble(shortest) == value || Double.isNaN(value) : "Round trip failed for " + reference + ": " + shortest;
+                assert significantDigits(shortest) <= significantDigits(reference) : "Not shortest: " + shortest + " vs " + reference;
+                shorter++;
+            }
+        }
+        assert shorter < 20_000 : "Shortest output should almost always match Double.toString";
+
+        // Test buffers of every kind and that formatting into them doesn't allocate
+        char[] chars = new char[DoubleFormatter.MAX_LENGTH * 2];
+        int end = formatter.format(1.5, DoubleFormatter.Mode.SHORTEST, chars, 3);
+        assert new String(chars, 3, end - 3).equals("1.5") : "char[] offset";
+        byte[] bytes = new byte[DoubleFormatter.MAX_LENGTH];
+        end = formatter.format(-2.5e-7, DoubleFormatter.Mode.FIXED, bytes, 0);
+        assert new String(bytes, 0, end).equals("-2.500000e-07") : "byte[] output";
+        assert formatter.append(new StringBuilder("x = "), 2, DoubleFormatter.Mode.FIXED).toString().equals("x = 2.000000") : "append";
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+            double[] values = new double[1000];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = Double.longBitsToDouble(random.nextLong() >>> 2);
+            }
+            long total = 0;
+            for (int warm = 0; warm < 50; warm++) {
+                total += formatAll(formatter, values, bytes);
+            }
+            long start = allocations.getThreadAllocatedBytes(Thread.currentThread().getId());
+            total += formatAll(formatter, values, bytes);
+            long allocated = allocations.getThreadAllocatedBytes(Thread.currentThread().getId()) - start;
+            assert allocated < 1024 : "Formatting allocated " + allocated + " bytes";
+            assert total > 0;
+        }
+
+        int rounds = 1_000_000;
+        long start = System.nanoTime();
+        long length = 0;
+        for (int i = 0; i < rounds; i++) {
+            length += formatter.format(i * 1.37e-3, DoubleFormatter.Mode.FIXED, bytes, 0);
+        }
+        long fixedNanos = (System.nanoTime() - start) / rounds;
+        start = System.nanoTime();
+        for (int i = 0; i < rounds / 10; i++) {
+            length += String.format("%.6f", i * 1.37e-3).length();
+        }
+        long formatNanos = (System.nanoTime() - start) / (rounds / 10);
+        assert length > 0;
+
+        System.out.println("All double formatter tests passed! (" + fixedNanos + " ns vs " + formatNanos
+                + " ns for String.format)");
+    }
+
+    private static long formatAll(DoubleFormatter formatter, double[] values, byte[] out) {
+        long total = 0;
+        for (double value : values) {
+            total += formatter.format(value, DoubleFormatter.Mode.FIXED, out, 0);
+            total += formatter.format(value, DoubleFormatter.Mode.SHORTEST, out, 0);
+        }
+        return total;
+    }
+
+    private static int significantDigits(String text) {
+        int e = text.indexOf('E');
+        String mantissa = (e < 0 ? text : text.substring(0, e)).replace("-", "").replace(".", "");
+        mantissa = mantissa.replaceAll("^0+", "").replaceAll("0+$", "");
+        return mantissa.length();
+    }
+
+    /**
+     * g(k) = floor(10^-k / 2^r) + 1 with 2^125 <= 10^-k / 2^r < 2^126, split into 63-bit halves
+     */
+    private static long[] powersOfTen(int smallest, int largest) {
+        long mask = (1L << 63) - 1;
+        long[] table = new long[(largest - smallest + 1) * 2];
+        for (int k = smallest; k <= largest; k++) {
+            // 10^-k / 2^r as numerator / denominator, with r picked from the bit lengths and then adjusted
+            BigInteger numerator = k <= 0 ? BigInteger.TEN.pow(-k) : BigInteger.ONE;
+            BigInteger denominator = k <= 0 ? BigInteger.ONE : BigInteger.TEN.pow(k);
+            int r = numerator.bitLength() - denominator.bitLength() - 126;
+            BigInteger floor;
+            while (true) {
+                BigInteger n = r < 0 ? numerator.shiftLeft(-r) : numerator;
+                BigInteger d = r > 0 ? denominator.shiftLeft(r) : denominator;
+                floor = n.divide(d);
+                if (floor.bitLength() > 126) {
+                    r++;
+                } else if (floor.bitLength() < 126) {
+                    r--;
+                } else {
+                    break;
+                }
+            }
+            BigInteger value = floor.add(BigInteger.ONE);
+            table[(k - smallest) * 2] = value.shiftRight(63).longValue();
+            table[(k - smallest) * 2 + 1] = value.longValue() & mask;
+        }
+        return table;
+    }
+}
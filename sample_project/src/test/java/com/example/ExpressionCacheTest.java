@@ -0,0 +1,50 @@
+package com.example;
+
+public class ExpressionCacheTest {
+    
+    public static void main(String[] args) {
+        ExpressionCache cache = new ExpressionCache(2);
+        
+        // Test normalization shares entries across whitespace variants
+        Expression first = cache.get("x + 1");
+        assert cache.get("  x+1 ") == first : "Normalized lookup test failed";
+        assert cache.getHits() == 1 && cache.getMisses() == 1 : "Hit/miss counter test failed";
+        assert ExpressionCache.normalize("sin ( x ) * 2").equals("sin(x)*2") : "Normalize test failed";
+        assert ExpressionCache.normalize("1 2").equals("1 2") : "Token separation test failed";
+        assert ExpressionCache.normalize("x * * 2").equals("x* *2") : "Separate stars should not become a power";
+        assert ExpressionCache.normalize("x ** 2").equals("x**2") : "Power operator";
+        assert ExpressionCache.normalize("5e - 3").equals("5e -3") : "Sign should not join an exponent";
+        assert ExpressionCache.normalize("5e- 3").equals("5e- 3") : "Digits should not join an exponent sign";
+        assert ExpressionCache.normalize("5e-3 - 1").equals("5e-3-1") : "Exponents stay as written";
+        SymbolTable table = new SymbolTable();
+        table.define("x", 3);
+        table.define("e", 2);
+        ExpressionCache bound = new ExpressionCache(table);
+        assert bound.get("5e-3").evaluate() == 5e-3 && bound.get("x ** 2").evaluate() == 9 : "Exponent and power";
+        for (String spaced : new String[] {"5e - 3", "x * * 2"}) {
+            try {
+                bound.get(spaced);
+                assert false : "'" + spaced + "' should not parse as if unspaced";
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+        
+        // Test LRU eviction
+        cache.get("y * 2");
+        cache.get("x + 1");          // touch x + 1 so y * 2 becomes eldest
+        cache.get("z / 3");
+        assert cache.size() == 2 : "Capacity test failed";
+        assert cache.getEvictions() == 1 : "Eviction counter test failed";
+        assert cache.get("x+1") == first : "Recently used entry should survive eviction";
+        
+        // Test failures are not cached
+        try {
+            cache.get("2 +");
+            assert false : "Malformed expression should fail";
+        } catch (IllegalArgumentException expected) {
+        }
+        assert cache.size() == 2 : "Failed parse should not be cached";
+        
+        System.out.println("All expression cache tests passed!");
+    }
+}
@@ -0,0 +1,45 @@
+package com.example;
+
+public class ExpressionCompilerTest {
+    
+    private static void check(String source, double... slots) {
+        Expression expression = ExpressionParser.parse(source);
+        double expected = expression.getRoot().eval(slots);
+        CompiledExpression compiled = ExpressionCompiler.compile(expression.getRoot());
+        double actual = compiled.eval(slots);
+        assert Double.compare(expected, actual) == 0 : "Compiled result differs for " + source + ": " + actual + " vs " + expected;
+    }
+    
+    public static void main(String[] args) {
+        // Test arithmetic, functions and constants against the tree walker
+        check("2 + 3 * 4");
+        check("-x^2 + 1 / x", 3.0);
+        check("sqrt(16) + sin(pi/2) - cos(0) * tan(1)", Math.PI);
+        check("log(1000) + ln(E) + exp(1) + abs(-2) + pow(2, 10)", Math.E);
+        check("photon_energy(wavelength) / eV", 500e-9, PhysicsConstants.eV);
+        check("de_broglie(m, v)", PhysicsConstants.m_e, 1e6);
+        check("0 * x + 1 - 0.1", 7.0);
+        
+        // Test slot indices beyond the short push forms
+        StringBuilder sum = new StringBuilder("v0");
+        double[] slots = new double[300];
+        for (int i = 1; i < slots.length; i++) {
+            sum.append(" + v").append(i);
+            slots[i] = i;
+        }
+        check(sum.toString(), slots);
+        
+        // Test compiled classes are hidden so they can be unloaded
+        CompiledExpression compiled = ExpressionCompiler.compile(ExpressionParser.parse("x * 2").getRoot());
+        assert compiled.getClass().isHidden() : "Compiled class should be hidden";
+        
+        // Test hot expressions switch to the compiled evaluator
+        Expression hot = ExpressionParser.parse("x + 1");
+        for (int i = 0; i < Expression.COMPILE_THRESHOLD; i++) {
+            assert hot.evaluate(new double[] {i}) == i + 1 : "Hot evaluation test failed";
+        }
+        assert hot.isCompiled() : "Expression should compile once hot";
+        
+        System.out.println("All expression compiler tests passed!");
+    }
+}
@@ -0,0 +1,108 @@
+package com.example;
+
+public class ExpressionOptimizerTest {
+    
+    public static void main(String[] args) {
+        SymbolTable symbols = new SymbolTable();
+        symbols.defineConstant("c", PhysicsConstants.c);
+        symbols.defineConstant("m_e", PhysicsConstants.m_e);
+        symbols.defineConstant("eV", PhysicsConstants.eV);
+        symbols.define("v", 1e6);
+        
+        // Test constant folding
+        Expression rest = ExpressionParser.parse("m_e * c^2 / eV", symbols);
+        assert rest.getRoot().op == ExpressionNode.Op.NUMBER : "Constant subtree should fold";
+        assert rest.evaluate() == rest.getParsedRoot().eval(symbols.values()) : "Folded value test failed";
+        
+        // Test ordinary variables are not folded
+        Expression kinetic = ExpressionParser.parse("0.5 * m_e * v^2", symbols);
+        assert ExpressionOptimizer.size(kinetic.getRoot()) < ExpressionOptimizer.size(kinetic.getParsedRoot())
+                : "Partial folding test failed";
+        assert kinetic.evaluate() == 0.5 * PhysicsConstants.m_e * (1e6 * 1e6) : "Kinetic energy test failed";
+        
+        // Test strength reduction of squares, and that powers match Math.pow bit for bit
+        assert ExpressionParser.parse("v^2", symbols).getRoot().op == ExpressionNode.Op.MUL : "x^2 reduction failed";
+        assert ExpressionParser.parse("v^1", symbols).getRoot().op == ExpressionNode.Op.VARIABLE : "x^1 reduction failed";
+        assert ExpressionParser.parse("v^0", symbols).evaluate() == 1 : "x^0 reduction failed";
+        assert ExpressionParser.parse("v^-1", symbols).evaluate() == 1e-6 : "x^-1 failed";
+        assert ExpressionParser.parse("v^4", symbols).getRoot().op == ExpressionNode.Op.POW : "x^4 should stay a call";
+        Calculator calculator = new Calculator();
+        SymbolTable powers = new SymbolTable();
+        powers.define("x", 0);
+        Expression squared = ExpressionParser.parse("x^2", powers);
+        Expression cube = ExpressionParser.parse("x^3", powers);
+        Expression fourth = ExpressionParser.parse("x^4", powers);
+        Expression reciprocal = ExpressionParser.parse("x^-2", powers);
+        for (double x : new double[] {1.1, -2.7, 1e-103, 2.5e-108, 5.6e102, 1.3e-77, 7.1e-81, 1e77}) {
+            powers.define("x", x);
+            assert squared.evaluate() == calculator.square(x) : "Square of " + x;
+            assert cube.evaluate() == calculator.cube(x) : "Cube of " + x;
+            assert fourth.evaluate() == Math.pow(x, 4) && reciprocal.evaluate() == Math.pow(x, -2) : "Powers of " + x;
+        }
+        assert ExpressionParser.parse("v^0.5", symbols).getRoot().op == ExpressionNode.Op.POW : "Non-integer power should stay";
+        
+        // Test redefining a constant invalidates folded cache entries
+        ExpressionCache cache = new ExpressionCache(symbols);
+        double before = cache.get("c * 2").evaluate();
+        symbols.define("c", 1.0);
+        assert !symbols.isConstant(symbols.slotOf("c")) : "Redefined constant should become a variable";
+        assert cache.get("c * 2").evaluate() == 2.0 && before != 2.0 : "Stale folded expression was reused";
+        
+        // Test batch evaluation hoists invariants and treats inputs as varying
+        symbols.define("k", 3.0);
+        Expression formula = ExpressionParser.parse("sqrt(k * m_e) * v + eV", symbols);
+        BatchEvaluator batch = new BatchEvaluator(formula, "v", "eV");
+        assert batch.getRoot().args[0].args[0].op == ExpressionNode.Op.NUMBER : "Invariant subtree should be hoisted";
+        double[] out = new double[3];
+        batch.evaluate(new double[][] {{1, 2, 3}, {10, 20, 30}}, out);
+        for (int i = 0; i < out.length; i++) {
+            double expected = Math.sqrt(3.0 * PhysicsConstants.m_e) * (i + 1) + 10 * (i + 1);
+            assert out[i] == expected : "Batch row " + i + " failed";
+        }
+        
+        // Test common subexpression elimination
+        SymbolTable relativity = new SymbolTable();
+        relativity.defineConstant("c", PhysicsConstants.c);
+        relativity.define("m0", PhysicsConstants.m_e);
+        relativity.define("u", 2e8);
+        Expression relativistic = ExpressionParser.parse(
+                "m0 / sqrt(1 - u^2/c^2) * c^2 - m0 * c^2 + m0 * u^2 / sqrt(1 - u^2/c^2)", relativity);
+        ExpressionNode root = relativistic.getRoot();
+        assert ExpressionOptimizer.sharedNodes(root).size() >= 2 : "Repeated subexpressions should be shared";
+        double treeValue = root.eval(relativity.values());
+        double compiledValue = ExpressionCompiler.compile(root).eval(relativity.values());
+        assert treeValue == relativistic.getParsedRoot().eval(relativity.values()) : "CSE changed the result";
+        assert compiledValue == treeValue : "Compiled CSE result differs from tree walker";
+        assert SharedNodeWalker.of(root).eval(relativity.values()) == treeValue : "Shared walker result differs";
+
+        // Test the tree walker evaluates shared nodes once; revisiting them would take 2^40 steps
+        ExpressionNode doubling = ExpressionNode.variable("u", relativity.slotOf("u"));
+        for (int i = 0; i < 40; i++) {
+            ExpressionNode half = ExpressionNode.apply(ExpressionNode.Op.MUL, doubling, ExpressionNode.number(0.5));
+            doubling = ExpressionNode.apply(ExpressionNode.Op.ADD, half, half);
+        }
+        assert SharedNodeWalker.of(doubling).eval(relativity.values()) == 2e8 : "Shared walker should reuse values";
+        assert SharedNodeWalker.of(ExpressionNode.number(1)) instanceof ExpressionNode : "Trees without sharing walk directly";
+        
+        // Test deeply nested powers: every pass over the DAG must visit each node once
+        for (String power : new String[] {"^2", "^4"}) {
+            StringBuilder nested = new StringBuilder("x");
+            for (int i = 0; i < 16; i++) {
+                nested.insert(0, '(').append(')').append(power);
+            }
+            SymbolTable one = new SymbolTable();
+            one.define("x", -1);
+            Expression deep = ExpressionParser.parse(nested.toString(), one);
+            assert deep.evaluate() == 1 : "Nested power " + power;
+            assert ExpressionOptimizer.size(deep.getRoot()) <= 3 * 16 + 2 : "Size should count distinct nodes";
+            assert deep.explain().length() < 4096 : "Explain should print shared nodes once";
+            assert deep.compile() != deep.getRoot() && deep.evaluate() == 1 : "Nested power should compile";
+        }
+        SymbolTable square = new SymbolTable();
+        square.define("x", 3);
+        assert ExpressionParser.parse("x^2 + x^2", square).toString().equals("t1 = (x * x); (t1 + t1)")
+                : "Shared subexpressions should print as bindings";
+
+        System.out.println("All expression optimizer tests passed!");
+    }
+}
@@ -0,0 +1,72 @@
+package com.example;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class ExpressionParserTest {
+    
+    private static double eval(String expression, Map<String, Double> variables) {
+        return ExpressionParser.parse(expression).evaluate(variables);
+    }
+    
+    public static void main(String[] args) {
+        Map<String, Double> vars = new HashMap<>();
+        vars.put("c", PhysicsConstants.c);
+        vars.put("m_e", PhysicsConstants.m_e);
+        vars.put("eV", PhysicsConstants.eV);
+        vars.put("pi", Math.PI);
+        
+        // Test precedence and associativity
+        assert eval("2 + 3 * 4", vars) == 14.0 : "Precedence test failed";
+        assert eval("(5 + 3) / 2", vars) == 4.0 : "Parentheses test failed";
+        assert eval("2^3^2", vars) == 512.0 : "Power associativity test failed";
+        assert eval("-2^2", vars) == -4.0 : "Unary minus test failed";
+        assert eval("2**-1", vars) == 0.5 : "Power operator alias test failed";
+        
+        // Test functions
+        assert eval("sqrt(16) + sin(pi/2)", vars) == 5.0 : "Math function test failed";
+        assert eval("log(1000)", vars) == 3.0 : "log10 test failed";
+        assert eval("pow(2, 10)", vars) == 1024.0 : "pow function test failed";
+        
+        // Test physics functions and constants
+        assert eval("m_e * c^2 / eV", vars) == Math.pow(PhysicsConstants.c, 2) * PhysicsConstants.m_e / PhysicsConstants.eV
+                : "Electron rest energy test failed";
+        assert eval("photon_energy(500e-9)", vars) == PhysicsConstants.photonEnergy(500e-9) : "photon_energy test failed";
+        assert eval("de_broglie(m_e, 1e6)", vars) == PhysicsConstants.deBroglieWavelength(PhysicsConstants.m_e, 1e6)
+                : "de_broglie test failed";
+        
+        // Test errors
+        assert fails("2 +", vars) : "Incomplete expression should fail";
+        assert fails("unknown_var * 2", vars) : "Unknown variable should fail";
+        assert fails("nosuch(1)", vars) : "Unknown function should fail";
+        assert fails("sqrt(1, 2)", vars) : "Wrong arity should fail";
+        
+        // Test binding to a symbol table
+        SymbolTable symbols = new SymbolTable();
+        for (int i = 0; i < 10000; i++) {
+            symbols.define("v" + i, i);
+        }
+        symbols.define("x", 2.0);
+        Expression bound = ExpressionParser.parse("x * v9999 + x", symbols);
+        assert bound.evaluate() == 20000.0 : "Bound evaluation test failed";
+        symbols.define("x", 3.0);
+        assert bound.evaluate() == 30000.0 : "Bound variable update test failed";
+        assert bound.getVariableNames().length == 2 : "Distinct variable test failed";
+        try {
+            ExpressionParser.parse("y + 1", symbols);
+            assert false : "Undefined variable should fail at parse time";
+        } catch (IllegalArgumentException expected) {
+        }
+        
+        System.out.println("All expression parser tests passed!");
+    }
+    
+    private static boolean fails(String expression, Map<String, Double> variables) {
+        try {
+            eval(expression, variables);
+            return false;
+        } catch (IllegalArgumentException e) {
+            return true;
+        }
+    }
+}
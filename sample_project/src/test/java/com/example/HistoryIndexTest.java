@@ -0,0 +1,74 @@
+package com.example;
+
+import java.util.Random;
+
+public class HistoryIndexTest {
+
+    public static void main(String[] args) {
+        // Test substring and prefix search in both directions
+        HistoryIndex small = new HistoryIndex();
+        for (String command : new String[] {"E = m_e * c^2", "sqrt(16)", "photon_energy(500e-9)", "E / eV", "sqrt(2)", "x = 1"}) {
+            small.add(command);
+        }
+        assert small.findOlder("sqrt", small.size()) == 4 : "Newest match should come first";
+        assert small.findOlder("sqrt", 4) == 1 : "Search should continue below the previous match";
+        assert small.findOlder("sqrt", 1) == -1 : "No older match should give -1";
+        assert small.findOlder("energy(500", small.size()) == 2 : "Multi-trigram query failed";
+        assert small.findOlder("E", small.size()) == 3 : "Short queries should scan";
+        assert small.findOlder("", small.size()) == 5 : "Empty query matches the newest entry";
+        assert small.findOlder("zzz", small.size()) == -1 : "Unknown trigram should give -1";
+        assert small.findOlder("_e * c^2", 0) == -1 : "Nothing comes before the first entry";
+        assert small.findOlderWithPrefix("E ", small.size()) == 3 : "Prefix search failed";
+        assert small.findOlderWithPrefix("sqrt(", 1) == -1 : "Prefix search should stop at the start";
+        assert small.findNewerWithPrefix("sqrt(", 1) == 4 : "Forward prefix search failed";
+        assert small.findNewerWithPrefix("sqrt(", 4) == -1 : "Forward search should stop at the end";
+        assert small.findOlder("(16", small.size()) == 1 && small.findOlder("16)", small.size()) == 1 : "Trigram at the end of an entry";
+
+        // Test against a linear scan on random history, growing the index as we go
+        Random random = new Random(42);
+        String[] names = {"x", "y", "energy", "mass", "v_0", "lambda", "photon_energy", "sqrt", "sin", "cos"};
+        HistoryIndex index = new HistoryIndex();
+        int total = 1_000_000;
+        for (int i = 0; i < total; i++) {
+            index.add(names[random.nextInt(names.length)] + " = " + names[random.nextInt(names.length)]
+                    + "(" + random.nextInt(100_000) + ") * " + names[random.nextInt(names.length)]);
+            if (i % 100_003 == 0) {
+                String query = names[random.nextInt(names.length)] + "(" + random.nextInt(1000);
+                assert index.findOlder(query, index.size()) == scan(index, query, index.size()) : "Mismatch while growing";
+            }
+        }
+
+        int queries = 2_000;
+        String[] sample = new String[queries];
+        for (int q = 0; q < queries; q++) {
+            String entry = index.get(random.nextInt(total));
+            int from = random.nextInt(entry.length() - 4);
+            sample[q] = entry.substring(from, from + 4 + random.nextInt(entry.length() - from - 4 + 1));
+        }
+        for (int q = 0; q < 50; q++) {
+            int before = random.nextInt(total);
+            assert index.findOlder(sample[q], before) == scan(index, sample[q], before) : "Mismatch for " + sample[q];
+        }
+
+        long start = System.nanoTime();
+        int found = 0;
+        for (String query : sample) {
+            if (index.findOlder(query, total) >= 0) {
+                found++;
+            }
+        }
+        long micros = (System.nanoTime() - start) / 1000 / queries;
+        assert found == queries : "Every sampled query occurs in the history";
+
+        System.out.println("All history index tests passed! (" + micros + " us per search over " + total + " entries)");
+    }
+
+    private static int scan(HistoryIndex index, String query, int before) {
+        for (int i = before - 1; i >= 0; i--) {
+            if (index.get(i).contains(query)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,145 @@
+package com.example;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class HistoryLogTest {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 3 && args[0].equals("--append")) {
+            // Child process for the shared log test
+            try (HistoryLog log = new HistoryLog(Paths.get(args[1]))) {
+                for (int i = 0; i < Integer.parseInt(args[2]); i++) {
+                    log.append(HistoryLog.CONSOLE, "child " + i);
+                }
+            }
+            return;
+        }
+
+        Path directory = Files.createTempDirectory("history-test");
+        Path file = directory.resolve("history");
+
+        // Test appends are written in order with timestamps and sources
+        long before = System.currentTimeMillis();
+        try (HistoryLog log = new HistoryLog(file)) {
+            for (int i = 0; i < 100_000; i++) {
+                log.append(i % 10 == 0 ? HistoryLog.GUI : HistoryLog.CONSOLE, "x = " + i);
+            }
+            log.append(HistoryLog.CONSOLE, "E = m_e * c² — ünïcode");
+            log.flush();
+            assert log.size() == 100_001 : "Every entry should be indexed";
+            assert log.get(0).equals("x = 0") && log.getSource(0) == HistoryLog.GUI : "First entry mismatch";
+            assert log.get(99_999).equals("x = 99999") && log.getSource(99_999) == HistoryLog.CONSOLE : "Last entry mismatch";
+            assert log.get(100_000).equals("E = m_e * c² — ünïcode") : "UTF-8 should round-trip";
+            assert log.getTimestamp(0) >= before && log.getTimestamp(100_000) >= log.getTimestamp(0) : "Timestamps should be recorded";
+            assert log.recent(HistoryLog.GUI, 2).equals(List.of("x = 99980", "x = 99990")) : "Recent should filter by source";
+        }
+
+        // Test reopening maps the existing entries
+        try (HistoryLog log = new HistoryLog(file)) {
+            assert log.size() == 100_001 && log.get(12_345).equals("x = 12345") : "Reopened log should have every entry";
+            log.append(HistoryLog.CONSOLE, "after reopen");
+            log.flush();
+            assert log.get(100_001).equals("after reopen") : "Appends after reopen should follow old entries";
+        }
+
+        // Test a torn entry at the end is cut off on open
+        long intact = Files.size(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[] {0, 0, 0, 50, 1, 2, 3}));
+        }
+        try (HistoryLog log = new HistoryLog(file)) {
+            assert log.size() == 100_002 && Files.size(file) == intact : "Torn tail should be truncated";
+        }
+
+        // Test compaction keeps repeated entries in place unless deduplication is enabled
+        Path compacting = directory.resolve("compacting");
+        try (HistoryLog log = new HistoryLog(compacting)) {
+            for (String entry : new String[] {"x = 1", "y = x*2", "x = 1"}) {
+                log.append(HistoryLog.CONSOLE, entry);
+            }
+            log.compact();
+            assert log.recent(HistoryLog.CONSOLE, 10).equals(List.of("x = 1", "y = x*2", "x = 1")) : "Repeats should survive";
+        }
+        Files.delete(compacting);
+
+        // Test deduplicating compaction keeps the newest copy of each entry
+        try (HistoryLog log = new HistoryLog(compacting, 0, true)) {
+            for (String entry : new String[] {"a", "b", "a", "c", "b"}) {
+                log.append(HistoryLog.CONSOLE, entry);
+            }
+            log.append(HistoryLog.GUI, "a");
+            log.compact();
+            assert log.size() == 4 : "Duplicates should be removed";
+            assert log.recent(HistoryLog.CONSOLE, 10).equals(List.of("a", "c", "b")) : "Newest copies should be kept in order";
+            assert log.recent(HistoryLog.GUI, 10).equals(List.of("a")) : "Sources should be compacted separately";
+        }
+
+        // Test the size cap drops the oldest entries
+        Path capped = directory.resolve("capped");
+        try (HistoryLog log = new HistoryLog(capped, 4096)) {
+            for (int i = 0; i < 10_000; i++) {
+                log.append(HistoryLog.CONSOLE, "entry " + i);
+            }
+            log.flush();
+            assert Files.size(capped) <= 4096 && log.getFileSize() == Files.size(capped) : "File should stay under the cap";
+            assert log.get(log.size() - 1).equals("entry 9999") : "Newest entry should survive";
+        }
+
+        // Test other files are rejected
+        Path other = directory.resolve("other");
+        Files.writeString(other, "not a history log");
+        try {
+            new HistoryLog(other).close();
+            assert false : "Foreign file should be rejected";
+        } catch (IOException e) {
+            // expected
+        }
+
+        // Test two processes appending to one log while one of them compacts it
+        Path shared = directory.resolve("shared");
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        Process child = new ProcessBuilder(java, "-ea", "-cp", System.getProperty("java.class.path"),
+                "com.example.HistoryLogTest", "--append", shared.toString(), "2000")
+                .inheritIO()
+                .start();
+        try (HistoryLog log = new HistoryLog(shared)) {
+            for (int i = 0; i < 2000; i++) {
+                log.append(HistoryLog.GUI, "parent " + i);
+                if (i % 500 == 0) {
+                    log.compact();
+                }
+            }
+            assert child.waitFor() == 0 : "Child process should exit cleanly";
+            log.flush();
+            assert log.size() == 4000 : "Parent should see both processes' entries: " + log.size();
+            assert log.get(log.size() - 1).equals("parent 1999") || log.get(log.size() - 1).equals("child 1999")
+                    : "Last entry should be one of the newest";
+        }
+        try (HistoryLog log = new HistoryLog(shared)) {
+            Set<String> entries = new HashSet<>();
+            for (int i = 0; i < log.size(); i++) {
+                entries.add(log.get(i));
+            }
+            assert log.size() == 4000 && entries.size() == 4000 : "No entry should be lost or duplicated: " + log.size();
+            assert entries.contains("child 0") && entries.contains("child 1999") && entries.contains("parent 1999")
+                    : "Entries from both processes should survive";
+        }
+
+        for (String name : new String[] {"history", "compacting", "capped", "other", "shared"}) {
+            Files.deleteIfExists(directory.resolve(name));
+            Files.deleteIfExists(directory.resolve(name + ".lock"));
+        }
+        Files.delete(directory);
+        System.out.println("All history log tests passed!");
+    }
+}
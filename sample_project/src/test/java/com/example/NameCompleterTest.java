@@ -0,0 +1,90 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class NameCompleterTest {
+
+    public static void main(String[] args) {
+        SymbolTable variables = new SymbolTable();
+        PhysicsConstants.defineAll(variables);
+        NameCompleter completer = new NameCompleter(variables);
+
+        // Test functions, constants and table names are all offered, shortest first
+        assert completer.complete("photon", 5).equals(List.of("photon_energy")) : "Function should complete";
+        assert completer.kindOf("photon_energy") == NameCompleter.Kind.FUNCTION : "Function kind";
+        assert completer.complete("eps", 5).equals(List.of("epsilon_0")) : "Constant should complete";
+        assert completer.complete("SPEED", 5).equals(List.of("SPEED_OF_LIGHT")) : "Long constant names should complete";
+        assert variables.contains("SPEED_OF_LIGHT") : "Every PhysicsConstants constant should be defined";
+        assert completer.complete("m_", 3).equals(List.of("m_H", "m_W", "m_Z")) : "Ties break alphabetically";
+        assert completer.complete("zzz", 5).isEmpty() && completer.count("zzz") == 0 : "Unknown prefix";
+        assert completer.extend("photon_").equals("photon_energy") : "Unique prefix should extend fully";
+        assert completer.extend("m_").equals("m_") : "Ambiguous prefix should not extend";
+
+        // Test new variables are picked up and used names rank first
+        variables.define("mass_ratio", 1);
+        completer.sync();
+        assert completer.complete("mass", 5).equals(List.of("mass_ratio")) : "Synced variable should complete";
+        completer.recordUses("y = m_p * 2 + m_p");
+        assert completer.complete("m_", 3).get(0).equals("m_p") : "Frequently used names should rank first";
+
+        // Test word boundaries
+        assert NameCompleter.wordStart("2 * epsi", 8) == 4 : "Name start after an operator";
+        assert NameCompleter.wordStart("2e5", 3) == 1 : "Names don't start with a digit";
+        assert NameCompleter.wordStart("x + ", 4) == 4 : "No name before the caret";
+
+        // Test against sorting every match, with tens of thousands of variables and random uses
+        Random random = new Random(7);
+        List<String> all = new ArrayList<>();
+        for (int i = 0; i < 40_000; i++) {
+            String name = "v" + Integer.toString(random.nextInt(1 << 20), 36);
+            variables.define(name, i);
+        }
+        completer.sync();
+        for (int i = 0; i < variables.size(); i++) {
+            all.add(variables.nameOf(i));
+        }
+        for (ExpressionNode.Op op : ExpressionNode.Op.values()) {
+            if (op.function) {
+                all.add(op.symbol);
+            }
+        }
+        Map<String, Integer> uses = new HashMap<>();
+        uses.put("m_p", 2);
+        for (int i = 0; i < 5_000; i++) {
+            String pick = all.get(random.nextInt(200) * (all.size() / 200));
+            completer.recordUse(pick);
+            uses.merge(pick, 1, Integer::sum);
+        }
+        for (String prefix : new String[] {"", "v", "v1", "va", "vz", "v1a", "k"}) {
+            List<String> expected = new ArrayList<>();
+            for (int i = 0; i < all.size(); i++) {
+                if (all.get(i).startsWith(prefix)) {
+                    expected.add(all.get(i));
+                }
+            }
+            expected.sort(Comparator.<String>comparingInt(n -> -uses.getOrDefault(n, 0))
+                    .thenComparingInt(String::length).thenComparing(Comparator.naturalOrder()));
+            List<String> top = expected.subList(0, Math.min(NameCompleter.MAX_COMPLETIONS, expected.size()));
+            assert completer.complete(prefix, NameCompleter.MAX_COMPLETIONS).equals(top) : "Ranking mismatch for '" + prefix + "'";
+            assert completer.count(prefix) == expected.size() : "Count mismatch for '" + prefix + "'";
+        }
+
+        int lookups = 100_000;
+        long start = System.nanoTime();
+        int found = 0;
+        for (int i = 0; i < lookups; i++) {
+            String name = all.get(random.nextInt(all.size()));
+            found += completer.complete(name.substring(0, 1 + random.nextInt(name.length())), 5).size();
+        }
+        long nanos = (System.nanoTime() - start) / lookups;
+        assert found >= lookups : "Every prefix of a name has a completion";
+
+        System.out.println("All name completer tests passed! (" + nanos + " ns per completion over "
+                + completer.size() + " names)");
+    }
+}
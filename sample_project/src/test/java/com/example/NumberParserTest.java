@@ -0,0 +1,170 @@
+package com.example;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+public class NumberParserTest {
+
+    public static void main(String[] args) {
+        // Test the power table matches 5^q computed exactly
+        long[] powers = powersOfFive(-342, 308);
+        assert powers.length == NumberParser.POWERS_OF_FIVE.length : "Power table length";
+        for (int i = 0; i < powers.length; i++) {
+            assert powers[i] == NumberParser.POWERS_OF_FIVE[i] : "Power table entry " + i + " for q = " + (i / 2 - 342);
+        }
+
+        // Test literal forms and hard cases against Double.parseDouble
+        String[] cases = {
+            "0", "-0", "+1", "42", "3.14159", ".5", "5.", "500e-9", "6.02214076E23", "1e+5", "-2.5e-3",
+            "9007199254740993", "9999999999999999999", "18446744073709551615", "12345678901234567890123",
+            "0.1000000000000000055511151231257827", "2.2250738585072011e-308", "2.2250738585072012e-308",
+            "4.9406564584124654e-324", "2.4703282292062327e-324", "2.4703282292062328e-324", "1e-400",
+            "1.7976931348623157e308", "1.7976931348623158e308", "1.7976931348623159e308", "1e400",
+            "8.988465674311579e307", "1e23", "7.2057594037927933e16", "0.000000000000000000000000001",
+            "00000000000000000000000000000123.5", "1.00000000000000011102230246251565404236316680908203125",
+            "1.00000000000000011102230246251565404236316680908203124", "NaN", "-Infinity", "0x1p-2", "1d"
+        };
+        for (String text : cases) {
+            assertSame(Double.parseDouble(text), text);
+        }
+        for (String bad : new String[] {"", "-", ".", "e5", "1e", "1e+", "1.2.3", "12abc", "--1"}) {
+            try {
+                NumberParser.parse(bad);
+                assert false : "Should reject '" + bad + "'";
+            } catch (NumberFormatException expected) {
+                // Expected
+            }
+        }
+        assert NumberParser.parse("x=500e-9;", 2, 8) == 500e-9 : "Range within a longer text";
+
+        // Test random shortest, long and tie-heavy inputs
+        Random random = new Random(22);
+        for (int i = 0; i < 1_000_000; i++) {
+            String text;
+            switch (i % 4) {
+                case 0: text = Double.toString(Double.longBitsToDouble(random.nextLong())); break;
+                case 1: text = randomDigits(random, 1 + random.nextInt(25)) + "e" + (random.nextInt(700) - 350); break;
+                case 2: text = halfway(random).toString(); break;
+                default: text = randomDigits(random, 1 + random.nextInt(8)) + "." + randomDigits(random, random.nextInt(12));
+            }
+            if (!text.contains("Infinity") && !text.contains("NaN")) {
+                assertSame(Double.parseDouble(text), text);
+            }
+        }
+
+        // Test parsing doesn't allocate and is faster than Double.parseDouble
+        String[] sample = new String[10_000];
+        for (int i = 0; i < sample.length; i++) {
+            sample[i] = i % 2 == 0 ? Double.toString(random.nextDouble() * Math.pow(10, random.nextInt(20) - 10))
+                    : random.nextInt(100_000) + "e-" + random.nextInt(12);
+        }
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        double sum = 0;
+        for (int warm = 0; warm < 20; warm++) {
+            sum += parseAll(sample) + parseAllJdk(sample);
+        }
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+            long start = allocations.getThreadAllocatedBytes(Thread.currentThread().getId());
+            sum += parseAll(sample);
+            long allocated = allocations.getThreadAllocatedBytes(Thread.currentThread().getId()) - start;
+            assert allocated < 1024 : "Parsing allocated " + allocated + " bytes";
+        }
+        long start = System.nanoTime();
+        for (int round = 0; round < 20; round++) {
+            sum += parseAll(sample);
+        }
+        long fast = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int round = 0; round < 20; round++) {
+            sum += parseAllJdk(sample);
+        }
+        long jdk = System.nanoTime() - start;
+        assert sum != 0;
+
+        System.out.println("All number parser tests passed! (" + fast / (20 * sample.length) + " ns vs "
+                + jdk / (20 * sample.length) + " ns for Double.parseDouble)");
+    }
+
+    /**
+     * 5^q normalized to 128 bits, truncated for q >= 0 and rounded up for q < 0, as
+     * generated for Lemire's fast_float
+     */
+    private static long[] powersOfFive(int smallest, int largest) {
+        BigInteger twoTo127 = BigInteger.ONE.shiftLeft(127);
+        long[] table = new long[(largest - smallest + 1) * 2];
+        for (int q = smallest; q <= largest; q++) {
+            BigInteger power;
+            if (q >= 0) {
+                power = BigInteger.valueOf(5).pow(q);
+                int shift = 128 - power.bitLength();
+                power = shift >= 0 ? power.shiftLeft(shift) : power.shiftRight(-shift);
+            } else {
+                BigInteger divisor = BigInteger.valueOf(5).pow(-q);
+                int bits = divisor.subtract(BigInteger.ONE).bitLength(); // Smallest z with 2^z >= 5^-q
+                if (q >= -27) {
+                    power = BigInteger.ONE.shiftLeft(bits + 127).divide(divisor).add(BigInteger.ONE);
+                } else {
+                    power = BigInteger.ONE.shiftLeft(2 * bits + 128).divide(divisor).add(BigInteger.ONE);
+                    power = power.shiftRight(Math.max(0, power.bitLength() - 128));
+                }
+            }
+            assert power.compareTo(twoTo127) >= 0 && power.bitLength() == 128 : "Unnormalized power for q = " + q;
+            table[(q - smallest) * 2] = power.shiftRight(64).longValue();
+            table[(q - smallest) * 2 + 1] = power.longValue();
+        }
+        return table;
+    }
+
+    private static void assertSame(double expected, String text) {
+        double fromChars = NumberParser.parse(text);
+        assert Double.doubleToRawLongBits(fromChars) == Double.doubleToRawLongBits(expected)
+                : "Mismatch for " + text + ": " + fromChars + " vs " + expected;
+        byte[] bytes = (" " + text + " ").getBytes(StandardCharsets.US_ASCII);
+        double fromBytes = NumberParser.parse(ByteBuffer.wrap(bytes), 1, bytes.length - 1);
+        assert Double.doubleToRawLongBits(fromBytes) == Double.doubleToRawLongBits(expected)
+                : "Byte mismatch for " + text + ": " + fromBytes + " vs " + expected;
+    }
+
+    /**
+     * Exactly halfway between two doubles, or just either side of it
+     */
+    private static BigDecimal halfway(Random random) {
+        double value = Double.longBitsToDouble(random.nextLong() & 0x7FEF_FFFF_FFFF_FFFFL);
+        BigDecimal half = new BigDecimal(Math.ulp(value)).divide(BigDecimal.valueOf(2));
+        BigDecimal middle = new BigDecimal(value).add(half);
+        int side = random.nextInt(3) - 1;
+        return middle.add(half.scaleByPowerOfTen(-20).multiply(BigDecimal.valueOf(side)));
+    }
+
+    private static String randomDigits(Random random, int count) {
+        StringBuilder digits = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            // Runs of 0s and 9s push values onto rounding boundaries
+            int kind = random.nextInt(4);
+            digits.append(kind == 0 ? '0' : kind == 1 ? '9' : (char) ('0' + random.nextInt(10)));
+        }
+        return digits.toString();
+    }
+
+    private static double parseAll(String[] sample) {
+        double sum = 0;
+        for (String text : sample) {
+            sum += NumberParser.parse(text, 0, text.length());
+        }
+        return sum;
+    }
+
+    private static double parseAllJdk(String[] sample) {
+        double sum = 0;
+        for (String text : sample) {
+            sum += Double.parseDouble(text);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example;
+
+import java.io.IOException;
+
+public class PythonWorkerPoolTest {
+
+    public static void main(String[] args) throws Exception {
+        PythonWorkerPool pool = new PythonWorkerPool(2, "import math\nc = 299792458.0\n");
+        try {
+            pool.warmUp();
+        } catch (IOException e) {
+            System.out.println("Skipping Python worker pool tests: " + e.getMessage());
+            return;
+        }
+
+        try {
+            // Test init script and state persist between calls in one session
+            assert pool.execute("print(c)").equals("299792458.0\n") : "Init script should define constants";
+            pool.execute("x = 21");
+            assert pool.execute("print(x * 2)").equals("42\n") : "Globals should persist in a session";
+
+            // Test sessions map to separate interpreters
+            assert pool.execute(1, "print('x' in globals())").equals("False\n") : "Sessions should not share state";
+
+            // Test errors are reported and the worker stays usable
+            String error = pool.execute("1 / 0");
+            assert error.startsWith("Python execution failed") && error.contains("ZeroDivisionError") : "Traceback expected";
+            assert pool.execute("print(x)").equals("21\n") : "Worker should survive an exception";
+
+            // Test a crashed worker is restarted with fresh state
+            String crash = pool.execute("import os\nos._exit(3)");
+            assert crash.contains("crashed") : "Crash should be reported: " + crash;
+            String restarted = pool.execute("print('x' in globals(), c)");
+            assert restarted.startsWith("Python worker restarted") : "Restart should be reported";
+            assert restarted.endsWith("False 299792458.0\n") : "Restarted worker should rerun the init script";
+
+            // Test health checks restart killed workers
+            pool.kill(1);
+            Thread.sleep(100);
+            assert pool.checkHealth() == 1 : "Killed worker should be restarted";
+            assert pool.checkHealth() == 0 : "Healthy workers should be left alone";
+            assert pool.execute(1, "print(1 + 1)").equals("2\n") : "Restarted worker should run scripts";
+        } finally {
+            pool.close();
+        }
+
+        System.out.println("All Python worker pool tests passed!");
+    }
+}
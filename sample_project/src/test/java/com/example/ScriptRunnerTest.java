@@ -0,0 +1,70 @@
+package com.example;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+public class ScriptRunnerTest {
+
+    public static void main(String[] args) throws Exception {
+        SymbolTable symbols = new SymbolTable();
+        PhysicsConstants.defineAll(symbols);
+
+        // Test assignments, expressions, comments and errors run in order
+        String script = "# power budget\n" +
+                        "v = 230\n" +
+                        "\n" +
+                        "i = 2.5\n" +
+                        "v * i\n" +
+                        "ans / 2\n" +
+                        "undefined_var + 1\n" +
+                        "p = v * i\n" +
+                        "c = 3\n" +
+                        "c * 2\n" +
+                        "quit\n" +
+                        "v\n";
+        StringWriter output = new StringWriter();
+        int errors = new ScriptRunner(symbols).run(new BufferedReader(new StringReader(script)), output);
+        String[] lines = output.toString().split("\n");
+        assert errors == 1 : "One statement should fail";
+        assert lines.length == 8 : "Expected 8 output lines, got " + lines.length;
+        assert lines[0].equals("v = 230.000000") : "Assignment output mismatch: " + lines[0];
+        assert lines[2].equals("575.000000") : "Expression output mismatch: " + lines[2];
+        assert lines[3].equals("287.500000") : "ans should hold the previous result: " + lines[3];
+        assert lines[4].startsWith("ERROR (line 7): Unknown variable") : "Error should name the line: " + lines[4];
+        assert lines[5].equals("p = 575.000000") : "Later assignment mismatch: " + lines[5];
+        assert lines[7].equals("6.000000") : "Redefined constant should be used: " + lines[7];
+
+        // Test final values are copied back into the table
+        assert symbols.get("p") == 575.0 && symbols.get("c") == 3.0 : "Variables should survive the script";
+        assert symbols.get("ans") == 6.0 : "ans should survive the script";
+
+        // Test invalid assignment targets are parse errors and define nothing
+        int size = symbols.size();
+        output = new StringWriter();
+        errors = new ScriptRunner(symbols).run(new BufferedReader(new StringReader("2 = 3\n= 5\nx y = 1\np == p\n")), output);
+        lines = output.toString().split("\n");
+        assert errors == 4 : "Every statement should fail: " + output;
+        assert lines[0].equals("ERROR (line 1): Invalid variable name: '2'") : "Numeric target: " + lines[0];
+        assert lines[1].equals("ERROR (line 2): Invalid variable name: ''") : "Missing target: " + lines[1];
+        assert lines[2].equals("ERROR (line 3): Invalid variable name: 'x y'") : "Spaced target: " + lines[2];
+        assert lines[3].startsWith("ERROR (line 4)") : "Comparison is not an assignment: " + lines[3];
+        assert symbols.size() == size && !symbols.contains("2") && !symbols.contains("") : "Bad names should not be defined";
+
+        // Test a long script keeps statement order across many batches
+        StringBuilder longScript = new StringBuilder("x = 0\n");
+        int statements = 100_000;
+        for (int i = 1; i <= statements; i++) {
+            longScript.append("x = x + 1\n");
+        }
+        longScript.append("x * 2\n");
+        output = new StringWriter();
+        long start = System.nanoTime();
+        errors = new ScriptRunner(symbols).run(new BufferedReader(new StringReader(longScript.toString())), output);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        assert errors == 0 : "Long script should not fail";
+        assert output.toString().endsWith("x = 100000.000000\n200000.000000\n") : "Long script result mismatch";
+
+        System.out.println("All script runner tests passed! (" + statements + " statements in " + millis + " ms)");
+    }
+}
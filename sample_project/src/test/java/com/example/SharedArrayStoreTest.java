@@ -0,0 +1,99 @@
+package com.example;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+
+public class SharedArrayStoreTest {
+
+    public static void main(String[] args) throws Exception {
+        SymbolTable scalars = new SymbolTable();
+        PhysicsConstants.defineAll(scalars);
+        scalars.define("scale", 2);
+
+        try (SharedArrayStore store = new SharedArrayStore()) {
+            // Test formulas of the index and of other arrays, across several chunks
+            int length = 200_000;
+            SharedArray wl = store.compute("wl", "400e-9 + i * 1e-12", scalars, length);
+            assert wl.length() == length && wl.get(0) == 400e-9 : "Index formula failed";
+            SharedArray energy = store.compute("energy", "photon_energy(wl) / eV * scale", scalars, -1);
+            for (int k = 0; k < length; k += 9973) {
+                double expected = ExpressionParser.parse("photon_energy(w) / eV * scale", withWavelength(scalars, wl.get(k))).evaluate();
+                assert Double.compare(expected, energy.get(k)) == 0 : "Array formula mismatch at " + k;
+            }
+
+            // Test the file holds raw little-endian doubles
+            ByteBuffer raw = ByteBuffer.wrap(Files.readAllBytes(wl.getPath())).order(ByteOrder.LITTLE_ENDIAN);
+            assert raw.capacity() == length * 8 && raw.getDouble(8) == wl.get(1) : "File layout should be raw float64";
+
+            // Test mismatched lengths are rejected
+            store.create("short", 10);
+            try {
+                store.compute("bad", "wl + short", scalars, -1);
+                assert false : "Length mismatch should fail";
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+
+            // Test names that would shadow the Python prelude, the index variable or a keyword are rejected
+            for (String name : new String[] {"np", "math", "share", "new_array", "_bind_arrays", "i", "for", "None", "2x"}) {
+                try {
+                    store.create(name, 10);
+                    assert false : "Array name should be rejected: " + name;
+                } catch (IllegalArgumentException e) {
+                    assert e.getMessage().contains(name) : "Error should name the array: " + e.getMessage();
+                }
+            }
+            assert store.get("np") == null && store.get("i") == null : "Rejected names should not be created";
+
+            // Test an interrupted thread stops computing; the target already exists, so only the chunk loop can notice
+            store.compute("stopped", "i", scalars, length);
+            Thread.currentThread().interrupt();
+            try {
+                store.compute("stopped", "i * 2", scalars, length);
+                assert false : "Interrupted compute should stop";
+            } catch (InterruptedIOException e) {
+                assert !Thread.currentThread().isInterrupted() : "The interrupt should be consumed";
+            }
+
+            // Test arrays cross into Python and back without text serialization
+            PythonWorkerPool pool = new PythonWorkerPool(1, store.pythonSupport());
+            try {
+                pool.warmUp();
+            } catch (IOException e) {
+                System.out.println("Skipping Python array exchange tests: " + e.getMessage());
+                System.out.println("All shared array tests passed!");
+                return;
+            }
+            try {
+                pool.execute(store.pythonBindings());
+                assert pool.execute("print(len(wl), wl[1] == " + wl.get(1) + ")").equals("200000 True\n") : "Python should see Java arrays";
+                pool.execute("wl[5] = -1.0");
+                assert wl.get(5) == -1.0 : "Python writes should be visible in Java";
+
+                assert pool.execute("share('squares', [k * k for k in range(1000)])").isEmpty() : "share() should succeed";
+                assert store.refresh().contains("squares") : "New Python array should be mapped";
+                assert store.get("squares").length() == 1000 && store.get("squares").get(31) == 961 : "Python array values mismatch";
+                assert store.refresh().isEmpty() : "Unchanged arrays should not be remapped";
+                assert pool.execute("share('np', [1.0])").contains("ValueError") : "Python should reject reserved names";
+                assert pool.execute("print(type(np).__name__ if 'np' in globals() else 'absent')").trim().matches("module|absent")
+                        : "np should not be shadowed";
+            } finally {
+                pool.close();
+            }
+        }
+
+        System.out.println("All shared array tests passed!");
+    }
+
+    private static SymbolTable withWavelength(SymbolTable scalars, double wavelength) {
+        SymbolTable symbols = new SymbolTable();
+        for (int slot = 0; slot < scalars.size(); slot++) {
+            symbols.define(scalars.nameOf(slot), scalars.get(slot));
+        }
+        symbols.define("w", wavelength);
+        return symbols;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class StartupProfileTest {
+
+    public static void main(String[] args) throws Exception {
+        // Test the flag is stripped and phases are reported once
+        String[] rest = StartupProfile.start(new String[] {"--script", StartupProfile.FLAG, "in.txt"});
+        assert rest.length == 2 && rest[0].equals("--script") && rest[1].equals("in.txt") : "Flag should be removed";
+        assert StartupProfile.isEnabled() : "Flag should enable profiling";
+        StartupProfile.mark("first phase");
+        StartupProfile.mark("second phase");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        StartupProfile.report(new PrintStream(bytes, true, "UTF-8"));
+        String report = bytes.toString("UTF-8");
+        assert report.startsWith("Startup profile:") : "Report header";
+        assert report.indexOf("first phase") < report.indexOf("second phase") : "Phases in order";
+        assert report.contains("main to here") && report.contains("jvm to main") : "Totals";
+        assert !StartupProfile.isEnabled() : "Reporting should stop profiling";
+        bytes.reset();
+        StartupProfile.report(new PrintStream(bytes, true, "UTF-8"));
+        assert bytes.size() == 0 : "Second report should print nothing";
+        String[] plain = {"a"};
+        assert StartupProfile.start(plain) == plain : "Args without the flag are returned as is";
+
+        // Test the console answers headless without loading AWT or Swing
+        Path dir = Files.createTempDirectory("startup");
+        try {
+            Path classLog = dir.resolve("classes.log");
+            String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+            Process process = new ProcessBuilder(java, "-Xlog:class+load:file=" + classLog,
+                    "-Dcalculator.history=" + dir.resolve("history"), "-cp", System.getProperty("java.class.path"),
+                    "com.example.ConsoleCalculator", StartupProfile.FLAG)
+                    .redirectError(dir.resolve("err.txt").toFile())
+                    .start();
+            process.getOutputStream().write("2 + 3\nexit\n".getBytes(StandardCharsets.UTF_8));
+            process.getOutputStream().close();
+            String out = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            assert process.waitFor() == 0 : "Console should exit cleanly";
+            assert out.contains("5.000000") : "Console output: " + out;
+            String err = new String(Files.readAllBytes(dir.resolve("err.txt")), StandardCharsets.UTF_8);
+            assert err.contains("Startup profile:") && err.contains("print result") : "Profile output: " + err;
+            String classes = new String(Files.readAllBytes(classLog), StandardCharsets.UTF_8);
+            assert classes.contains("com.example.ConsoleCalculator") : "Class log should be written";
+            assert !classes.contains(" java.awt.") && !classes.contains(" javax.swing.") : "AWT should not load";
+            assert !classes.contains("com.example.Expression$$Lambda") : "First evaluation should not bootstrap a lambda";
+        } finally {
+            for (File file : dir.toFile().listFiles()) {
+                file.delete();
+            }
+            Files.delete(dir);
+        }
+
+        System.out.println("All startup profile tests passed!");
+    }
+}
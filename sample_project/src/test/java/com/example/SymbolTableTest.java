@@ -0,0 +1,70 @@
+package com.example;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+public class SymbolTableTest {
+
+    public static void main(String[] args) {
+        // Test slots, constants and lookups
+        SymbolTable table = new SymbolTable();
+        assert table.slotOf("x") == -1 && !table.contains("x") : "Empty table has no names";
+        int x = table.define("x", 1.5);
+        int c = table.defineConstant("c", 3e8);
+        assert table.slotOf("x") == x && table.get("x") == 1.5 : "Lookup by name failed";
+        assert table.slotOf(new String("x")) == x : "Lookup should compare contents, not identity";
+        assert table.isConstant(c) && !table.isConstant(x) : "Constant flag mismatch";
+        assert table.nameOf(x) == "x".intern() : "Names should be interned";
+
+        // Test every write stamps its slot with a new version
+        long before = table.getVersion();
+        assert table.getVersion(x) < table.getVersion(c) && table.getVersion(c) == before : "Versions follow write order";
+        table.set(x, 2.5);
+        assert table.getVersion(x) > before && table.getVersion(c) <= before : "Only the written slot changes";
+        assert table.changedSince(before, x) && !table.changedSince(before, c) : "changedSince should be precise";
+        table.define("c", 1);
+        assert table.changedSince(before, c) && table.getConstantVersion() == 1 : "Redefinition bumps both versions";
+
+        // Test growth keeps every name reachable
+        SymbolTable large = new SymbolTable();
+        int count = 200_000;
+        for (int i = 0; i < count; i++) {
+            assert large.define("v" + i, i) == i : "Slots are assigned in order";
+        }
+        for (int i = 0; i < count; i += 7) {
+            assert large.slotOf("v" + i) == i && large.get(i) == i : "Lookup after growth failed for v" + i;
+        }
+        assert large.slotOf("v" + count) == -1 : "Undefined name should be missing";
+        large.define("v42", -1);
+        assert large.size() == count && large.get("v42") == -1 : "Redefinition reuses the slot";
+
+        // Test reads by name don't allocate
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+            String[] names = new String[1000];
+            for (int i = 0; i < names.length; i++) {
+                names[i] = "v" + (i * 97);
+            }
+            double sum = 0;
+            for (int warm = 0; warm < 20; warm++) {
+                sum += readAll(large, names);
+            }
+            long start = allocations.getThreadAllocatedBytes(Thread.currentThread().getId());
+            sum += readAll(large, names);
+            long allocated = allocations.getThreadAllocatedBytes(Thread.currentThread().getId()) - start;
+            assert allocated < 1024 : "Lookups allocated " + allocated + " bytes";
+            assert sum != 0;
+        }
+
+        System.out.println("All symbol table tests passed!");
+    }
+
+    private static double readAll(SymbolTable table, String[] names) {
+        double sum = 0;
+        for (String name : names) {
+            sum += table.get(name);
+        }
+        return sum;
+    }
+}
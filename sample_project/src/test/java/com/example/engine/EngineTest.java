@@ -0,0 +1,111 @@
+package com.example.engine;
+
+import com.example.PhysicsConstants;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class EngineTest {
+
+    public static void main(String[] args) throws Exception {
+        Engine engine = new Engine();
+        EvaluationContext context = engine.newContext();
+
+        // Test constants are folded and other names are read from the context
+        Formula rest = engine.compile("m_e * c^2 / eV");
+        assert rest.getVariables().isEmpty() : "Constants should not be variables";
+        assert Math.abs(context.evaluate(rest) - PhysicsConstants.m_e * PhysicsConstants.c * PhysicsConstants.c / PhysicsConstants.eV) < 1e-6
+                : "Electron rest energy";
+        Formula kinetic = engine.compile("0.5 * m * v^2");
+        assert kinetic.getVariables().equals(List.of("m", "v")) : "Variables in order: " + kinetic.getVariables();
+        try {
+            context.evaluate(kinetic);
+            assert false : "Undefined variables should fail";
+        } catch (IllegalArgumentException expected) {
+            assert expected.getMessage().equals("Unknown variable: m") : expected.getMessage();
+        }
+        context.set("m", 2);
+        context.set("v", 3);
+        assert context.evaluate(kinetic) == 9 : "Kinetic energy";
+        context.set("v", 4);
+        assert context.evaluate(kinetic) == 16 : "New values are read on every call";
+        assert context.evaluate("m + v") == 6 : "Evaluate by source";
+
+        // Test console statements
+        assert context.execute("x = 2 * 3") == 6 && context.get("x") == 6 : "Assignment";
+        assert context.get("ans") == 6 : "Assignment sets ans";
+        assert context.execute("x + 1") == 7 && context.get("ans") == 7 : "Expression sets ans";
+        assert EvaluationContext.targetOf("y = 1").equals("y") && EvaluationContext.targetOf("y + 1") == null : "Targets";
+        try {
+            context.execute("2x = 1");
+            assert false : "Invalid names should be rejected";
+        } catch (IllegalArgumentException expected) {
+            // Expected
+        }
+        try {
+            engine.compile("1 +");
+            assert false : "Malformed formulas should be rejected";
+        } catch (IllegalArgumentException expected) {
+            // Expected
+        }
+
+        // Test redefining a constant only affects the context that did it
+        EvaluationContext other = engine.newContext();
+        Formula twiceE = engine.compile("E * 2");
+        context.execute("E = 5");
+        assert context.evaluate(twiceE) == 10 : "Redefined constant should be used";
+        assert context.evaluate("E * 2") == 10 : "Redefined constant by source";
+        assert other.evaluate(twiceE) == Math.E * 2 : "Other contexts keep the constant";
+        assert context.explain(twiceE).contains("Optimized: (E * 2.0)") && !other.explain(twiceE).contains("Optimized: (E * 2.0)")
+                : "Explain should show what each context evaluates";
+        assert engine.isConstant("E") && engine.getConstant("E") == Math.E : "Engine constants are fixed";
+        assert engine.compile("explain_me + 1").explain().contains("Optimized") : "Explain";
+        assert engine.getStatistics().contains("hits") : "Statistics";
+
+        // Test many threads evaluating one formula, each in its own context
+        Map<String, Double> constants = new LinkedHashMap<>();
+        constants.put("k", 3.0);
+        Engine shared = new Engine(constants, 16);
+        Formula polynomial = shared.compile("k * x^2 + b * x + 1");
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<EvaluationContext>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            double b = t;
+            results.add(pool.submit(new Callable<EvaluationContext>() {
+                @Override
+                public EvaluationContext call() {
+                    EvaluationContext local = shared.context();
+                    assert local == shared.context() : "One context per thread";
+                    local.set("b", b);
+                    for (int i = 0; i < 100_000; i++) {
+                        double x = i * 0.001;
+                        local.set("x", x);
+                        double expected = 3.0 * Math.pow(x, 2) + b * x + 1;
+                        double actual = local.evaluate(polynomial);
+                        if (actual != expected) {
+                            throw new AssertionError("Thread " + b + " got " + actual + " for x = " + x + ", expected " + expected);
+                        }
+                    }
+                    return local;
+                }
+            }));
+        }
+        List<EvaluationContext> contexts = new ArrayList<>();
+        for (Future<EvaluationContext> result : results) {
+            EvaluationContext local = result.get();
+            assert !contexts.contains(local) : "Threads should not share contexts";
+            contexts.add(local);
+        }
+        pool.shutdown();
+        assert polynomial.explain().contains("(compiled)") : "Hot formula should be compiled";
+
+        System.out.println("All engine tests passed!");
+    }
+}